@@ -0,0 +1,150 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Client of the {@link UnlockAgent} of a vault.
+ */
+final class AgentClient implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(AgentClient.class.getName());
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+    private static final int READ_TIMEOUT_MILLIS = 30000;
+
+    private final Socket socket;
+    private final DataInputStream input;
+    private final DataOutputStream output;
+
+    private AgentClient(Socket socket) throws IOException {
+        this.socket = socket;
+        this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Connects to the agent of the given vault.
+     *
+     * @param vault file name of the vault
+     * @return the connected client, or empty if no agent is running for the
+     * vault
+     */
+    static Optional<AgentClient> connect(String vault) {
+        Path agentFile = Paths.get(UnlockAgent.getAgentFileName(vault));
+        if (!Files.isRegularFile(agentFile)) {
+            return Optional.empty();
+        }
+        Socket socket = new Socket();
+        try {
+            List<String> lines = Files.readAllLines(agentFile, StandardCharsets.US_ASCII);
+            if (lines.size() < 2 || lines.get(1).length() != UnlockAgent.TOKEN_LENGTH) {
+                throw new IOException("Invalid agent file");
+            }
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(lines.get(0))), CONNECT_TIMEOUT_MILLIS);
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            AgentClient client = new AgentClient(socket);
+            client.output.write(lines.get(1).getBytes(StandardCharsets.US_ASCII));
+            return Optional.of(client);
+        } catch (IOException | RuntimeException e) {
+            LOG.log(Level.FINE, "Could not connect to agent", e);
+            closeQuietly(socket);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Sends a request to the agent and waits for its response.
+     *
+     * @param request the command and its arguments
+     * @return the response, starting with the status
+     * @throws IOException if the agent could not be reached
+     */
+    List<String> execute(String... request) throws IOException {
+        return execute(Collections.singletonList(Arrays.asList(request))).get(0);
+    }
+
+    /**
+     * Sends requests to the agent in a single batch, and waits for their
+     * responses.
+     *
+     * @param requests the requests
+     * @return the responses, in the order of the requests
+     * @throws IOException if the agent could not be reached
+     */
+    List<List<String>> execute(List<List<String>> requests) throws IOException {
+        for (List<String> request : requests) {
+            AgentProtocol.writeMessage(this.output, request);
+        }
+        this.output.flush();
+        List<List<String>> responses = new ArrayList<>(requests.size());
+        for (int index = 0; index < requests.size(); index++) {
+            List<String> response = AgentProtocol.readMessage(this.input);
+            if (response == null || response.isEmpty()) {
+                throw new EOFException("Agent closed the connection");
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(this.socket);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Could not close agent connection", e);
+        }
+    }
+}
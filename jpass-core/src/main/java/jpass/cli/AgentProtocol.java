@@ -0,0 +1,115 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.cli;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Message format used between the {@link UnlockAgent} and its clients.
+ *
+ * <p>
+ * A message is a list of strings: the number of strings, followed by the
+ * length and the UTF-8 bytes of each string (-1 length for {@code null}).
+ * Requests start with the command, responses start with {@link #OK} or
+ * {@link #ERROR}.
+ * </p>
+ */
+final class AgentProtocol {
+
+    static final String OK = "OK";
+    static final String ERROR = "ERROR";
+
+    private static final int MAX_MESSAGE_SIZE = 1 << 20;
+    private static final int MAX_STRING_LENGTH = 1 << 24;
+
+    private AgentProtocol() {
+        // not intended to be instantiated
+    }
+
+    /**
+     * Writes a message.
+     *
+     * @param output the output
+     * @param message the strings of the message
+     * @throws IOException if the message could not be written
+     */
+    static void writeMessage(DataOutput output, List<String> message) throws IOException {
+        output.writeInt(message.size());
+        for (String value : message) {
+            if (value == null) {
+                output.writeInt(-1);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Reads a message.
+     *
+     * @param input the input
+     * @return the strings of the message, or {@code null} if the input ended
+     * before the message
+     * @throws IOException if the message could not be read or it is invalid
+     */
+    static List<String> readMessage(DataInput input) throws IOException {
+        int size;
+        try {
+            size = input.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (size < 0 || size > MAX_MESSAGE_SIZE) {
+            throw new IOException("Invalid agent message");
+        }
+        List<String> message = new ArrayList<>(Math.min(size, 1024));
+        for (int index = 0; index < size; index++) {
+            int length = input.readInt();
+            if (length < -1 || length > MAX_STRING_LENGTH) {
+                throw new IOException("Invalid agent message");
+            }
+            if (length == -1) {
+                message.add(null);
+            } else {
+                byte[] bytes = new byte[length];
+                input.readFully(bytes);
+                message.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+        return message;
+    }
+}
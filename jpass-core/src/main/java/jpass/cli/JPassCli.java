@@ -0,0 +1,417 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.cli;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Console;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jpass.data.DataModel;
+import jpass.data.DocumentProcessException;
+import jpass.data.EntriesRepository;
+import jpass.data.EntrySearch;
+import jpass.data.VaultFile;
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+import jpass.xml.converter.XmlConverter;
+
+import static java.lang.String.format;
+
+/**
+ * Command line interface of JPass for batch and scripted access.
+ *
+ * <p>
+ * Only the data layer is used, so no AWT or Swing classes are loaded and no
+ * display is needed. The password of the vault is read from the console, or
+ * from the first line of the standard input if there is no console. Entries
+ * are written to the output batch by batch, while the vault is being read.
+ * </p>
+ *
+ * <p>
+ * If an {@link UnlockAgent} is running for the vault, the read commands are
+ * served by the agent without the password.
+ * </p>
+ */
+public final class JPassCli {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_ERROR = 1;
+    static final int EXIT_USAGE = 2;
+
+    static final List<String> FIELDS = Arrays.asList("title", "url", "user", "password", "notes");
+
+    private static final Logger LOG = Logger.getLogger(JPassCli.class.getName());
+
+    private static final int BATCH_SIZE = 500;
+    private static final String STANDARD_OUTPUT = "-";
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -cp jpass.jar jpass.cli.JPassCli <command> <vault> [arguments]",
+            "",
+            "Commands:",
+            "  list <vault>                   list the titles of the entries",
+            "  search <vault> <criteria>      list the titles containing the criteria",
+            "  get <vault> <title> [field]    print a field of the entry (title, url, user,",
+            "                                 password or notes, default is password)",
+            "  export <vault> <xml_file>      export the entries to an unencrypted XML file",
+            "                                 ('-' for the standard output)",
+            "  import <vault> <xml_file>      import the entries of an XML file, replacing",
+            "                                 entries with the same title",
+            "  agent <vault>                  start an agent in the background, which keeps",
+            "                                 the vault unlocked for list, search and get",
+            "  serve-agent <vault>            run the agent in the foreground",
+            "  stop-agent <vault>             stop the agent of the vault");
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final PrintStream err;
+    private final Console console;
+
+    JPassCli(BufferedReader in, PrintStream out, PrintStream err, Console console) {
+        this.in = in;
+        this.out = out;
+        this.err = err;
+        this.console = console;
+    }
+
+    public static void main(final String[] args) {
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)), false);
+        JPassCli cli = new JPassCli(new BufferedReader(new InputStreamReader(System.in)), out, System.err, System.console());
+        int status = cli.run(args);
+        out.flush();
+        System.exit(status);
+    }
+
+    /**
+     * Runs a command.
+     *
+     * @param args command line arguments
+     * @return exit status
+     */
+    int run(String[] args) {
+        if (args.length < 2) {
+            return usage();
+        }
+        String vault = args[1];
+        try {
+            switch (args[0]) {
+                case "list":
+                    return args.length == 2 ? list(vault) : usage();
+                case "search":
+                    return args.length == 3 ? search(vault, args[2]) : usage();
+                case "get":
+                    return args.length == 3 || args.length == 4 ? get(vault, args[2], args.length == 4 ? args[3] : "password") : usage();
+                case "export":
+                    return args.length == 3 ? exportFile(vault, args[2]) : usage();
+                case "import":
+                    return args.length == 3 ? importFile(vault, args[2]) : usage();
+                case "agent":
+                    return args.length == 2 ? startAgent(vault) : usage();
+                case "serve-agent":
+                    return args.length == 2 ? serveAgent(vault) : usage();
+                case "stop-agent":
+                    return args.length == 2 ? stopAgent(vault) : usage();
+                default:
+                    return usage();
+            }
+        } catch (IOException | DocumentProcessException | RuntimeException e) {
+            this.out.flush();
+            this.err.println(format("Could not %s %s: %s", args[0], vault, e.getMessage()));
+            return EXIT_ERROR;
+        }
+    }
+
+    private int list(String vault) throws IOException, DocumentProcessException {
+        Optional<List<String>> response = requestAgent(vault, "list");
+        if (response.isPresent()) {
+            return printAgentResponse(response.get());
+        }
+        openVault(vault).readEntries(BATCH_SIZE, batch -> {
+            batch.forEach(entry -> this.out.println(entry.getTitle()));
+            this.out.flush();
+        });
+        return EXIT_OK;
+    }
+
+    private int search(String vault, String criteria) throws IOException, DocumentProcessException {
+        Optional<List<String>> response = requestAgent(vault, "search", criteria);
+        if (response.isPresent()) {
+            return printAgentResponse(response.get());
+        }
+        openVault(vault).readEntries(BATCH_SIZE, batch -> {
+            new EntrySearch(batch).search(criteria).forEach(entry -> this.out.println(entry.getTitle()));
+            this.out.flush();
+        });
+        return EXIT_OK;
+    }
+
+    private int get(String vault, String title, String field) throws IOException, DocumentProcessException {
+        if (!FIELDS.contains(field)) {
+            return usage();
+        }
+        Optional<List<String>> response = requestAgent(vault, "get", title, field);
+        if (response.isPresent()) {
+            return printAgentResponse(response.get());
+        }
+        List<Entry> found = new ArrayList<>(1);
+        openVault(vault).readEntries(BATCH_SIZE, batch -> batch.stream()
+                .filter(entry -> found.isEmpty() && title.equals(entry.getTitle()))
+                .findFirst()
+                .ifPresent(found::add));
+        if (found.isEmpty()) {
+            this.err.println(format("Entry not found: %s", title));
+            return EXIT_ERROR;
+        }
+        String value = getField(found.get(0), field);
+        this.out.println(value == null ? "" : value);
+        return EXIT_OK;
+    }
+
+    private int exportFile(String vault, String fileName) throws IOException, DocumentProcessException {
+        Entries entries = openVault(vault).readDocument();
+        if (STANDARD_OUTPUT.equals(fileName)) {
+            new XmlConverter<>(Entries.class).write(entries, this.out);
+        } else {
+            EntriesRepository.newInstance(fileName).exportDocument(entries, null);
+        }
+        return EXIT_OK;
+    }
+
+    private int importFile(String vault, String fileName) throws IOException, DocumentProcessException {
+        boolean exists = new File(vault).exists();
+        // a new vault is created with the password, so it has to be confirmed
+        VaultFile vaultFile = new VaultFile(vault, exists ? readPassword(vault) : readNewPassword(vault));
+        DataModel model = DataModel.newInstance();
+        if (exists) {
+            model.setEntries(vaultFile.read(BATCH_SIZE, batch -> { }, null));
+        }
+        Map<String, Entry> existingEntries = new HashMap<>();
+        model.getSnapshot().getEntryList().forEach(entry -> existingEntries.putIfAbsent(entry.getTitle(), entry));
+        List<Entry> newEntries = new ArrayList<>();
+        EntriesRepository.newInstance(fileName).readEntries(BATCH_SIZE, batch -> batch.forEach(entry -> {
+            Entry existingEntry = existingEntries.put(entry.getTitle(), entry);
+            if (existingEntry == null) {
+                newEntries.add(entry);
+            } else if (!model.updateEntry(existingEntry, entry)) {
+                newEntries.remove(existingEntry);
+                newEntries.add(entry);
+            }
+        }));
+        model.addEntries(newEntries);
+        vaultFile.saveSearchIndex(model, vaultFile.write(model, null));
+        return EXIT_OK;
+    }
+
+    private int startAgent(String vault) throws IOException {
+        if (isAgentRunning(vault)) {
+            this.err.println(format("Agent is already running for %s", vault));
+            return EXIT_ERROR;
+        }
+        char[] password = readPassword(vault);
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("jpass."))
+                .forEach(name -> command.add(format("-D%s=%s", name, System.getProperty(name))));
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), JPassCli.class.getName(), "serve-agent", vault));
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        // the password is passed on the standard input, as it would be visible in the arguments
+        try (Writer writer = new OutputStreamWriter(process.getOutputStream())) {
+            writer.write(password);
+            writer.write(System.lineSeparator());
+        } finally {
+            Arrays.fill(password, '\0');
+        }
+        String started = new BufferedReader(new InputStreamReader(process.getInputStream())).readLine();
+        if (started == null) {
+            return EXIT_ERROR;
+        }
+        this.out.println(started);
+        return EXIT_OK;
+    }
+
+    private int serveAgent(String vault) throws IOException, DocumentProcessException {
+        if (isAgentRunning(vault)) {
+            this.err.println(format("Agent is already running for %s", vault));
+            return EXIT_ERROR;
+        }
+        char[] password = readPassword(vault);
+        UnlockAgent agent;
+        try {
+            agent = UnlockAgent.start(vault, password, UnlockAgent.getIdleTimeoutMillis());
+        } finally {
+            Arrays.fill(password, '\0');
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(agent::close));
+        this.out.println(format("Agent is running for %s", vault));
+        this.out.flush();
+        try {
+            while (!agent.awaitTermination(1, TimeUnit.HOURS)) {
+                LOG.log(Level.FINE, "Agent is running for [{0}]", vault);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            agent.close();
+        }
+        return EXIT_OK;
+    }
+
+    private int stopAgent(String vault) {
+        Optional<List<String>> response = requestAgent(vault, "stop");
+        if (!response.isPresent()) {
+            this.err.println(format("Agent is not running for %s", vault));
+            return EXIT_ERROR;
+        }
+        return printAgentResponse(response.get());
+    }
+
+    private static boolean isAgentRunning(String vault) {
+        Optional<AgentClient> agent = AgentClient.connect(vault);
+        agent.ifPresent(AgentClient::close);
+        return agent.isPresent();
+    }
+
+    /**
+     * Sends a request to the agent of the vault.
+     *
+     * @param vault file name of the vault
+     * @param request the command and its arguments
+     * @return the response, or empty if no agent could serve the request
+     */
+    private Optional<List<String>> requestAgent(String vault, String... request) {
+        Optional<AgentClient> agent = AgentClient.connect(vault);
+        if (!agent.isPresent()) {
+            return Optional.empty();
+        }
+        try (AgentClient client = agent.get()) {
+            return Optional.of(client.execute(request));
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Agent request failed, reading the vault", e);
+            return Optional.empty();
+        }
+    }
+
+    private int printAgentResponse(List<String> response) {
+        if (!AgentProtocol.OK.equals(response.get(0))) {
+            this.err.println(response.size() > 1 ? response.get(1) : "Agent request failed");
+            return EXIT_ERROR;
+        }
+        response.stream().skip(1).forEach(value -> this.out.println(value == null ? "" : value));
+        return EXIT_OK;
+    }
+
+    private EntriesRepository openVault(String vault) throws IOException {
+        return EntriesRepository.newInstance(vault, readPassword(vault));
+    }
+
+    private char[] readPassword(String vault) throws IOException {
+        return readPassword("Password for %s: ", vault);
+    }
+
+    /**
+     * Reads the password of a new vault twice.
+     *
+     * @param vault file name of the vault
+     * @return the password
+     * @throws IOException if the password is missing or not confirmed
+     */
+    private char[] readNewPassword(String vault) throws IOException {
+        char[] password = readPassword(vault);
+        char[] confirmation = readPassword("Repeat password for %s: ", vault);
+        try {
+            if (!Arrays.equals(password, confirmation)) {
+                Arrays.fill(password, '\0');
+                throw new IOException("Passwords are not identical.");
+            }
+        } finally {
+            Arrays.fill(confirmation, '\0');
+        }
+        return password;
+    }
+
+    private char[] readPassword(String prompt, String vault) throws IOException {
+        if (this.console != null) {
+            char[] password = this.console.readPassword(prompt, vault);
+            if (password != null) {
+                return password;
+            }
+        } else {
+            String line = this.in.readLine();
+            if (line != null) {
+                return line.toCharArray();
+            }
+        }
+        throw new IOException("Password is missing.");
+    }
+
+    private int usage() {
+        this.err.println(USAGE);
+        return EXIT_USAGE;
+    }
+
+    /**
+     * Gets a field of the entry.
+     *
+     * @param entry the entry
+     * @param field one of the {@link #FIELDS}
+     * @return the value of the field, may be {@code null}
+     */
+    static String getField(Entry entry, String field) {
+        switch (field) {
+            case "title":
+                return entry.getTitle();
+            case "url":
+                return entry.getUrl();
+            case "user":
+                return entry.getUser();
+            case "notes":
+                return entry.getNotes();
+            default:
+                return entry.getPassword();
+        }
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jpass.data.DocumentProcessException;
+import jpass.data.EntriesRepository;
+import jpass.data.EntrySearch;
+import jpass.util.Configuration;
+import jpass.util.CryptUtils;
+import jpass.util.FileUtils;
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+
+import static java.lang.String.format;
+
+/**
+ * Agent which keeps a vault unlocked in memory and serves read requests of
+ * the command line interface, so the key is derived only once.
+ *
+ * <p>
+ * The agent listens on a loopback socket. The port and a random token are
+ * written into a file next to the vault (with {@code .agent} extension),
+ * which is readable only by the owner. Clients have to send the token
+ * before their requests. The vault is reloaded when the file changes on
+ * disk, and the agent stops when it is idle for the configured time.
+ * </p>
+ */
+final class UnlockAgent implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(UnlockAgent.class.getName());
+
+    static final String AGENT_FILE_EXTENSION = ".agent";
+    static final int TOKEN_LENGTH = 64;
+
+    private static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 600;
+    private static final int ACCEPT_TIMEOUT_MILLIS = 1000;
+    private static final int CLIENT_TIMEOUT_MILLIS = 30000;
+
+    private final Path vault;
+    private final char[] password;
+    private final long idleTimeoutMillis;
+    private final Path agentFile;
+    private final byte[] token;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile LoadedVault loadedVault;
+    private volatile long lastAccessTime;
+    private boolean closed;
+
+    private UnlockAgent(String vault, char[] password, long idleTimeoutMillis) throws IOException {
+        this.vault = Paths.get(vault).toAbsolutePath();
+        this.password = password.clone();
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.agentFile = Paths.get(getAgentFileName(vault)).toAbsolutePath();
+        this.token = CryptUtils.generateRandomToken(TOKEN_LENGTH);
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "JPass-agent");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Unlocks the vault and starts an agent for it.
+     *
+     * @param vault file name of the vault
+     * @param password password of the vault
+     * @param idleTimeoutMillis time without requests in milliseconds, after
+     * which the agent stops
+     * @return the running agent
+     * @throws IOException if the vault could not be read (including incorrect
+     * password), or the agent could not be started
+     * @throws DocumentProcessException if the vault could not be processed
+     */
+    static UnlockAgent start(String vault, char[] password, long idleTimeoutMillis) throws IOException, DocumentProcessException {
+        UnlockAgent agent = new UnlockAgent(vault, password, idleTimeoutMillis);
+        try {
+            agent.loadedVault = agent.load();
+            agent.writeAgentFile();
+        } catch (IOException | DocumentProcessException | RuntimeException e) {
+            agent.close();
+            throw e;
+        }
+        agent.lastAccessTime = System.currentTimeMillis();
+        Thread thread = new Thread(agent::acceptConnections, "JPass-agent-accept");
+        thread.setDaemon(true);
+        thread.start();
+        return agent;
+    }
+
+    /**
+     * Gets the idle timeout of agents from the configuration.
+     *
+     * @return idle timeout in milliseconds
+     */
+    static long getIdleTimeoutMillis() {
+        return TimeUnit.SECONDS.toMillis(Configuration.getInstance().getInteger("agent.idle.timeout.seconds", DEFAULT_IDLE_TIMEOUT_SECONDS));
+    }
+
+    /**
+     * Gets the name of the file, which holds the port and the token of the
+     * agent of the given vault.
+     *
+     * @param vault file name of the vault
+     * @return file name of the agent file
+     */
+    static String getAgentFileName(String vault) {
+        return vault + AGENT_FILE_EXTENSION;
+    }
+
+    /**
+     * Gets the local port of the agent.
+     *
+     * @return the port
+     */
+    int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * Waits until the agent stops.
+     *
+     * @param timeout maximum time to wait
+     * @param unit unit of the timeout
+     * @return {@code true} if the agent stopped
+     * @throws InterruptedException if the current thread was interrupted
+     */
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.terminated.await(timeout, unit);
+    }
+
+    /**
+     * Stops the agent, removes the agent file and clears the password.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.serverSocket.close();
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Could not close agent socket", e);
+        }
+        this.executor.shutdownNow();
+        try {
+            Files.deleteIfExists(this.agentFile);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, format("Could not delete agent file [%s]", this.agentFile), e);
+        }
+        Arrays.fill(this.password, '\0');
+        if (this.loadedVault != null) {
+            this.loadedVault.close();
+        }
+        this.loadedVault = null;
+        this.terminated.countDown();
+    }
+
+    private void acceptConnections() {
+        try {
+            this.serverSocket.setSoTimeout((int) Math.max(1, Math.min(ACCEPT_TIMEOUT_MILLIS, this.idleTimeoutMillis)));
+            while (!this.serverSocket.isClosed()) {
+                try {
+                    Socket socket = this.serverSocket.accept();
+                    this.activeConnections.incrementAndGet();
+                    this.executor.execute(() -> serve(socket));
+                } catch (SocketTimeoutException e) {
+                    if (this.activeConnections.get() == 0 && System.currentTimeMillis() - this.lastAccessTime > this.idleTimeoutMillis) {
+                        LOG.log(Level.FINE, "Stopping idle agent of [{0}]", this.vault);
+                        break;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!this.serverSocket.isClosed()) {
+                LOG.log(Level.WARNING, "Agent stopped unexpectedly", e);
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private void serve(Socket connection) {
+        try (Socket socket = connection;
+                DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            socket.setSoTimeout(CLIENT_TIMEOUT_MILLIS);
+            byte[] clientToken = new byte[TOKEN_LENGTH];
+            input.readFully(clientToken);
+            if (!MessageDigest.isEqual(this.token, clientToken)) {
+                LOG.log(Level.WARNING, "Agent request with incorrect token rejected");
+                return;
+            }
+            List<String> request;
+            boolean stop = false;
+            while (!stop && (request = AgentProtocol.readMessage(input)) != null) {
+                this.lastAccessTime = System.currentTimeMillis();
+                stop = !request.isEmpty() && "stop".equals(request.get(0));
+                AgentProtocol.writeMessage(output, handle(request));
+                // responses of pipelined requests are sent together
+                if (stop || input.available() == 0) {
+                    output.flush();
+                }
+            }
+            output.flush();
+            if (stop) {
+                close();
+            }
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Agent connection failed", e);
+        } finally {
+            this.lastAccessTime = System.currentTimeMillis();
+            this.activeConnections.decrementAndGet();
+        }
+    }
+
+    private List<String> handle(List<String> request) {
+        String command = request.isEmpty() ? "" : request.get(0);
+        try {
+            if ("list".equals(command) && request.size() == 1) {
+                return ok(getLoadedVault().entries.stream().map(Entry::getTitle));
+            } else if ("search".equals(command) && request.size() == 2) {
+                return ok(getLoadedVault().search.search(request.get(1)).stream().map(Entry::getTitle));
+            } else if ("get".equals(command) && request.size() == 3 && JPassCli.FIELDS.contains(request.get(2))) {
+                Entry entry = getLoadedVault().entriesByTitle.get(request.get(1));
+                if (entry == null) {
+                    return Arrays.asList(AgentProtocol.ERROR, format("Entry not found: %s", request.get(1)));
+                }
+                return Arrays.asList(AgentProtocol.OK, JPassCli.getField(entry, request.get(2)));
+            } else if ("stop".equals(command) && request.size() == 1) {
+                return Collections.singletonList(AgentProtocol.OK);
+            }
+            return Arrays.asList(AgentProtocol.ERROR, format("Invalid request: %s", command));
+        } catch (IOException | DocumentProcessException | RuntimeException e) {
+            LOG.log(Level.WARNING, format("Could not reload vault [%s]", this.vault), e);
+            return Arrays.asList(AgentProtocol.ERROR, format("Could not reload %s: %s", this.vault, e.getMessage()));
+        }
+    }
+
+    private static List<String> ok(Stream<String> values) {
+        List<String> response = new ArrayList<>();
+        response.add(AgentProtocol.OK);
+        response.addAll(values.collect(Collectors.toList()));
+        return response;
+    }
+
+    private LoadedVault getLoadedVault() throws IOException, DocumentProcessException {
+        LoadedVault current = this.loadedVault;
+        if (current == null || current.isChanged(readAttributes())) {
+            synchronized (this) {
+                current = this.loadedVault;
+                if (this.closed) {
+                    throw new IOException("Agent has been stopped");
+                }
+                if (current.isChanged(readAttributes())) {
+                    LOG.log(Level.FINE, "Reloading changed vault [{0}]", this.vault);
+                    LoadedVault replaced = current;
+                    current = load();
+                    this.loadedVault = current;
+                    replaced.close();
+                }
+            }
+        }
+        return current;
+    }
+
+    private LoadedVault load() throws IOException, DocumentProcessException {
+        BasicFileAttributes attributes = readAttributes();
+        Entries entries = EntriesRepository.newInstance(this.vault.toString(), this.password).readDocument();
+        return new LoadedVault(entries, attributes);
+    }
+
+    private BasicFileAttributes readAttributes() throws IOException {
+        return Files.readAttributes(this.vault, BasicFileAttributes.class);
+    }
+
+    private void writeAgentFile() throws IOException {
+        FileUtils.replaceFile(this.agentFile, path -> Files.write(path,
+                Arrays.asList(String.valueOf(getPort()), new String(this.token, StandardCharsets.US_ASCII)),
+                StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Entries of the vault, as they were read from the file.
+     */
+    private static final class LoadedVault {
+
+        private final List<Entry> entries;
+        private final Closeable detailsSource;
+        private final Map<String, Entry> entriesByTitle;
+        private final EntrySearch search;
+        private final Object fileKey;
+        private final long lastModifiedTime;
+        private final long size;
+
+        LoadedVault(Entries entries, BasicFileAttributes attributes) {
+            this.entries = Collections.unmodifiableList(new ArrayList<>(entries.getEntry()));
+            this.detailsSource = entries.getDetailsSource();
+            this.entriesByTitle = new HashMap<>();
+            this.entries.forEach(entry -> this.entriesByTitle.putIfAbsent(entry.getTitle(), entry));
+            this.search = new EntrySearch(this.entries);
+            this.fileKey = attributes.fileKey();
+            this.lastModifiedTime = attributes.lastModifiedTime().toMillis();
+            this.size = attributes.size();
+        }
+
+        boolean isChanged(BasicFileAttributes attributes) {
+            // the vault is replaced by a new file when it is saved
+            return attributes.lastModifiedTime().toMillis() != this.lastModifiedTime
+                    || attributes.size() != this.size
+                    || (this.fileKey != null && !this.fileKey.equals(attributes.fileKey()));
+        }
+
+        /**
+         * Closes the details source of the entries, when they are replaced
+         * by a reload or the agent is stopped.
+         */
+        void close() {
+            if (this.detailsSource == null) {
+                return;
+            }
+            try {
+                this.detailsSource.close();
+            } catch (IOException e) {
+                LOG.log(Level.FINE, "Could not close the details source of the vault", e);
+            }
+        }
+    }
+}
@@ -171,11 +171,24 @@ public class Cbc {
      * @throws IOException if the writing fails
      */
     public void encrypt(byte[] data, int length) throws IOException {
+        encrypt(data, 0, length);
+    }
+
+    /**
+     * Encrypts a part of the array. Only {@code length} {@code byte}s of the
+     * array starting at {@code offset} will be encrypted.
+     *
+     * @param data {@code byte}s that should be encrypted
+     * @param offset index of the first {@code byte} to encrypt
+     * @param length number of {@code byte}s that should be encrypted
+     * @throws IOException if the writing fails
+     */
+    public void encrypt(byte[] data, int offset, int length) throws IOException {
         if (data == null || length <= 0) {
             return;
         }
 
-        for (int i = 0; i < length; ++i) {
+        for (int i = offset; i < offset + length; ++i) {
             this._overflow[this._overflowUsed++] = data[i];
             if (this._overflowUsed == BLOCK_SIZE) {
                 encryptBlock(this._overflow, this._outBuffer);
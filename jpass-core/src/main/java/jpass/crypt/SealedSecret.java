@@ -0,0 +1,172 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.crypt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import jpass.util.CryptUtils;
+
+/**
+ * Secret value which is kept encrypted in memory.
+ *
+ * <p>
+ * Values are sealed with a random session key, which is generated when the
+ * class is loaded and never leaves the memory. The cipher is {@link Aes256}
+ * in counter mode with a random nonce per value, so the sealed value is as
+ * long as the plain value plus one block.
+ * </p>
+ *
+ * <p>
+ * Unsealed plain bytes should be wiped by the caller right after use.
+ * </p>
+ */
+public final class SealedSecret {
+
+    private static final int BLOCK_SIZE = 16;
+    private static final int KEY_SIZE = 32;
+
+    private static final Random RANDOM = CryptUtils.newRandomNumberGenerator();
+    private static final Aes256 CIPHER = createCipher();
+
+    /**
+     * Nonce followed by the encrypted value.
+     */
+    private final byte[] data;
+
+    private SealedSecret(byte[] data) {
+        this.data = data;
+    }
+
+    private static Aes256 createCipher() {
+        byte[] key = new byte[KEY_SIZE];
+        RANDOM.nextBytes(key);
+        Aes256 cipher = new Aes256(key);
+        Arrays.fill(key, (byte) 0);
+        return cipher;
+    }
+
+    /**
+     * Seals a value.
+     *
+     * @param value the value
+     * @return the sealed value, or {@code null} if the value is {@code null}
+     */
+    public static SealedSecret seal(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] plain = value.getBytes(StandardCharsets.UTF_8);
+        try {
+            return seal(plain);
+        } finally {
+            Arrays.fill(plain, (byte) 0);
+        }
+    }
+
+    /**
+     * Seals plain bytes. The given array is not modified.
+     *
+     * @param plain the plain bytes
+     * @return the sealed value
+     */
+    public static SealedSecret seal(byte[] plain) {
+        byte[] data = new byte[BLOCK_SIZE + plain.length];
+        byte[] nonce = new byte[BLOCK_SIZE];
+        RANDOM.nextBytes(nonce);
+        System.arraycopy(nonce, 0, data, 0, BLOCK_SIZE);
+        applyKeyStream(nonce, plain, 0, data, BLOCK_SIZE, plain.length);
+        return new SealedSecret(data);
+    }
+
+    /**
+     * Unseals the value into a new array, which should be wiped after use.
+     *
+     * @return the plain bytes
+     */
+    public byte[] unsealBytes() {
+        byte[] plain = new byte[this.data.length - BLOCK_SIZE];
+        applyKeyStream(Arrays.copyOf(this.data, BLOCK_SIZE), this.data, BLOCK_SIZE, plain, 0, plain.length);
+        return plain;
+    }
+
+    /**
+     * Unseals the value as string. The intermediate plain bytes are wiped,
+     * but the returned string stays in the memory until it is garbage
+     * collected, so it should be used only when it is really needed.
+     *
+     * @return the plain value
+     */
+    public String unseal() {
+        byte[] plain = unsealBytes();
+        try {
+            return new String(plain, StandardCharsets.UTF_8);
+        } finally {
+            Arrays.fill(plain, (byte) 0);
+        }
+    }
+
+    /**
+     * Checks if the sealed value is empty.
+     *
+     * @return {@code true} if the plain value has no bytes
+     */
+    public boolean isEmpty() {
+        return this.data.length == BLOCK_SIZE;
+    }
+
+    /**
+     * Encrypts or decrypts the input in counter mode.
+     *
+     * @param counter the initial counter block, which is modified
+     * @param input array containing the input bytes
+     * @param inIndex start of the input in {@code input}
+     * @param output array to store the result
+     * @param outIndex start of the result in {@code output}
+     * @param length number of bytes to process
+     */
+    private static void applyKeyStream(byte[] counter, byte[] input, int inIndex, byte[] output, int outIndex, int length) {
+        byte[] keyStream = new byte[BLOCK_SIZE];
+        for (int offset = 0; offset < length; offset += BLOCK_SIZE) {
+            synchronized (CIPHER) {
+                CIPHER.encrypt(counter, 0, keyStream, 0);
+            }
+            for (int i = 0; i < BLOCK_SIZE && offset + i < length; i++) {
+                output[outIndex + offset + i] = (byte) (input[inIndex + offset + i] ^ keyStream[i]);
+            }
+            // increment the counter as a big-endian number
+            int position = BLOCK_SIZE - 1;
+            while (position >= 0 && ++counter[position] == 0) {
+                position--;
+            }
+        }
+        Arrays.fill(keyStream, (byte) 0);
+    }
+}
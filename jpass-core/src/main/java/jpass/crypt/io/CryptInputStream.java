@@ -52,7 +52,7 @@ public class CryptInputStream extends InputStream {
     /**
      * Maximum size of data that will be read from the underlying stream.
      */
-    private static final int FETCH_BUFFER_SIZE = 32;
+    private static final int FETCH_BUFFER_SIZE = 4096;
 
     /**
      * Underlying stream that provides the encrypted data.
@@ -158,9 +158,52 @@ public class CryptInputStream extends InputStream {
      */
     @Override
     public int read() throws IOException {
+        if (!fillBuffer()) {
+            return -1;
+        }
+        return this._buffer[this._bufferUsed++] & 0xff;
+    }
+
+    /**
+     * Reads up to {@code length} decrypted {@code byte}s into the array. If
+     * there is no more data, {@code -1} will be returned.
+     *
+     * @param data array the data is read into
+     * @param offset start offset in the array
+     * @param length maximum number of {@code byte}s to read
+     * @return number of {@code byte}s read or {@code -1}
+     * @throws IOException if the decryption fails or the underlying stream
+     * throws an exception
+     */
+    @Override
+    public int read(byte[] data, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || length > data.length - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (length == 0) {
+            return 0;
+        }
+        if (!fillBuffer()) {
+            return -1;
+        }
+        int count = Math.min(length, this._buffer.length - this._bufferUsed);
+        System.arraycopy(this._buffer, this._bufferUsed, data, offset, count);
+        this._bufferUsed += count;
+        return count;
+    }
+
+    /**
+     * Decrypts the next chunk of data, if the current buffer is completely
+     * returned.
+     *
+     * @return {@code true} if there is decrypted data in the buffer
+     * @throws IOException if the decryption fails or the underlying stream
+     * throws an exception
+     */
+    private boolean fillBuffer() throws IOException {
         while (this._buffer == null || this._bufferUsed >= this._buffer.length) {
             if (this._lastBufferRead) {
-                return -1;
+                return false;
             }
 
             this._bufferUsed = 0;
@@ -180,8 +223,7 @@ public class CryptInputStream extends InputStream {
                 readFromStream();
             }
         }
-
-        return this._buffer[this._bufferUsed++] & 0xff;
+        return true;
     }
 
     /**
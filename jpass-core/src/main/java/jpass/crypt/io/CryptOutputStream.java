@@ -125,6 +125,23 @@ public class CryptOutputStream extends OutputStream {
         this._cipher.encrypt(b);
     }
 
+    /**
+     * Encrypts a part of a {@code byte} array.
+     *
+     * @param b {@code byte} array to be encrypted
+     * @param off index of the first {@code byte} to encrypt
+     * @param len number of {@code byte}s to encrypt
+     * @throws IOException if encrypted data can't be written to the underlying
+     * stream
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        this._cipher.encrypt(b, off, len);
+    }
+
     /**
      * Finalizes the encryption and closes the underlying stream.
      *
@@ -0,0 +1,540 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+
+/**
+ * Data model of the application data.
+ *
+ * <p>
+ * The state of the model is kept in an immutable {@link Snapshot}. Writers
+ * are serialized and publish a new snapshot with a copy of the entry list
+ * (copy-on-write), readers get the latest published snapshot without
+ * locking, so background tasks can work on a consistent state while the
+ * model is being modified. The entry lists of the snapshots are
+ * unmodifiable.
+ * </p>
+ *
+ * <p>
+ * Listeners are notified on the thread of the writer, after the new
+ * snapshot has been published, so writers with listeners on the user
+ * interface should be called on the event dispatch thread.
+ * </p>
+ *
+ * @author Gabor_Bata
+ *
+ */
+public final class DataModel {
+
+    private static final Logger LOG = Logger.getLogger(DataModel.class.getName());
+
+    private static DataModel instance;
+
+    private volatile Snapshot snapshot = new Snapshot(emptyEntries(), null, null, false, null);
+
+    private final List<DataModelListener> listeners = new CopyOnWriteArrayList<>();
+
+    private DataModel() {
+        // not intended to be instantiated
+    }
+
+    /**
+     * Gets the DataModel singleton instance.
+     *
+     * @return instance of the DataModel
+     */
+    public static synchronized DataModel getInstance() {
+        if (instance == null) {
+            instance = new DataModel();
+        }
+        return instance;
+    }
+
+    /**
+     * Creates a new data model, which is independent from the singleton
+     * instance. Used for additional open vaults.
+     *
+     * @return new instance of the DataModel
+     */
+    public static DataModel newInstance() {
+        return new DataModel();
+    }
+
+    /**
+     * Gets the current state of the data model. The returned snapshot is
+     * not affected by later modifications of the model.
+     *
+     * @return the latest published snapshot
+     */
+    public Snapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * Gets list of entries. The returned entries belong to the current
+     * snapshot and cannot be modified, use the modifier methods of the data
+     * model instead.
+     *
+     * @return list of entries, with an unmodifiable entry list
+     */
+    public Entries getEntries() {
+        return this.snapshot.entries;
+    }
+
+    /**
+     * Sets list of entries.
+     *
+     * @param entries entries
+     */
+    public void setEntries(final Entries entries) {
+        setEntries(entries, null);
+    }
+
+    /**
+     * Sets list of entries, together with their search index. The details
+     * source of the replaced entries is closed.
+     *
+     * @param entries entries
+     * @param searchIndex index of the entries, can be null
+     */
+    public void setEntries(final Entries entries, final TrigramIndex searchIndex) {
+        Entries copy = unmodifiableEntries(new ArrayList<>(entries.getEntry()), entries.getDetailsSource());
+        Closeable replacedSource;
+        synchronized (this) {
+            Snapshot current = this.snapshot;
+            replacedSource = current.entries.getDetailsSource();
+            publish(new Snapshot(copy, current.fileName, current.password, current.modified, searchIndex));
+        }
+        closeReplacedSource(replacedSource, copy.getDetailsSource());
+        this.listeners.forEach(DataModelListener::entriesChanged);
+    }
+
+    /**
+     * Sets the search index of the entries of the given snapshot. The index
+     * is ignored if the entries have been changed since the snapshot was
+     * taken.
+     *
+     * @param indexed the snapshot which has been indexed
+     * @param searchIndex index of the entries of the snapshot
+     * @return {@code true} if the index has been set
+     */
+    public boolean setSearchIndex(final Snapshot indexed, final TrigramIndex searchIndex) {
+        synchronized (this) {
+            Snapshot current = this.snapshot;
+            if (current.entries != indexed.entries) {
+                return false;
+            }
+            publish(new Snapshot(current.entries, current.fileName, current.password, current.modified, searchIndex));
+        }
+        this.listeners.forEach(DataModelListener::searchIndexChanged);
+        return true;
+    }
+
+    /**
+     * Adds an entry to the end of the list of entries.
+     *
+     * @param entry the entry to add
+     */
+    public void addEntry(final Entry entry) {
+        int index;
+        synchronized (this) {
+            List<Entry> entryList = this.snapshot.entries.getEntry();
+            index = entryList.size();
+            List<Entry> copy = new ArrayList<>(index + 1);
+            copy.addAll(entryList);
+            copy.add(entry);
+            publish(this.snapshot.withEntries(copy));
+        }
+        this.listeners.forEach(listener -> listener.entryInserted(index, entry));
+    }
+
+    /**
+     * Adds entries to the end of the list of entries.
+     *
+     * @param entryList the entries to add
+     */
+    public void addEntries(final List<Entry> entryList) {
+        synchronized (this) {
+            List<Entry> current = this.snapshot.entries.getEntry();
+            List<Entry> copy = new ArrayList<>(current.size() + entryList.size());
+            copy.addAll(current);
+            copy.addAll(entryList);
+            publish(this.snapshot.withEntries(copy));
+        }
+        this.listeners.forEach(DataModelListener::entriesChanged);
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param entry the entry to remove
+     * @return {@code true} if the entry was found and removed
+     */
+    public boolean removeEntry(final Entry entry) {
+        int index;
+        synchronized (this) {
+            List<Entry> copy = new ArrayList<>(this.snapshot.entries.getEntry().size());
+            index = copyReplacing(this.snapshot.entries.getEntry(), entry, null, copy);
+            if (index == -1) {
+                return false;
+            }
+            publish(this.snapshot.withEntries(copy));
+        }
+        this.listeners.forEach(listener -> listener.entryRemoved(index, entry));
+        return true;
+    }
+
+    /**
+     * Replaces an entry with an updated one, keeping its position.
+     *
+     * @param oldEntry the entry to replace
+     * @param newEntry the updated entry
+     * @return {@code true} if the old entry was found and replaced
+     */
+    public boolean updateEntry(final Entry oldEntry, final Entry newEntry) {
+        int index;
+        synchronized (this) {
+            List<Entry> copy = new ArrayList<>(this.snapshot.entries.getEntry().size());
+            index = copyReplacing(this.snapshot.entries.getEntry(), oldEntry, newEntry, copy);
+            if (index == -1) {
+                return false;
+            }
+            publish(this.snapshot.withEntries(copy));
+        }
+        this.listeners.forEach(listener -> listener.entryUpdated(index, oldEntry, newEntry));
+        return true;
+    }
+
+    /**
+     * Adds a listener which is notified on the changes of entries.
+     *
+     * @param listener the listener
+     */
+    public void addDataModelListener(final DataModelListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     */
+    public void removeDataModelListener(final DataModelListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Gets the file name for the data model.
+     *
+     * @return file name
+     */
+    public String getFileName() {
+        return this.snapshot.fileName;
+    }
+
+    /**
+     * Sets the file name for the data model.
+     *
+     * @param fileName file name
+     */
+    public synchronized void setFileName(final String fileName) {
+        Snapshot current = this.snapshot;
+        publish(new Snapshot(current.entries, fileName, current.password, current.modified, current.searchIndex));
+    }
+
+    /**
+     * Gets the modified state of the data model.
+     *
+     * @return modified state of the data model
+     */
+    public boolean isModified() {
+        return this.snapshot.modified;
+    }
+
+    /**
+     * Sets the modified state of the data model.
+     *
+     * @param modified modified state
+     */
+    public synchronized void setModified(final boolean modified) {
+        Snapshot current = this.snapshot;
+        publish(new Snapshot(current.entries, current.fileName, current.password, modified, current.searchIndex));
+    }
+
+    public char[] getPassword() {
+        return this.snapshot.password;
+    }
+
+    public synchronized void setPassword(char[] password) {
+        Snapshot current = this.snapshot;
+        publish(new Snapshot(current.entries, current.fileName, password, current.modified, current.searchIndex));
+    }
+
+    /**
+     * Records that the entries of the given snapshot have been saved to the
+     * given file. The model is marked as unmodified only if its entries have
+     * not been changed since the snapshot was taken.
+     *
+     * @param saved the snapshot which has been saved
+     * @param fileName file name
+     * @param password password of the file
+     * @return {@code true} if the model has been marked as unmodified
+     */
+    public synchronized boolean markSaved(final Snapshot saved, final String fileName, final char[] password) {
+        Snapshot current = this.snapshot;
+        boolean unchanged = current.entries == saved.entries;
+        publish(new Snapshot(current.entries, fileName, password, current.modified && !unchanged, current.searchIndex));
+        return unchanged;
+    }
+
+    /**
+     * Clears all fields of the data model, and closes the details source of
+     * the entries.
+     */
+    public void clear() {
+        Closeable replacedSource;
+        synchronized (this) {
+            replacedSource = this.snapshot.entries.getDetailsSource();
+            publish(new Snapshot(emptyEntries(), null, null, false, null));
+        }
+        closeReplacedSource(replacedSource, null);
+        this.listeners.forEach(DataModelListener::entriesChanged);
+    }
+
+    /**
+     * Gets the list of entry titles.
+     *
+     * @return list of entry titles
+     */
+    public List<String> getTitles() {
+        return this.snapshot.getTitles();
+    }
+
+    /**
+     * Gets entry by title.
+     *
+     * @param title entry title
+     * @return entry (can be null)
+     */
+    public Entry getEntryByTitle(String title) {
+        return this.snapshot.getEntryByTitle(title);
+    }
+
+    private void publish(Snapshot newSnapshot) {
+        this.snapshot = newSnapshot;
+    }
+
+    private static Entries emptyEntries() {
+        return unmodifiableEntries(Collections.emptyList(), null);
+    }
+
+    private static Entries unmodifiableEntries(List<Entry> entryList, Closeable detailsSource) {
+        return new UnmodifiableEntries(entryList, detailsSource);
+    }
+
+    /**
+     * Closes the details source of replaced entries, unless the new entries
+     * use the same source. Details of the replaced entries which have not
+     * been loaded cannot be loaded afterwards.
+     *
+     * @param replacedSource details source of the replaced entries, can be
+     * null
+     * @param currentSource details source of the new entries, can be null
+     */
+    private static void closeReplacedSource(Closeable replacedSource, Closeable currentSource) {
+        if (replacedSource == null || replacedSource == currentSource) {
+            return;
+        }
+        try {
+            replacedSource.close();
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not close the details source of the replaced entries", e);
+        }
+    }
+
+    /**
+     * Copies the entries to the given list in a single pass, replacing the
+     * first occurrence of the entry with the replacement, or leaving it out
+     * if the replacement is {@code null}.
+     *
+     * @param entryList the entries to copy
+     * @param entry the entry to replace
+     * @param replacement the new entry, can be null
+     * @param copy the list to copy the entries to
+     * @return the index of the replaced entry, or -1 if it was not found
+     */
+    private static int copyReplacing(List<Entry> entryList, Entry entry, Entry replacement, List<Entry> copy) {
+        int index = -1;
+        for (Entry current : entryList) {
+            if (index == -1 && current == entry) {
+                index = copy.size();
+                if (replacement != null) {
+                    copy.add(replacement);
+                }
+            } else {
+                copy.add(current);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Entries of a snapshot, with an unmodifiable entry list.
+     */
+    private static final class UnmodifiableEntries extends Entries {
+
+        private UnmodifiableEntries(List<Entry> entryList, Closeable detailsSource) {
+            this.entry = Collections.unmodifiableList(entryList);
+            this.detailsSource = detailsSource;
+        }
+
+        @Override
+        public void setDetailsSource(Closeable source) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Consistent state of the data model at a point in time.
+     */
+    public static final class Snapshot {
+
+        private final Entries entries;
+        private final String fileName;
+        private final char[] password;
+        private final boolean modified;
+        private final TrigramIndex searchIndex;
+
+        private Snapshot(Entries entries, String fileName, char[] password, boolean modified, TrigramIndex searchIndex) {
+            this.entries = entries;
+            this.fileName = fileName;
+            this.password = password;
+            this.modified = modified;
+            this.searchIndex = searchIndex;
+        }
+
+        private Snapshot withEntries(List<Entry> entryList) {
+            // the index belongs to the previous entries, the details source is kept
+            return new Snapshot(unmodifiableEntries(entryList, this.entries.getDetailsSource()),
+                    this.fileName, this.password, this.modified, null);
+        }
+
+        /**
+         * Gets the entries of the snapshot. The entry list cannot be
+         * modified.
+         *
+         * @return list of entries
+         */
+        public Entries getEntries() {
+            return this.entries;
+        }
+
+        /**
+         * Gets an unmodifiable view of the entry list.
+         *
+         * @return list of entries
+         */
+        public List<Entry> getEntryList() {
+            return this.entries.getEntry();
+        }
+
+        /**
+         * Gets the file name.
+         *
+         * @return file name
+         */
+        public String getFileName() {
+            return this.fileName;
+        }
+
+        /**
+         * Gets the password.
+         *
+         * @return password
+         */
+        public char[] getPassword() {
+            return this.password;
+        }
+
+        /**
+         * Gets the modified state.
+         *
+         * @return modified state
+         */
+        public boolean isModified() {
+            return this.modified;
+        }
+
+        /**
+         * Gets the search index of the entries.
+         *
+         * @return the index, or {@code null} if the entries are not indexed
+         */
+        public TrigramIndex getSearchIndex() {
+            return this.searchIndex;
+        }
+
+        /**
+         * Gets the list of entry titles.
+         *
+         * @return list of entry titles
+         */
+        public List<String> getTitles() {
+            return this.entries.getEntry().stream()
+                    .map(Entry::getTitle)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * Gets entry by title.
+         *
+         * @param title entry title
+         * @return entry (can be null)
+         */
+        public Entry getEntryByTitle(String title) {
+            int entryIndex = getTitles().indexOf(title);
+            if (entryIndex != -1) {
+                return this.entries.getEntry().get(entryIndex);
+            }
+            return null;
+        }
+    }
+}
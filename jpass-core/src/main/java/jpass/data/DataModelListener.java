@@ -0,0 +1,79 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import jpass.xml.bind.Entry;
+
+/**
+ * Listener for changes of the entries of a {@link DataModel}.
+ *
+ * <p>
+ * The listener methods are called on the thread which modified the data
+ * model. Indices refer to the list of entries of the data model.
+ * </p>
+ */
+public interface DataModelListener {
+
+    /**
+     * Called when an entry has been inserted.
+     *
+     * @param index index of the inserted entry
+     * @param entry the inserted entry
+     */
+    void entryInserted(int index, Entry entry);
+
+    /**
+     * Called when an entry has been removed.
+     *
+     * @param index former index of the removed entry
+     * @param entry the removed entry
+     */
+    void entryRemoved(int index, Entry entry);
+
+    /**
+     * Called when an entry has been replaced with an updated one.
+     *
+     * @param index index of the entry
+     * @param oldEntry the replaced entry
+     * @param newEntry the new entry
+     */
+    void entryUpdated(int index, Entry oldEntry, Entry newEntry);
+
+    /**
+     * Called when the whole list of entries has been changed.
+     */
+    void entriesChanged();
+
+    /**
+     * Called when the search index of the entries has been built.
+     */
+    default void searchIndexChanged() {
+        // most listeners are not interested in the index
+    }
+}
@@ -0,0 +1,534 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import jpass.crypt.io.CryptInputStream;
+import jpass.crypt.io.CryptOutputStream;
+import jpass.io.ChannelInputStream;
+import jpass.io.ChannelOutputStream;
+import jpass.io.JPassInputStream;
+import jpass.io.JPassOutputStream;
+import jpass.io.ParallelGzipOutputStream;
+import jpass.io.PipelinedInputStream;
+import jpass.io.PipelinedOutputStream;
+import jpass.util.Configuration;
+import jpass.util.FileUtils;
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+import jpass.xml.converter.XmlConverter;
+
+import static jpass.util.StringUtils.stripString;
+
+/**
+ * Repository class for reading and writing (encrypted) XML documents.
+ *
+ * @author Gabor_Bata
+ *
+ */
+public final class EntriesRepository {
+
+    private static final Logger LOG = Logger.getLogger(EntriesRepository.class.getName());
+
+    /**
+     * Minimum size of encrypted files opened with a pipeline, by default.
+     */
+    private static final int DEFAULT_PIPELINED_MIN_FILE_SIZE = 1024 * 1024;
+
+    /**
+     * Minimum number of entries of encrypted documents saved with a pipeline,
+     * by default.
+     */
+    private static final int DEFAULT_PIPELINED_MIN_ENTRY_COUNT = 5000;
+
+    /**
+     * File name to read/write.
+     */
+    private final String fileName;
+
+    /**
+     * Key for encryption.
+     */
+    private final char[] key;
+
+    /**
+     * Key derived from the password for the file read or written last.
+     */
+    private byte[] fileKey;
+
+    /**
+     * Source of the details of the entries read last, which are loaded on
+     * demand.
+     */
+    private Closeable detailsSource;
+
+    /**
+     * Converter between document objects and streams representing XMLs
+     */
+    private static final XmlConverter<Entries> CONVERTER = new XmlConverter<>(Entries.class);
+
+    /**
+     * Creates a DocumentRepository instance.
+     *
+     * @param fileName file name
+     * @param key key for encryption
+     */
+    private EntriesRepository(final String fileName, final char[] key) {
+        this.fileName = fileName;
+        this.key = key;
+    }
+
+    /**
+     * Creates a document repository with no encryption.
+     *
+     * @param fileName file name
+     * @return a new DocumentHelper object
+     */
+    public static EntriesRepository newInstance(final String fileName) {
+        return new EntriesRepository(fileName, null);
+    }
+
+    /**
+     * Creates a document repository with encryption.
+     *
+     * @param fileName file name
+     * @param key key for encryption
+     * @return a new DocumentHelper object
+     */
+    public static EntriesRepository newInstance(final String fileName, final char[] key) {
+        return new EntriesRepository(fileName, key);
+    }
+
+    /**
+     * Gets the key derived from the password for the encrypted file read or
+     * written last by this repository. It can be used to encrypt related
+     * files, without deriving the key again.
+     *
+     * @return the derived key, or {@code null} if not available (e.g. for
+     * unencrypted files)
+     */
+    public byte[] getFileKey() {
+        return this.fileKey;
+    }
+
+    /**
+     * Gets the source of the password and notes of the entries read last by
+     * this repository, which are loaded on demand. It should be closed when
+     * the entries are discarded.
+     *
+     * @return the details source, or {@code null} if the entries were read
+     * with their details
+     * @see Entries#getDetailsSource()
+     */
+    public Closeable getDetailsSource() {
+        return this.detailsSource;
+    }
+
+    /**
+     * Reads and XML file to an {@link Entries} object.
+     *
+     * @return the document
+     * @throws FileNotFoundException if file not exists
+     * @throws IOException when I/O error occurred (including incorrect
+     * password, or file format issues)
+     * @throws DocumentProcessException when document could not be read
+     */
+    public Entries readDocument() throws IOException, DocumentProcessException {
+        Entries entries = new Entries();
+        readEntries(Integer.MAX_VALUE, entries.getEntry()::addAll);
+        entries.setDetailsSource(this.detailsSource);
+        return entries;
+    }
+
+    /**
+     * Reads the entries of an XML file in batches. Batches are passed to the
+     * consumer as soon as they are read, so the beginning of the document can
+     * be processed before the whole document is decrypted and parsed.
+     *
+     * @param batchSize maximum number of entries in a batch
+     * @param batchConsumer consumer of the batches, called on the current
+     * thread
+     * @throws FileNotFoundException if file not exists
+     * @throws IOException when I/O error occurred (including incorrect
+     * password, or file format issues)
+     * @throws DocumentProcessException when document could not be read
+     */
+    public void readEntries(int batchSize, Consumer<List<Entry>> batchConsumer) throws IOException, DocumentProcessException {
+        readEntries(batchSize, batchConsumer, null);
+    }
+
+    /**
+     * Reads the entries of an XML file in batches, and reports the progress
+     * of reading the file.
+     *
+     * @param batchSize maximum number of entries in a batch
+     * @param batchConsumer consumer of the batches, called on the current
+     * thread
+     * @param progressListener listener of the number of bytes read from the
+     * file, may be {@code null}
+     * @throws FileNotFoundException if file not exists
+     * @throws IOException when I/O error occurred (including incorrect
+     * password, or file format issues)
+     * @throws DocumentProcessException when document could not be read
+     * @see #readEntries(int, Consumer)
+     */
+    public void readEntries(int batchSize, Consumer<List<Entry>> batchConsumer, LongConsumer progressListener)
+            throws IOException, DocumentProcessException {
+        this.detailsSource = null;
+        InputStream inputStream = null;
+        List<PipelinedInputStream> stages = new ArrayList<>();
+        Map<String, String> strings = new HashMap<>();
+        List<Entry> batch = new ArrayList<>();
+        Consumer<Entry> entryConsumer = entry -> {
+            deduplicateStrings(entry, strings);
+            batch.add(entry);
+            if (batch.size() >= batchSize) {
+                batchConsumer.accept(new ArrayList<>(batch));
+                batch.clear();
+            }
+        };
+        try {
+            if (this.key != null && IndexedVault.isIndexedVault(this.fileName)) {
+                this.fileKey = IndexedVault.read(this.fileName, this.key, entryConsumer,
+                        source -> this.detailsSource = source, progressListener);
+            } else {
+                if (this.key == null) {
+                    inputStream = openFile(progressListener);
+                } else if (isPipelined()) {
+                    inputStream = openInputPipeline(stages, progressListener);
+                } else {
+                    JPassInputStream fileStream = new JPassInputStream(openFile(progressListener), this.key);
+                    this.fileKey = fileStream.getKey();
+                    inputStream = new GZIPInputStream(new CryptInputStream(fileStream));
+                }
+                long parseStart = System.nanoTime();
+                long waitStart = PipelinedInputStream.getCurrentThreadWaitTime();
+                CONVERTER.readElements(inputStream, Entry.class, entryConsumer);
+                if (!stages.isEmpty()) {
+                    long parseTime = System.nanoTime() - parseStart - (PipelinedInputStream.getCurrentThreadWaitTime() - waitStart);
+                    logThroughput("open", stages, "parse", stages.get(stages.size() - 1).getBytes(), parseTime);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(new ArrayList<>(batch));
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DocumentProcessException(stripString(e.getMessage()));
+        } finally {
+            if (inputStream != null) {
+                inputStream.close();
+            }
+        }
+    }
+
+    /**
+     * Opens the file for reading with large reads, or memory mapped if
+     * configured so.
+     *
+     * @param progressListener listener of the number of bytes read from the
+     * file, may be {@code null}
+     * @return the input stream
+     * @throws FileNotFoundException if file not exists
+     * @throws IOException if the file could not be opened
+     */
+    private InputStream openFile(LongConsumer progressListener) throws IOException {
+        ChannelInputStream inputStream = ChannelInputStream.open(this.fileName, isMemoryMapped());
+        inputStream.setProgressListener(progressListener);
+        return inputStream;
+    }
+
+    /**
+     * Creates or truncates a file for writing with large writes.
+     *
+     * @param path the file
+     * @param progressListener listener of the number of bytes written to the
+     * file, may be {@code null}
+     * @return the output stream
+     * @throws IOException if the file could not be created
+     */
+    private static OutputStream createFile(Path path, LongConsumer progressListener) throws IOException {
+        ChannelOutputStream outputStream = ChannelOutputStream.open(path);
+        outputStream.setProgressListener(progressListener);
+        return outputStream;
+    }
+
+    private static boolean isMemoryMapped() {
+        return Configuration.getInstance().is("memory.mapped.file.read.enabled", false);
+    }
+
+    /**
+     * Checks if the encrypted file is large enough to read, decrypt, inflate
+     * and parse it on separate threads.
+     *
+     * @return {@code true} if the file should be opened with a pipeline
+     */
+    private boolean isPipelined() {
+        int minFileSize = Configuration.getInstance().getInteger("pipelined.open.min.file.size", DEFAULT_PIPELINED_MIN_FILE_SIZE);
+        return minFileSize >= 0 && Runtime.getRuntime().availableProcessors() > 1
+                && new File(this.fileName).length() >= minFileSize;
+    }
+
+    /**
+     * Opens the encrypted file with separate threads for reading, decryption
+     * and inflation, the document is parsed by the calling thread.
+     *
+     * @param stages list to collect the stages of the pipeline
+     * @param progressListener listener of the number of bytes read from the
+     * file, may be {@code null}
+     * @return the stream of the decrypted and inflated document
+     * @throws IOException if the file could not be opened
+     */
+    private InputStream openInputPipeline(List<PipelinedInputStream> stages, LongConsumer progressListener) throws IOException {
+        JPassInputStream fileStream = new JPassInputStream(openFile(progressListener), this.key);
+        this.fileKey = fileStream.getKey();
+        InputStream encryptedStream = fileStream;
+        if (!isMemoryMapped()) {
+            // mapped files are read by the decrypt stage directly
+            PipelinedInputStream readStage = new PipelinedInputStream("read", fileStream);
+            stages.add(readStage);
+            encryptedStream = readStage;
+        }
+        PipelinedInputStream decryptStage = new PipelinedInputStream("decrypt", new CryptInputStream(encryptedStream, fileStream.getKey()));
+        stages.add(decryptStage);
+        GZIPInputStream inflater;
+        try {
+            inflater = new GZIPInputStream(decryptStage, PipelinedInputStream.DEFAULT_BUFFER_SIZE);
+        } catch (IOException e) {
+            // the header is read right away, which fails with incorrect password
+            decryptStage.close();
+            throw e;
+        }
+        PipelinedInputStream inflateStage = new PipelinedInputStream("inflate", inflater);
+        stages.add(inflateStage);
+        return inflateStage;
+    }
+
+    /**
+     * Checks if the document is large enough to compress, encrypt and write
+     * it on separate threads.
+     *
+     * @param document the document
+     * @return {@code true} if the document should be saved with a pipeline
+     */
+    private static boolean isPipelined(Entries document) {
+        int minEntryCount = Configuration.getInstance().getInteger("pipelined.save.min.entry.count", DEFAULT_PIPELINED_MIN_ENTRY_COUNT);
+        return minEntryCount >= 0 && Runtime.getRuntime().availableProcessors() > 1
+                && document.getEntry().size() >= minEntryCount;
+    }
+
+    /**
+     * Opens the encrypted file with separate threads for compression,
+     * encryption and writing, the document is serialized by the calling
+     * thread. Compression is done in parallel blocks.
+     *
+     * @param path the file to write
+     * @param stages list to collect the stages of the pipeline, the first
+     * stage is written last
+     * @param progressListener listener of the number of bytes written to the
+     * file, may be {@code null}
+     * @return the stream to write the document to
+     * @throws IOException if the file could not be opened
+     */
+    private OutputStream openOutputPipeline(Path path, List<PipelinedOutputStream> stages, LongConsumer progressListener) throws IOException {
+        JPassOutputStream fileStream = new JPassOutputStream(createFile(path, progressListener), this.key);
+        this.fileKey = fileStream.getKey();
+        PipelinedOutputStream writeStage = new PipelinedOutputStream("write", fileStream);
+        stages.add(writeStage);
+        PipelinedOutputStream encryptStage = new PipelinedOutputStream("encrypt", new CryptOutputStream(writeStage, fileStream.getKey()));
+        stages.add(encryptStage);
+        PipelinedOutputStream deflateStage = new PipelinedOutputStream("deflate", new ParallelGzipOutputStream(encryptStage));
+        stages.add(deflateStage);
+        return deflateStage;
+    }
+
+    /**
+     * Logs the throughput of the stages of a pipeline.
+     *
+     * @param operation name of the operation
+     * @param stages the stages running on separate threads
+     * @param callerStage name of the stage running on the calling thread
+     * @param callerBytes number of bytes processed by the calling thread
+     * @param callerTime time spent with processing on the calling thread, in
+     * nanoseconds
+     */
+    private static void logThroughput(String operation, List<?> stages, String callerStage, long callerBytes, long callerTime) {
+        if (!LOG.isLoggable(Level.FINE)) {
+            return;
+        }
+        StringBuilder summary = new StringBuilder("Pipelined ").append(operation).append(" throughput");
+        stages.forEach(stage -> summary.append(", ").append(stage));
+        summary.append(", ").append(PipelinedInputStream.formatThroughput(callerStage, callerBytes, callerTime));
+        LOG.fine(summary.toString());
+    }
+
+    /**
+     * Writes a document into an XML file.
+     *
+     * @param document the document
+     * @throws DocumentProcessException when document could not be saved
+     */
+    public void writeDocument(final Entries document) throws DocumentProcessException, IOException {
+        writeDocument(document, null);
+    }
+
+    /**
+     * Writes a document into an XML file, and reports the progress of writing
+     * the file. The document is written into a temporary file next to the
+     * file, which replaces the file only when it is completely written, so
+     * the file is left intact if the write fails or is interrupted.
+     *
+     * @param document the document
+     * @param progressListener listener of the number of bytes written to the
+     * file, may be {@code null}
+     * @throws DocumentProcessException when document could not be saved,
+     * including when the temporary file could not be created
+     * @throws IOException when I/O error occurred
+     */
+    public void writeDocument(final Entries document, final LongConsumer progressListener) throws DocumentProcessException, IOException {
+        try {
+            // details stored separately should be loaded before the file is replaced
+            document.getEntry().forEach(Entry::loadDetails);
+            FileUtils.replaceFile(Paths.get(this.fileName), path -> writeDocument(document, path, progressListener));
+        } catch (Exception e) {
+            throw new DocumentProcessException(stripString(e.getMessage()));
+        }
+    }
+
+    /**
+     * Writes a document into the given file.
+     *
+     * @param document the document
+     * @param path the file to write
+     * @param progressListener listener of the number of bytes written to the
+     * file, may be {@code null}
+     * @throws IOException when the document could not be written
+     */
+    private void writeDocument(final Entries document, final Path path, final LongConsumer progressListener) throws IOException {
+        if (this.key != null && Configuration.getInstance().is("indexed.file.format.enabled", false)) {
+            this.fileKey = IndexedVault.write(path.toString(), this.key, document, progressListener);
+            return;
+        }
+        OutputStream outputStream = null;
+        List<PipelinedOutputStream> stages = new ArrayList<>();
+        try {
+            if (this.key == null) {
+                outputStream = createFile(path, progressListener);
+            } else if (isPipelined(document)) {
+                outputStream = openOutputPipeline(path, stages, progressListener);
+            } else {
+                JPassOutputStream fileStream = new JPassOutputStream(createFile(path, progressListener), this.key);
+                this.fileKey = fileStream.getKey();
+                outputStream = new GZIPOutputStream(new CryptOutputStream(fileStream));
+            }
+            long serializeStart = System.nanoTime();
+            long waitStart = PipelinedInputStream.getCurrentThreadWaitTime();
+            CONVERTER.write(document, outputStream);
+            if (!stages.isEmpty()) {
+                long serializeTime = System.nanoTime() - serializeStart - (PipelinedInputStream.getCurrentThreadWaitTime() - waitStart);
+                // waits for the stages to write all data
+                outputStream.close();
+                long serializedBytes = stages.get(stages.size() - 1).getBytes();
+                logThroughput("save", stages, "serialize", serializedBytes, serializeTime);
+            }
+        } finally {
+            if (outputStream != null) {
+                outputStream.close();
+            }
+        }
+    }
+
+    /**
+     * Exports a document into an unencrypted XML file. The document is written
+     * into a temporary file next to the file, which replaces the file only
+     * when it is completely written.
+     *
+     * @param document the document
+     * @param progressListener listener of the number of bytes written to the
+     * file, may be {@code null}
+     * @throws DocumentProcessException when document could not be exported,
+     * including when the temporary file could not be created
+     * @throws IOException when I/O error occurred
+     */
+    public void exportDocument(final Entries document, final LongConsumer progressListener) throws DocumentProcessException, IOException {
+        try {
+            FileUtils.replaceFile(Paths.get(this.fileName), path -> {
+                try (OutputStream outputStream = createFile(path, progressListener)) {
+                    CONVERTER.write(document, outputStream);
+                }
+            });
+        } catch (Exception e) {
+            throw new DocumentProcessException(stripString(e.getMessage()));
+        }
+    }
+
+    /**
+     * Replaces equal URLs, user names and dates of the entries with a single
+     * string instance, as these are often repeated in large documents.
+     *
+     * @param entries the entries
+     */
+    static void deduplicateStrings(Entries entries) {
+        Map<String, String> strings = new HashMap<>();
+        entries.getEntry().forEach(entry -> deduplicateStrings(entry, strings));
+    }
+
+    /**
+     * Replaces URL, user name and dates of the entry with the equal string
+     * instance of the given strings, if any. The dates are not parsed again.
+     *
+     * @param entry the entry
+     * @param strings the string instances by value
+     */
+    private static void deduplicateStrings(Entry entry, Map<String, String> strings) {
+        entry.replaceStrings(value -> deduplicate(strings, value));
+    }
+
+    private static String deduplicate(Map<String, String> strings, String value) {
+        return value == null ? null : strings.computeIfAbsent(value, v -> v);
+    }
+}
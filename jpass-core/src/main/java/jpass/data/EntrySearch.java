@@ -0,0 +1,270 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+
+import jpass.util.LruCache;
+import jpass.xml.bind.Entry;
+
+/**
+ * Search over a snapshot of entries.
+ *
+ * <p>
+ * The entries are ordered by title once, when the search is created, so the
+ * same instance can be used for consecutive searches (e.g. while the user is
+ * typing) from any thread. Long running searches can be cancelled by
+ * interrupting the searching thread.
+ * </p>
+ *
+ * <p>
+ * The results of the recent searches are kept in a small LRU cache. If the
+ * criteria is extended (e.g. "git" to "gith"), only the entries of the
+ * previous result are checked again, since the new result is a subset of it.
+ * Repeating a recent search (e.g. on backspace) returns the cached result.
+ * </p>
+ *
+ * <p>
+ * If a {@link TrigramIndex} of the entries is available, only the entries
+ * found by the index are checked for criteria of at least three characters.
+ * </p>
+ */
+public final class EntrySearch {
+
+    /**
+     * Order of the search results.
+     */
+    public static final Comparator<Entry> TITLE_ORDER = Comparator.comparing(Entry::getTitle, String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * Number of entries to check between two cancellation checks.
+     */
+    private static final int CANCELLATION_CHECK_INTERVAL = 1024;
+
+    /**
+     * Maximum number of cached search results.
+     */
+    private static final int CACHE_SIZE = 16;
+
+    private final List<Entry> entries;
+
+    /**
+     * Index of the entries, or {@code null}.
+     */
+    private final TrigramIndex index;
+
+    /**
+     * Position of the entries in the title order, by their position in the
+     * index.
+     */
+    private final int[] sortedPositions;
+
+    /**
+     * Recent search results by lower case criteria, in access order.
+     */
+    private final Map<String, List<Entry>> cache = new LruCache<>(CACHE_SIZE);
+
+    /**
+     * Creates a new search for the given entries.
+     *
+     * @param entries entries to search in
+     */
+    public EntrySearch(Collection<Entry> entries) {
+        this(entries, null);
+    }
+
+    /**
+     * Creates a new search for the given entries, using the index of the
+     * entries.
+     *
+     * @param entries entries to search in, in the order of the index
+     * @param index index of the entries, can be null
+     */
+    public EntrySearch(Collection<Entry> entries, TrigramIndex index) {
+        List<Entry> indexedEntries = new ArrayList<>(entries);
+        if (index == null || index.getEntryCount() != indexedEntries.size()) {
+            indexedEntries.sort(TITLE_ORDER);
+            this.entries = Collections.unmodifiableList(indexedEntries);
+            this.index = null;
+            this.sortedPositions = null;
+            return;
+        }
+        Integer[] order = new Integer[indexedEntries.size()];
+        Arrays.setAll(order, position -> position);
+        Arrays.sort(order, Comparator.comparing(indexedEntries::get, TITLE_ORDER));
+        List<Entry> sortedEntries = new ArrayList<>(order.length);
+        this.sortedPositions = new int[order.length];
+        for (int sortedPosition = 0; sortedPosition < order.length; sortedPosition++) {
+            sortedEntries.add(indexedEntries.get(order[sortedPosition]));
+            this.sortedPositions[order[sortedPosition]] = sortedPosition;
+        }
+        this.entries = Collections.unmodifiableList(sortedEntries);
+        this.index = index;
+    }
+
+    /**
+     * Gets the number of entries in this search.
+     *
+     * @return number of entries
+     */
+    public int getEntryCount() {
+        return this.entries.size();
+    }
+
+    /**
+     * Gets the entries which title contains the given criteria (case
+     * insensitive), ordered by title.
+     *
+     * @param criteria search criteria, empty or {@code null} means all entries
+     * @return list of matching entries
+     * @throws CancellationException if the searching thread was interrupted
+     */
+    public List<Entry> search(String criteria) {
+        if (criteria == null || criteria.isEmpty()) {
+            return this.entries;
+        }
+        String lowerCaseCriteria = criteria.toLowerCase();
+        List<Entry> candidates;
+        synchronized (this.cache) {
+            List<Entry> cachedResult = this.cache.get(lowerCaseCriteria);
+            if (cachedResult != null) {
+                return cachedResult;
+            }
+        }
+        List<Entry> indexedCandidates = getIndexedCandidates(lowerCaseCriteria);
+        synchronized (this.cache) {
+            candidates = getCandidates(lowerCaseCriteria, indexedCandidates);
+        }
+        List<Entry> result = new ArrayList<>();
+        for (int index = 0; index < candidates.size(); index++) {
+            if (index % CANCELLATION_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Search has been cancelled.");
+            }
+            Entry entry = candidates.get(index);
+            if (matchesLowerCase(entry, lowerCaseCriteria)) {
+                result.add(entry);
+            }
+        }
+        result = Collections.unmodifiableList(result);
+        synchronized (this.cache) {
+            this.cache.put(lowerCaseCriteria, result);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the result of a recent search with the given criteria without
+     * searching again.
+     *
+     * @param criteria search criteria, empty or {@code null} means all entries
+     * @return list of matching entries, or empty if the result is not cached
+     */
+    public Optional<List<Entry>> getCachedResult(String criteria) {
+        if (criteria == null || criteria.isEmpty()) {
+            return Optional.of(this.entries);
+        }
+        synchronized (this.cache) {
+            return Optional.ofNullable(this.cache.get(criteria.toLowerCase()));
+        }
+    }
+
+    /**
+     * Gets the entries found by the index for the given criteria, in title
+     * order.
+     *
+     * @param lowerCaseCriteria lower case search criteria
+     * @return the candidate entries, or all entries if there is no index or
+     * the criteria is too short
+     */
+    private List<Entry> getIndexedCandidates(String lowerCaseCriteria) {
+        int[] positions = this.index == null ? null : this.index.getCandidates(lowerCaseCriteria);
+        if (positions == null) {
+            return this.entries;
+        }
+        int[] sorted = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            sorted[i] = this.sortedPositions[positions[i]];
+        }
+        Arrays.sort(sorted);
+        List<Entry> candidates = new ArrayList<>(sorted.length);
+        for (int sortedPosition : sorted) {
+            candidates.add(this.entries.get(sortedPosition));
+        }
+        return candidates;
+    }
+
+    /**
+     * Gets the entries which should be checked for the given criteria. If the
+     * criteria contains the criteria of a cached result, then the new result
+     * is a subset of the cached one, so the smallest such result is used.
+     *
+     * @param lowerCaseCriteria lower case search criteria
+     * @param indexedCandidates the candidates found by the index
+     * @return the candidate entries
+     */
+    private List<Entry> getCandidates(String lowerCaseCriteria, List<Entry> indexedCandidates) {
+        List<Entry> candidates = indexedCandidates;
+        for (Map.Entry<String, List<Entry>> cachedResult : this.cache.entrySet()) {
+            if (cachedResult.getValue().size() < candidates.size() && lowerCaseCriteria.contains(cachedResult.getKey())) {
+                candidates = cachedResult.getValue();
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Checks if the entry would be found with the given criteria.
+     *
+     * @param entry the entry
+     * @param criteria search criteria, empty or {@code null} matches all entries
+     * @return {@code true} if the entry title contains the criteria
+     */
+    public static boolean matches(Entry entry, String criteria) {
+        return criteria == null || criteria.isEmpty() || matchesLowerCase(entry, criteria.toLowerCase());
+    }
+
+    /**
+     * Checks if the entry matches the given lower case criteria.
+     *
+     * @param entry the entry
+     * @param lowerCaseCriteria lower case search criteria
+     * @return {@code true} if the entry title contains the criteria
+     */
+    private static boolean matchesLowerCase(Entry entry, String lowerCaseCriteria) {
+        return entry.getTitle() != null && entry.getTitle().toLowerCase().contains(lowerCaseCriteria);
+    }
+}
@@ -0,0 +1,585 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import jpass.crypt.Cbc;
+import jpass.crypt.DecryptException;
+import jpass.crypt.SealedSecret;
+import jpass.io.JPassStream;
+import jpass.io.JPassStream.FileVersionType;
+import jpass.util.CryptUtils;
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+
+/**
+ * Indexed vault file layout, which allows to list the entries without
+ * decrypting the password and notes of every entry.
+ *
+ * <p>
+ * The file consists of the following parts:
+ * </p>
+ * <pre>
+ * identifier | version | salt | index length | index | index MAC | record 1 | record 2 | ...
+ * </pre>
+ *
+ * <p>
+ * The index contains the entry count and the title, URL, user and dates of
+ * every entry, and the position and length of its record. Records contain the
+ * password and notes of a single entry, followed by their MAC. The index and
+ * every record is encrypted separately with a random initialization vector.
+ * </p>
+ *
+ * <p>
+ * The index and the records are authenticated with HMAC-SHA256, with a key
+ * derived from the encryption key. The MAC of the index covers the header as
+ * well, the MAC of a record covers the number of its entry, so records cannot
+ * be modified, truncated or swapped without detection.
+ * </p>
+ *
+ * <p>
+ * On read, only the index is decrypted. Records are fetched by their
+ * position through the {@link FileChannel} of the read, which is kept open
+ * until every record is loaded or the source of the records is closed, so
+ * records are still available if the file is replaced, touched or deleted in
+ * the meantime. If the channel is closed by the interrupt of a loading
+ * thread, the file is opened again for the next record.
+ * </p>
+ */
+final class IndexedVault {
+
+    private static final FileVersionType FILE_VERSION = FileVersionType.VERSION_2;
+    private static final int IV_LENGTH = 16;
+    private static final int MAC_LENGTH = 32;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final byte[] MAC_KEY_INFO = "JPass indexed vault MAC".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_LENGTH = JPassStream.FILE_FORMAT_IDENTIFIER.length + 1 + FILE_VERSION.getSaltLength() + Long.BYTES;
+
+    private IndexedVault() {
+        // not intended to be instantiated
+    }
+
+    /**
+     * Checks if the given file has the indexed layout.
+     *
+     * @param fileName the file name
+     * @return {@code true} if the file has the identifier and version of the
+     * indexed layout
+     * @throws IOException if the file could not be read
+     */
+    static boolean isIndexedVault(String fileName) throws IOException {
+        byte[] header = new byte[JPassStream.FILE_FORMAT_IDENTIFIER.length + 1];
+        try (DataInputStream input = new DataInputStream(new FileInputStream(fileName))) {
+            input.readFully(header);
+        } catch (EOFException e) {
+            return false;
+        }
+        return Arrays.equals(JPassStream.FILE_FORMAT_IDENTIFIER, Arrays.copyOf(header, JPassStream.FILE_FORMAT_IDENTIFIER.length))
+                && header[header.length - 1] == FILE_VERSION.getVersion();
+    }
+
+    /**
+     * Reads the index of an indexed vault. Password and notes of the entries
+     * are loaded on demand.
+     *
+     * @param fileName the file name
+     * @param key the password
+     * @return the entries
+     * @throws IOException if the file could not be read or decrypted
+     */
+    static Entries read(String fileName, char[] key) throws IOException {
+        Entries entries = new Entries();
+        byte[] fileKey = read(fileName, key, entries.getEntry()::add, entries::setDetailsSource, null);
+        Arrays.fill(fileKey, (byte) 0);
+        return entries;
+    }
+
+    /**
+     * Reads the index of an indexed vault, and passes the entries to the
+     * consumer one by one. Password and notes of the entries are loaded on
+     * demand.
+     *
+     * @param fileName the file name
+     * @param key the password
+     * @param consumer consumer of the entries
+     * @param sourceConsumer consumer of the source of the records, which
+     * should be closed when the entries are discarded
+     * @param progressListener listener of the number of bytes processed, may
+     * be {@code null}; records are reported as processed once the index is
+     * read
+     * @return the key derived from the password
+     * @throws IOException if the file could not be read, decrypted or
+     * authenticated
+     */
+    static byte[] read(String fileName, char[] key, Consumer<Entry> consumer, Consumer<Closeable> sourceConsumer,
+            LongConsumer progressListener) throws IOException {
+        Path path = Paths.get(fileName);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        RecordSource source = null;
+        boolean complete = false;
+        byte[] generatedKey = null;
+        byte[] macKey = null;
+        byte[] index = null;
+        try {
+            ByteBuffer header = readFully(channel, 0, HEADER_LENGTH);
+            ((Buffer) header).position(JPassStream.FILE_FORMAT_IDENTIFIER.length + 1);
+            byte[] salt = new byte[FILE_VERSION.getSaltLength()];
+            header.get(salt);
+            long indexLength = header.getLong();
+            if (indexLength < IV_LENGTH || indexLength > Math.min(channel.size() - HEADER_LENGTH - MAC_LENGTH, Integer.MAX_VALUE)) {
+                throw new IOException("Invalid file format");
+            }
+
+            generatedKey = FILE_VERSION.getKeyGenerator().apply(key, salt);
+            macKey = createMacKey(generatedKey);
+            byte[] encryptedIndex = readFully(channel, HEADER_LENGTH, (int) indexLength).array();
+            byte[] indexMac = readFully(channel, HEADER_LENGTH + indexLength, MAC_LENGTH).array();
+            Mac mac = newMac(macKey);
+            mac.update(header.array());
+            if (!MessageDigest.isEqual(indexMac, mac.doFinal(encryptedIndex))) {
+                throw new IOException("can't decrypt");
+            }
+            index = decrypt(encryptedIndex, generatedKey);
+            long recordsPosition = HEADER_LENGTH + indexLength + MAC_LENGTH;
+            notifyProgress(progressListener, recordsPosition);
+
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(index));
+            byte[] identifier = new byte[JPassStream.FILE_FORMAT_IDENTIFIER.length];
+            input.readFully(identifier);
+            if (!Arrays.equals(JPassStream.FILE_FORMAT_IDENTIFIER, identifier)) {
+                throw new IOException("can't decrypt");
+            }
+            int entryCount = input.readInt();
+            RecordSource recordSource = new RecordSource(path, channel, recordsPosition,
+                    SealedSecret.seal(generatedKey), SealedSecret.seal(macKey), entryCount);
+            source = recordSource;
+            for (int i = 0; i < entryCount; i++) {
+                Entry entry = new Entry();
+                entry.setTitle(readString(input));
+                entry.setUrl(readString(input));
+                entry.setUser(readString(input));
+                entry.setLastModification(readString(input));
+                entry.setCreationDate(readString(input));
+                long recordPosition = input.readLong();
+                int recordLength = input.readInt();
+                if (recordLength < IV_LENGTH + MAC_LENGTH) {
+                    throw new IOException("Invalid file format");
+                }
+                int entryIndex = i;
+                entry.setDetailsLoader(e -> recordSource.load(e, entryIndex, recordPosition, recordLength));
+                consumer.accept(entry);
+            }
+            notifyProgress(progressListener, channel.size());
+            sourceConsumer.accept(recordSource);
+            complete = true;
+            return Arrays.copyOf(generatedKey, generatedKey.length);
+        } catch (EOFException e) {
+            throw new IOException("Invalid file format", e);
+        } finally {
+            if (source == null) {
+                channel.close();
+            } else if (!complete || source.isComplete()) {
+                source.close();
+            }
+            wipe(generatedKey);
+            wipe(macKey);
+            wipe(index);
+        }
+    }
+
+    /**
+     * Writes entries in indexed layout. Password and notes of every entry are
+     * loaded before the file is opened for writing.
+     *
+     * @param fileName the file name
+     * @param key the password
+     * @param entries the entries
+     * @throws IOException if the file could not be written
+     */
+    static void write(String fileName, char[] key, Entries entries) throws IOException {
+        byte[] fileKey = write(fileName, key, entries, null);
+        Arrays.fill(fileKey, (byte) 0);
+    }
+
+    /**
+     * Writes entries in indexed layout, and reports the progress of writing
+     * the file. Password and notes of every entry are loaded before the file
+     * is opened for writing.
+     *
+     * @param fileName the file name
+     * @param key the password
+     * @param entries the entries
+     * @param progressListener listener of the number of bytes written to the
+     * file, may be {@code null}
+     * @return the key derived from the password
+     * @throws IOException if the file could not be written
+     */
+    static byte[] write(String fileName, char[] key, Entries entries, LongConsumer progressListener) throws IOException {
+        byte[] salt = CryptUtils.generateRandomSalt(FILE_VERSION.getSaltLength());
+        byte[] generatedKey = FILE_VERSION.getKeyGenerator().apply(key, salt);
+        byte[] macKey = createMacKey(generatedKey);
+        Mac mac = newMac(macKey);
+        Arrays.fill(macKey, (byte) 0);
+
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        DataOutputStream index = new DataOutputStream(indexBytes);
+        index.write(JPassStream.FILE_FORMAT_IDENTIFIER);
+        index.writeInt(entries.getEntry().size());
+        List<byte[]> records = new ArrayList<>(entries.getEntry().size());
+        long recordPosition = 0;
+        for (Entry entry : entries.getEntry()) {
+            byte[] record = encrypt(createRecord(entry), generatedKey);
+            mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(records.size()).array());
+            record = Arrays.copyOf(record, record.length + MAC_LENGTH);
+            mac.update(record, 0, record.length - MAC_LENGTH);
+            System.arraycopy(mac.doFinal(), 0, record, record.length - MAC_LENGTH, MAC_LENGTH);
+            records.add(record);
+            writeString(index, entry.getTitle());
+            writeString(index, entry.getUrl());
+            writeString(index, entry.getUser());
+            writeString(index, entry.getLastModification());
+            writeString(index, entry.getCreationDate());
+            index.writeLong(recordPosition);
+            index.writeInt(record.length);
+            recordPosition += record.length;
+        }
+        byte[] encryptedIndex = encrypt(indexBytes.toByteArray(), generatedKey);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.put(JPassStream.FILE_FORMAT_IDENTIFIER);
+        header.put((byte) FILE_VERSION.getVersion());
+        header.put(salt);
+        header.putLong(encryptedIndex.length);
+        mac.update(header.array());
+        byte[] indexMac = mac.doFinal(encryptedIndex);
+        ((Buffer) header).flip();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            writeFully(channel, ByteBuffer.wrap(encryptedIndex));
+            writeFully(channel, ByteBuffer.wrap(indexMac));
+            notifyProgress(progressListener, channel.position());
+            for (byte[] record : records) {
+                writeFully(channel, ByteBuffer.wrap(record));
+            }
+            channel.force(true);
+            notifyProgress(progressListener, channel.position());
+        } catch (IOException e) {
+            Arrays.fill(generatedKey, (byte) 0);
+            throw e;
+        }
+        return generatedKey;
+    }
+
+    /**
+     * Creates the plain record of an entry, which contains its password and
+     * notes.
+     *
+     * @param entry the entry
+     * @return the plain record
+     * @throws IOException if the record could not be written
+     */
+    private static byte[] createRecord(Entry entry) throws IOException {
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(recordBytes);
+        writeBytes(record, entry.getSealedPassword() == null ? null : entry.getSealedPassword().unsealBytes());
+        writeBytes(record, entry.getSealedNotes() == null ? null : entry.getSealedNotes().unsealBytes());
+        return recordBytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        writeBytes(output, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a length prefixed byte array, and wipes it.
+     *
+     * @param output the output
+     * @param value the bytes, or {@code null}
+     * @throws IOException if the bytes could not be written
+     */
+    private static void writeBytes(DataOutputStream output, byte[] value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+        } else {
+            output.writeInt(value.length);
+            output.write(value);
+            Arrays.fill(value, (byte) 0);
+        }
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] value = readBytes(input);
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < -1 || length > input.available()) {
+            throw new IOException("Invalid file format");
+        }
+        if (length == -1) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        input.readFully(value);
+        return value;
+    }
+
+    private static byte[] encrypt(byte[] data, byte[] key) throws IOException {
+        byte[] iv = CryptUtils.generateRandomSalt(IV_LENGTH);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(IV_LENGTH + data.length + IV_LENGTH);
+        output.write(iv);
+        Cbc cipher = new Cbc(iv, key, output);
+        cipher.encrypt(data);
+        cipher.finishEncryption();
+        Arrays.fill(data, (byte) 0);
+        return output.toByteArray();
+    }
+
+    private static byte[] decrypt(byte[] data, byte[] key) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(data.length);
+        Cbc cipher = new Cbc(Arrays.copyOf(data, IV_LENGTH), key, output);
+        cipher.decrypt(Arrays.copyOfRange(data, IV_LENGTH, data.length));
+        try {
+            cipher.finishDecryption();
+        } catch (DecryptException e) {
+            throw new IOException("can't decrypt");
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Derives the key of the MAC from the encryption key.
+     *
+     * @param key the encryption key
+     * @return the MAC key
+     */
+    private static byte[] createMacKey(byte[] key) {
+        Mac mac = newMac(key);
+        return mac.doFinal(MAC_KEY_INFO);
+    }
+
+    private static Mac newMac(byte[] key) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(key, MAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not create " + MAC_ALGORITHM + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Invalid file format");
+            }
+        }
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void notifyProgress(LongConsumer progressListener, long bytes) {
+        if (progressListener != null) {
+            progressListener.accept(bytes);
+        }
+    }
+
+    private static void wipe(byte[] data) {
+        if (data != null) {
+            Arrays.fill(data, (byte) 0);
+        }
+    }
+
+    /**
+     * Source of the entry records of a vault file which was read. The
+     * channel of the read is closed when every record has been loaded, or
+     * when the source is closed.
+     */
+    private static final class RecordSource implements Closeable {
+
+        private final Path path;
+        private final long recordsPosition;
+        private final SealedSecret key;
+        private final SealedSecret macKey;
+        private final AtomicInteger remaining;
+
+        private FileChannel channel;
+        private boolean closed;
+
+        RecordSource(Path path, FileChannel channel, long recordsPosition, SealedSecret key, SealedSecret macKey, int recordCount) {
+            this.path = path;
+            this.channel = channel;
+            this.recordsPosition = recordsPosition;
+            this.key = key;
+            this.macKey = macKey;
+            this.remaining = new AtomicInteger(recordCount);
+        }
+
+        /**
+         * Checks if every record has been loaded, so the channel is not
+         * needed anymore.
+         *
+         * @return {@code true} if there are no records to load
+         */
+        boolean isComplete() {
+            return this.remaining.get() <= 0;
+        }
+
+        /**
+         * Gets the channel of the file, and opens the file again if the
+         * channel has been closed by an interrupt.
+         *
+         * @return the open channel
+         * @throws IOException if the source is closed, or the file could not
+         * be opened
+         */
+        private synchronized FileChannel getChannel() throws IOException {
+            if (this.closed) {
+                throw new IOException("The vault file has been closed");
+            }
+            if (!this.channel.isOpen()) {
+                this.channel = FileChannel.open(this.path, StandardOpenOption.READ);
+            }
+            return this.channel;
+        }
+
+        /**
+         * Reads a record. If the channel is closed by the interrupt of
+         * another thread during the read, the record is read again with a
+         * new channel. The read of an interrupted thread fails.
+         *
+         * @param position position of the record, relative to the first
+         * record
+         * @param length length of the record
+         * @return the record
+         * @throws IOException if the record could not be read
+         */
+        private byte[] readRecord(long position, int length) throws IOException {
+            try {
+                return readFully(getChannel(), this.recordsPosition + position, length).array();
+            } catch (ClosedByInterruptException e) {
+                throw e;
+            } catch (ClosedChannelException e) {
+                return readFully(getChannel(), this.recordsPosition + position, length).array();
+            }
+        }
+
+        /**
+         * Fetches, authenticates, decrypts and sets the password and notes of
+         * an entry.
+         *
+         * @param entry the entry
+         * @param entryIndex index of the entry in the vault
+         * @param position position of the record, relative to the first
+         * record
+         * @param length length of the record, including its MAC
+         */
+        void load(Entry entry, int entryIndex, long position, int length) {
+            byte[] generatedKey = this.key.unsealBytes();
+            byte[] macKey = this.macKey.unsealBytes();
+            byte[] record = null;
+            try {
+                byte[] data = readRecord(position, length);
+                Mac mac = newMac(macKey);
+                mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(entryIndex).array());
+                mac.update(data, 0, length - MAC_LENGTH);
+                if (!MessageDigest.isEqual(mac.doFinal(), Arrays.copyOfRange(data, length - MAC_LENGTH, length))) {
+                    throw new IOException("The record of entry " + (entryIndex + 1) + " could not be authenticated");
+                }
+                record = decrypt(Arrays.copyOf(data, length - MAC_LENGTH), generatedKey);
+                DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+                byte[] password = readBytes(input);
+                byte[] notes = readBytes(input);
+                entry.setSealedPassword(password == null ? null : SealedSecret.seal(password));
+                entry.setSealedNotes(notes == null ? null : SealedSecret.seal(notes));
+                wipe(password);
+                wipe(notes);
+                if (this.remaining.decrementAndGet() == 0) {
+                    close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                wipe(generatedKey);
+                wipe(macKey);
+                wipe(record);
+            }
+        }
+
+        /**
+         * Closes the channel. Records which are not loaded yet cannot be
+         * loaded afterwards.
+         *
+         * @throws IOException if the channel could not be closed
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            this.closed = true;
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jpass.crypt.io.CryptInputStream;
+import jpass.crypt.io.CryptOutputStream;
+import jpass.io.ChannelInputStream;
+import jpass.io.ChannelOutputStream;
+import jpass.util.Configuration;
+import jpass.util.FileUtils;
+
+/**
+ * Encrypted search index file stored next to the vault file.
+ *
+ * <p>
+ * The file starts with a format identifier, a version and the SHA-256 hash
+ * of the vault file the index belongs to. The {@link TrigramIndex} follows,
+ * encrypted with the key derived for the vault file, so the index can be
+ * loaded right after the vault is opened without deriving a key again. An
+ * index which does not match the hash of the vault is ignored, and has to
+ * be rebuilt. The hash is calculated when the index is loaded or saved, so
+ * these should be called right after the vault has been read or written.
+ * </p>
+ */
+public final class SearchIndexFile {
+
+    private static final Logger LOG = Logger.getLogger(SearchIndexFile.class.getName());
+
+    /**
+     * Extension appended to the vault file name.
+     */
+    public static final String EXTENSION = ".idx";
+
+    private static final byte[] FORMAT_IDENTIFIER = "JPassIdx".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+    private static final int HASH_LENGTH = 32;
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private SearchIndexFile() {
+        // not intended to be instantiated
+    }
+
+    /**
+     * Checks if search index files should be used.
+     *
+     * @return {@code true} if enabled in the configuration
+     */
+    public static boolean isEnabled() {
+        return Configuration.getInstance().is("search.index.file.enabled", false);
+    }
+
+    /**
+     * Gets the name of the search index file of a vault.
+     *
+     * @param vaultFileName vault file name
+     * @return index file name
+     */
+    public static String getFileName(String vaultFileName) {
+        return vaultFileName + EXTENSION;
+    }
+
+    /**
+     * Calculates the SHA-256 hash of the content of the vault file.
+     *
+     * @param vaultFileName vault file name
+     * @return the hash
+     * @throws IOException if the file could not be read
+     */
+    public static byte[] hash(String vaultFileName) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        try (InputStream inputStream = ChannelInputStream.open(vaultFileName, false)) {
+            int length;
+            while ((length = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, length);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Loads the search index of the vault, if it belongs to the current
+     * content of the vault. The index file is read memory mapped.
+     *
+     * @param vaultFileName vault file name
+     * @param key key derived for the vault file
+     * @param entryCount number of entries in the vault
+     * @return the index, or empty if there is no valid index for the vault
+     */
+    public static Optional<TrigramIndex> load(String vaultFileName, byte[] key, int entryCount) {
+        String indexFileName = getFileName(vaultFileName);
+        if (!Files.exists(Paths.get(indexFileName))) {
+            return Optional.empty();
+        }
+        try (ChannelInputStream fileStream = ChannelInputStream.open(indexFileName, true)) {
+            byte[] vaultHash = hash(vaultFileName);
+            DataInputStream header = new DataInputStream(fileStream);
+            byte[] identifier = new byte[FORMAT_IDENTIFIER.length];
+            header.readFully(identifier);
+            int version = header.readUnsignedByte();
+            byte[] hash = new byte[HASH_LENGTH];
+            header.readFully(hash);
+            if (!Arrays.equals(FORMAT_IDENTIFIER, identifier) || version != FORMAT_VERSION || !Arrays.equals(vaultHash, hash)) {
+                LOG.fine(() -> "Search index is outdated: " + indexFileName);
+                return Optional.empty();
+            }
+            TrigramIndex index = TrigramIndex.read(new DataInputStream(new BufferedInputStream(new CryptInputStream(fileStream, key))));
+            if (index.getEntryCount() != entryCount) {
+                return Optional.empty();
+            }
+            return Optional.of(index);
+        } catch (FileNotFoundException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Could not load search index: " + indexFileName, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Saves the search index of the vault. The index is written into a
+     * temporary file next to the vault, which replaces the index file only
+     * when it is completely written.
+     *
+     * @param vaultFileName vault file name
+     * @param key key derived for the vault file
+     * @param index the index of the vault entries
+     * @throws IOException if the index could not be saved
+     */
+    public static void save(String vaultFileName, byte[] key, TrigramIndex index) throws IOException {
+        byte[] vaultHash = hash(vaultFileName);
+        FileUtils.replaceFile(Paths.get(getFileName(vaultFileName)), path -> {
+            try (ChannelOutputStream fileStream = ChannelOutputStream.open(path)) {
+                fileStream.write(FORMAT_IDENTIFIER);
+                fileStream.write(FORMAT_VERSION);
+                fileStream.write(vaultHash);
+                DataOutputStream payload = new DataOutputStream(new BufferedOutputStream(new CryptOutputStream(fileStream, key)));
+                index.write(payload);
+                // closes the cipher stream, which writes the padding
+                payload.close();
+            }
+        });
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jpass.xml.bind.Entry;
+
+/**
+ * Trigram index of the entry titles.
+ *
+ * <p>
+ * For each sequence of three characters of the lower case titles, the index
+ * stores the ascending positions of the entries which contain it. Entries
+ * containing a criteria of at least three characters are a subset of the
+ * intersection of the positions of its trigrams, so only those entries have
+ * to be checked. The index is immutable and belongs to the list of entries
+ * it was built from.
+ * </p>
+ */
+public final class TrigramIndex {
+
+    /**
+     * Length of the indexed character sequences.
+     */
+    public static final int GRAM_LENGTH = 3;
+
+    private static final int[] NO_POSITIONS = new int[0];
+
+    /**
+     * Initial size of the arrays when an index is read.
+     */
+    private static final int INITIAL_READ_CAPACITY = 1024;
+
+    private final int entryCount;
+    private final long[] trigrams;
+    private final int[][] positions;
+
+    private TrigramIndex(int entryCount, long[] trigrams, int[][] positions) {
+        this.entryCount = entryCount;
+        this.trigrams = trigrams;
+        this.positions = positions;
+    }
+
+    /**
+     * Builds the index of the titles of the given entries.
+     *
+     * @param entries the entries
+     * @return the index
+     */
+    public static TrigramIndex build(List<Entry> entries) {
+        // positions are collected into growing arrays, the first element is the size
+        Map<Long, int[]> postings = new HashMap<>();
+        for (int position = 0; position < entries.size(); position++) {
+            String title = entries.get(position).getTitle();
+            if (title == null) {
+                continue;
+            }
+            String lowerCaseTitle = title.toLowerCase();
+            for (int index = 0; index + GRAM_LENGTH <= lowerCaseTitle.length(); index++) {
+                long trigram = encode(lowerCaseTitle, index);
+                int[] posting = postings.get(trigram);
+                if (posting == null) {
+                    posting = new int[4];
+                } else if (posting[posting[0]] == position) {
+                    // the title contains the trigram more than once
+                    continue;
+                } else if (posting[0] + 1 == posting.length) {
+                    posting = Arrays.copyOf(posting, posting.length * 2);
+                }
+                posting[0]++;
+                posting[posting[0]] = position;
+                postings.put(trigram, posting);
+            }
+        }
+        long[] trigrams = postings.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        int[][] positions = new int[trigrams.length][];
+        for (int index = 0; index < trigrams.length; index++) {
+            int[] posting = postings.get(trigrams[index]);
+            positions[index] = Arrays.copyOfRange(posting, 1, posting[0] + 1);
+        }
+        return new TrigramIndex(entries.size(), trigrams, positions);
+    }
+
+    /**
+     * Gets the number of indexed entries.
+     *
+     * @return number of entries
+     */
+    public int getEntryCount() {
+        return this.entryCount;
+    }
+
+    /**
+     * Gets the positions of the entries which may contain the given criteria.
+     *
+     * @param lowerCaseCriteria lower case search criteria
+     * @return ascending positions of the candidate entries, or {@code null} if
+     * the criteria is shorter than {@link #GRAM_LENGTH}, so all entries are
+     * candidates
+     */
+    public int[] getCandidates(String lowerCaseCriteria) {
+        if (lowerCaseCriteria.length() < GRAM_LENGTH) {
+            return null;
+        }
+        int[] candidates = null;
+        for (int index = 0; index + GRAM_LENGTH <= lowerCaseCriteria.length(); index++) {
+            int trigramIndex = Arrays.binarySearch(this.trigrams, encode(lowerCaseCriteria, index));
+            if (trigramIndex < 0) {
+                return NO_POSITIONS;
+            }
+            int[] posting = this.positions[trigramIndex];
+            candidates = candidates == null ? posting : intersect(candidates, posting);
+            if (candidates.length == 0) {
+                return NO_POSITIONS;
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Writes the index. The positions are written as differences between
+     * consecutive positions, in variable length format.
+     *
+     * @param output the output
+     * @throws IOException if the index could not be written
+     */
+    public void write(DataOutput output) throws IOException {
+        output.writeInt(this.entryCount);
+        output.writeInt(this.trigrams.length);
+        for (int index = 0; index < this.trigrams.length; index++) {
+            output.writeLong(this.trigrams[index]);
+            int[] posting = this.positions[index];
+            writeVarInt(output, posting.length);
+            int previous = 0;
+            for (int position : posting) {
+                writeVarInt(output, position - previous);
+                previous = position;
+            }
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #write(DataOutput)}.
+     *
+     * @param input the input
+     * @return the index
+     * @throws IOException if the index could not be read
+     */
+    public static TrigramIndex read(DataInput input) throws IOException {
+        int entryCount = input.readInt();
+        int trigramCount = input.readInt();
+        if (entryCount < 0 || trigramCount < 0) {
+            throw new IOException("Invalid search index");
+        }
+        // arrays grow while reading, so invalid counts do not allocate memory upfront
+        long[] trigrams = new long[Math.min(trigramCount, INITIAL_READ_CAPACITY)];
+        int[][] positions = new int[trigrams.length][];
+        for (int index = 0; index < trigramCount; index++) {
+            if (index == trigrams.length) {
+                trigrams = Arrays.copyOf(trigrams, trigrams.length * 2);
+                positions = Arrays.copyOf(positions, trigrams.length);
+            }
+            trigrams[index] = input.readLong();
+            if (index > 0 && trigrams[index] <= trigrams[index - 1]) {
+                throw new IOException("Invalid search index");
+            }
+            positions[index] = readPositions(input, entryCount);
+        }
+        return new TrigramIndex(entryCount, Arrays.copyOf(trigrams, trigramCount), Arrays.copyOf(positions, trigramCount));
+    }
+
+    private static int[] readPositions(DataInput input, int entryCount) throws IOException {
+        int positionCount = readVarInt(input);
+        if (positionCount < 0 || positionCount > entryCount) {
+            throw new IOException("Invalid search index");
+        }
+        int[] posting = new int[Math.min(positionCount, INITIAL_READ_CAPACITY)];
+        int position = -1;
+        for (int item = 0; item < positionCount; item++) {
+            if (item == posting.length) {
+                posting = Arrays.copyOf(posting, posting.length * 2);
+            }
+            int delta = readVarInt(input);
+            position = item == 0 ? delta : position + delta;
+            if (position < 0 || position >= entryCount || (item > 0 && delta <= 0)) {
+                throw new IOException("Invalid search index");
+            }
+            posting[item] = position;
+        }
+        return Arrays.copyOf(posting, positionCount);
+    }
+
+    private static long encode(String text, int index) {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+
+    private static int[] intersect(int[] first, int[] second) {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static void writeVarInt(DataOutput output, int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            output.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        output.writeByte(remaining);
+    }
+
+    private static int readVarInt(DataInput input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid search index");
+    }
+}
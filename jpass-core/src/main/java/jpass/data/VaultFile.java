@@ -0,0 +1,165 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+
+/**
+ * Reads and writes a vault file together with its search index file. The
+ * key derived for the vault file by the last read or write is kept, so the
+ * search index file can be encrypted without deriving the key again.
+ */
+public final class VaultFile {
+
+    private static final Logger LOG = Logger.getLogger(VaultFile.class.getName());
+
+    private final String fileName;
+    private final char[] password;
+    private volatile byte[] fileKey;
+
+    /**
+     * Creates a vault file.
+     *
+     * @param fileName file name of the vault
+     * @param password password of the vault
+     */
+    public VaultFile(final String fileName, final char[] password) {
+        this.fileName = fileName;
+        this.password = password;
+    }
+
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    /**
+     * Reads the entries of the vault in batches.
+     *
+     * @param batchSize maximum number of entries in a batch
+     * @param batchConsumer consumer of the batches, called on the current
+     * thread
+     * @param progressListener listener of the number of bytes read from the
+     * file, may be {@code null}
+     * @return all entries of the vault
+     * @throws IOException when I/O error occurred (including missing file,
+     * incorrect password, or file format issues)
+     * @throws DocumentProcessException when document could not be read
+     */
+    public Entries read(int batchSize, Consumer<List<Entry>> batchConsumer, LongConsumer progressListener)
+            throws IOException, DocumentProcessException {
+        Entries entries = new Entries();
+        EntriesRepository repository = EntriesRepository.newInstance(this.fileName, this.password);
+        repository.readEntries(batchSize, batch -> {
+            entries.getEntry().addAll(batch);
+            batchConsumer.accept(batch);
+        }, progressListener);
+        this.fileKey = repository.getFileKey();
+        entries.setDetailsSource(repository.getDetailsSource());
+        return entries;
+    }
+
+    /**
+     * Writes the current entries of the data model into the vault, and marks
+     * the model saved with the file name and password of this vault.
+     *
+     * @param model the data model
+     * @param progressListener listener of the number of bytes written to the
+     * file, may be {@code null}
+     * @return the snapshot of the model which has been written
+     * @throws IOException when I/O error occurred
+     * @throws DocumentProcessException when document could not be written
+     */
+    public DataModel.Snapshot write(DataModel model, LongConsumer progressListener) throws IOException, DocumentProcessException {
+        // entries modified during the write keep the model in modified state
+        DataModel.Snapshot snapshot = model.getSnapshot();
+        EntriesRepository repository = EntriesRepository.newInstance(this.fileName, this.password);
+        repository.writeDocument(snapshot.getEntries(), progressListener);
+        model.markSaved(snapshot, this.fileName, this.password);
+        this.fileKey = repository.getFileKey();
+        return snapshot;
+    }
+
+    /**
+     * Checks if the search index of the vault is kept in a file. The vault
+     * has to be read or written first.
+     *
+     * @return {@code true} if search index files are enabled and the vault
+     * is encrypted with a derived key
+     */
+    public boolean hasSearchIndexFile() {
+        return SearchIndexFile.isEnabled() && this.fileKey != null;
+    }
+
+    /**
+     * Loads the saved search index of the vault, if it is up to date.
+     *
+     * @param entries entries read from the vault
+     * @return the index, or empty if the vault has no up to date index file
+     */
+    public Optional<TrigramIndex> loadSearchIndex(Entries entries) {
+        if (!hasSearchIndexFile()) {
+            return Optional.empty();
+        }
+        return SearchIndexFile.load(this.fileName, this.fileKey, entries.getEntry().size());
+    }
+
+    /**
+     * Saves the search index of the snapshot into the index file of the
+     * vault. If the snapshot has no index, it is built and set to the model
+     * first.
+     *
+     * @param model data model of the vault
+     * @param snapshot snapshot of the model, which has been read from or
+     * written to the vault
+     */
+    public void saveSearchIndex(DataModel model, DataModel.Snapshot snapshot) {
+        if (!hasSearchIndexFile()) {
+            return;
+        }
+        TrigramIndex searchIndex = snapshot.getSearchIndex();
+        if (searchIndex == null) {
+            searchIndex = TrigramIndex.build(snapshot.getEntryList());
+            model.setSearchIndex(snapshot, searchIndex);
+        }
+        try {
+            SearchIndexFile.save(this.fileName, this.fileKey, searchIndex);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not save search index.", e);
+        }
+    }
+}
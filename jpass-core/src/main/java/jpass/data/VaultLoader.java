@@ -0,0 +1,128 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+import jpass.xml.bind.Entries;
+
+/**
+ * Unlocks several vault files in parallel. The key derivation and the
+ * decryption of each file run on a separate thread of a pool sized by the
+ * number of available processors. If search index files are enabled, the
+ * index of each vault is loaded, or rebuilt if the vault has been changed.
+ */
+public final class VaultLoader {
+
+    private VaultLoader() {
+        // not intended to be instantiated
+    }
+
+    /**
+     * Unlocks the given vault files in parallel.
+     *
+     * @param vaults file names and passwords of the vaults, in the order of
+     * the returned data models
+     * @param errorHandler called with the file name and the error for each
+     * vault which could not be unlocked
+     * @return data models of the successfully unlocked vaults
+     * @throws InterruptedException if the current thread was interrupted
+     * while waiting
+     */
+    public static List<DataModel> unlock(final Map<String, char[]> vaults, final BiConsumer<String, Exception> errorHandler)
+            throws InterruptedException {
+        return unlock(vaults, errorHandler, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Unlocks the given vault files in parallel.
+     *
+     * @param vaults file names and passwords of the vaults, in the order of
+     * the returned data models
+     * @param errorHandler called with the file name and the error for each
+     * vault which could not be unlocked
+     * @param threads maximum number of vaults unlocked at the same time
+     * @return data models of the successfully unlocked vaults
+     * @throws InterruptedException if the current thread was interrupted
+     * while waiting
+     */
+    public static List<DataModel> unlock(final Map<String, char[]> vaults, final BiConsumer<String, Exception> errorHandler,
+            final int threads) throws InterruptedException {
+        List<DataModel> models = new ArrayList<>();
+        if (vaults.isEmpty()) {
+            return models;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, vaults.size())), runnable -> {
+            Thread thread = new Thread(runnable, "JPass-unlock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<String, Future<DataModel>> futures = new LinkedHashMap<>();
+            vaults.forEach((fileName, password) -> futures.put(fileName, executor.submit(() -> unlock(fileName, password))));
+            for (Map.Entry<String, Future<DataModel>> future : futures.entrySet()) {
+                try {
+                    models.add(future.getValue().get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    errorHandler.accept(future.getKey(), cause instanceof Exception ? (Exception) cause : e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return models;
+    }
+
+    private static DataModel unlock(String fileName, char[] password) throws Exception {
+        VaultFile vaultFile = new VaultFile(fileName, password);
+        Entries entries = vaultFile.read(Integer.MAX_VALUE, batch -> {
+            // entries are used only when the whole vault has been read
+        }, null);
+        DataModel model = DataModel.newInstance();
+        Optional<TrigramIndex> searchIndex = vaultFile.loadSearchIndex(entries);
+        model.setEntries(entries, searchIndex.orElse(null));
+        model.setFileName(fileName);
+        model.setPassword(password);
+        if (!searchIndex.isPresent()) {
+            // the vault has been changed since the index was saved
+            vaultFile.saveSearchIndex(model, model.getSnapshot());
+        }
+        return model;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jpass.xml.bind.Entry;
+
+/**
+ * Search over the entries of several open vaults.
+ *
+ * <p>
+ * Each vault is searched by its own {@link EntrySearch} on a shared thread
+ * pool, and the results are merged into one list ordered by rank: exact
+ * title matches first, then titles starting with the criteria, then the
+ * remaining matches, each group ordered by title. Each match is tagged with
+ * the vault it was found in.
+ * </p>
+ *
+ * <p>
+ * The search can be cancelled by interrupting the searching thread, which
+ * cancels the searches of the vaults still running.
+ * </p>
+ */
+public final class VaultSearch {
+
+    /**
+     * Order of the merged search results.
+     */
+    private static final Comparator<Match> RANK_ORDER = Comparator.comparingInt(Match::getRank)
+            .thenComparing(Match::getEntry, EntrySearch.TITLE_ORDER);
+
+    private final List<DataModel> vaults;
+    private final List<EntrySearch> searches;
+
+    /**
+     * Creates a new search for the current entries of the given vaults.
+     *
+     * @param vaults vaults to search in
+     */
+    public VaultSearch(List<DataModel> vaults) {
+        this.vaults = new ArrayList<>(vaults);
+        this.searches = new ArrayList<>();
+        for (DataModel vault : this.vaults) {
+            DataModel.Snapshot snapshot = vault.getSnapshot();
+            this.searches.add(new EntrySearch(snapshot.getEntryList(), snapshot.getSearchIndex()));
+        }
+    }
+
+    /**
+     * Gets the number of entries in all vaults.
+     *
+     * @return number of entries
+     */
+    public int getEntryCount() {
+        return this.searches.stream().mapToInt(EntrySearch::getEntryCount).sum();
+    }
+
+    /**
+     * Gets the entries of all vaults which title contains the given criteria
+     * (case insensitive), ordered by rank.
+     *
+     * @param criteria search criteria, empty or {@code null} means all entries
+     * @return list of matches
+     * @throws CancellationException if the searching thread was interrupted
+     */
+    public List<Match> search(String criteria) {
+        List<Future<List<Entry>>> futures = new ArrayList<>();
+        for (EntrySearch search : this.searches) {
+            futures.add(SearchExecutor.INSTANCE.submit(() -> search.search(criteria)));
+        }
+        List<Match> result = new ArrayList<>();
+        try {
+            // a completed future does not check the interrupt status of the caller
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            for (int index = 0; index < futures.size(); index++) {
+                DataModel vault = this.vaults.get(index);
+                for (Entry entry : futures.get(index).get()) {
+                    result.add(new Match(vault, entry, rank(entry, criteria)));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Search has been cancelled.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        // the sort is stable, so matches with the same rank and title keep the order of the vaults
+        result.sort(RANK_ORDER);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Gets the rank of a matching entry, lower is better.
+     *
+     * @param entry the entry
+     * @param criteria search criteria
+     * @return 0 if the title equals the criteria, 1 if it starts with the
+     * criteria, otherwise 2
+     */
+    static int rank(Entry entry, String criteria) {
+        if (criteria == null || criteria.isEmpty() || entry.getTitle() == null) {
+            return 2;
+        }
+        String title = entry.getTitle().toLowerCase();
+        String lowerCaseCriteria = criteria.toLowerCase();
+        if (title.equals(lowerCaseCriteria)) {
+            return 0;
+        }
+        return title.startsWith(lowerCaseCriteria) ? 1 : 2;
+    }
+
+    /**
+     * Entry found in a vault.
+     */
+    public static final class Match {
+
+        private final DataModel vault;
+        private final Entry entry;
+        private final int rank;
+
+        Match(DataModel vault, Entry entry, int rank) {
+            this.vault = vault;
+            this.entry = entry;
+            this.rank = rank;
+        }
+
+        /**
+         * Gets the vault which contains the entry.
+         *
+         * @return data model of the vault
+         */
+        public DataModel getVault() {
+            return this.vault;
+        }
+
+        /**
+         * Gets the matching entry.
+         *
+         * @return the entry
+         */
+        public Entry getEntry() {
+            return this.entry;
+        }
+
+        /**
+         * Gets the rank of the match, lower is better.
+         *
+         * @return the rank
+         */
+        public int getRank() {
+            return this.rank;
+        }
+    }
+
+    /**
+     * Lazily created thread pool shared by the searches.
+     */
+    private static final class SearchExecutor {
+
+        private static final ExecutorService INSTANCE = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), runnable -> {
+                    Thread thread = new Thread(runnable, "JPass-search");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.io;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * Input stream which reads a file through a {@link FileChannel}, either with
+ * large reads into a direct buffer, or by mapping the file into memory. In
+ * both cases the data is copied only once, from the buffer to the array of
+ * the reader.
+ *
+ * <p>
+ * Mapped files are released only when the mapping is garbage collected, and
+ * on some platforms mapped files cannot be overwritten until then.</p>
+ */
+public final class ChannelInputStream extends InputStream {
+
+    /**
+     * Size of the direct buffer used for reads.
+     */
+    static final int DIRECT_BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * Maximum size of a memory mapped part of the file.
+     */
+    static final int MAPPED_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+    private final FileChannel channel;
+    private final boolean mapped;
+    private final long size;
+    private ByteBuffer buffer;
+
+    /**
+     * File position of the first byte of the buffer.
+     */
+    private long bufferPosition;
+    private long markPosition = -1;
+    private LongConsumer progressListener;
+
+    private ChannelInputStream(FileChannel channel, boolean mapped) throws IOException {
+        this.channel = channel;
+        this.mapped = mapped;
+        this.size = channel.size();
+        this.buffer = mapped ? EMPTY_BUFFER : ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+        // called through Buffer, as the ByteBuffer overrides do not exist on Java 8
+        ((Buffer) this.buffer).limit(0);
+    }
+
+    /**
+     * Opens a file.
+     *
+     * @param fileName file name
+     * @param mapped whether the file should be mapped into memory
+     * @return the input stream
+     * @throws FileNotFoundException if file not exists
+     * @throws IOException if the file could not be opened
+     */
+    public static ChannelInputStream open(String fileName, boolean mapped) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(fileName);
+        }
+        try {
+            return new ChannelInputStream(channel, mapped);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Sets the listener, which is notified about the position in the file,
+     * each time the buffer is filled.
+     *
+     * @param progressListener the listener
+     */
+    public void setProgressListener(LongConsumer progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Gets the size of the file.
+     *
+     * @return size in bytes
+     */
+    public long getSize() {
+        return this.size;
+    }
+
+    /**
+     * Makes sure there is unread data in the buffer.
+     *
+     * @return {@code false} at the end of the file
+     * @throws IOException if the file could not be read
+     */
+    private boolean fillBuffer() throws IOException {
+        if (this.buffer.hasRemaining()) {
+            return true;
+        }
+        long position = this.bufferPosition + this.buffer.limit();
+        if (position >= this.size) {
+            return false;
+        }
+        this.bufferPosition = position;
+        if (this.mapped) {
+            long length = Math.min(MAPPED_WINDOW_SIZE, this.size - position);
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        } else {
+            ((Buffer) this.buffer).clear();
+            while (this.buffer.hasRemaining() && this.channel.read(this.buffer, position + this.buffer.position()) >= 0) {
+                if (position + this.buffer.position() >= this.size) {
+                    break;
+                }
+            }
+            ((Buffer) this.buffer).flip();
+        }
+        if (this.progressListener != null) {
+            this.progressListener.accept(position);
+        }
+        return this.buffer.hasRemaining();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fillBuffer()) {
+            return -1;
+        }
+        return this.buffer.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!fillBuffer()) {
+            return -1;
+        }
+        int count = Math.min(len, this.buffer.remaining());
+        this.buffer.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long position = getPosition();
+        long skipped = Math.min(n, this.size - position);
+        seek(position + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, this.size - getPosition());
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        this.markPosition = getPosition();
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        if (this.markPosition < 0) {
+            throw new IOException("Mark not set");
+        }
+        seek(this.markPosition);
+    }
+
+    private long getPosition() {
+        return this.bufferPosition + this.buffer.position();
+    }
+
+    /**
+     * Moves to the given file position, reusing the buffer if the position is
+     * inside it.
+     *
+     * @param position the new position
+     */
+    private void seek(long position) {
+        if (position >= this.bufferPosition && position <= this.bufferPosition + this.buffer.limit()) {
+            ((Buffer) this.buffer).position((int) (position - this.bufferPosition));
+        } else {
+            this.bufferPosition = position;
+            if (this.mapped) {
+                this.buffer = EMPTY_BUFFER;
+            }
+            ((Buffer) this.buffer).limit(0);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.buffer = EMPTY_BUFFER;
+        this.channel.close();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * Output stream which writes a file through a {@link FileChannel}, collecting
+ * the data in a large direct buffer.
+ */
+public final class ChannelOutputStream extends OutputStream {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(ChannelInputStream.DIRECT_BUFFER_SIZE);
+    private LongConsumer progressListener;
+    private long written;
+
+    private ChannelOutputStream(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Creates or truncates a file, and opens it for writing.
+     *
+     * @param path path of the file
+     * @return the output stream
+     * @throws IOException if the file could not be opened
+     */
+    public static ChannelOutputStream open(Path path) throws IOException {
+        return new ChannelOutputStream(FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * Sets the listener, which is notified about the number of bytes written
+     * to the file so far, each time the buffer is written.
+     *
+     * @param progressListener the listener
+     */
+    public void setProgressListener(LongConsumer progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!this.buffer.hasRemaining()) {
+            writeBuffer();
+        }
+        this.buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            if (!this.buffer.hasRemaining()) {
+                writeBuffer();
+            }
+            int count = Math.min(len, this.buffer.remaining());
+            this.buffer.put(b, off, count);
+            off += count;
+            len -= count;
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        // called through Buffer, as the ByteBuffer overrides do not exist on Java 8
+        ((Buffer) this.buffer).flip();
+        while (this.buffer.hasRemaining()) {
+            this.written += this.channel.write(this.buffer);
+        }
+        ((Buffer) this.buffer).clear();
+        if (this.progressListener != null) {
+            this.progressListener.accept(this.written);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (this.buffer.position() > 0) {
+            writeBuffer();
+        }
+    }
+
+    /**
+     * Writes the buffered data, forces it to the storage device and closes
+     * the file.
+     *
+     * @throws IOException if the data could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (!this.channel.isOpen()) {
+            return;
+        }
+        try {
+            flush();
+            this.channel.force(true);
+        } finally {
+            this.channel.close();
+        }
+    }
+}
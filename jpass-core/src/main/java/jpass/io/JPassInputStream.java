@@ -61,6 +61,9 @@ public class JPassInputStream extends InputStream implements JPassStream {
 
         FileVersionType fileVersionType = Objects.requireNonNull(SUPPORTED_FILE_VERSIONS.get(fileVersion),
                 "Unsupported file version: " + fileVersion);
+        if (fileVersionType.isIndexed()) {
+            throw new IOException("Indexed file version cannot be read as a stream: " + fileVersion);
+        }
 
         byte[] salt = readBytes(parent, fileVersionType.getSaltLength());
         this.generatedKey = fileVersionType.getKeyGenerator().apply(key, salt);
@@ -71,6 +74,11 @@ public class JPassInputStream extends InputStream implements JPassStream {
         return parent.read();
     }
 
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return parent.read(b, off, len);
+    }
+
     @Override
     public void close() throws IOException {
         parent.close();
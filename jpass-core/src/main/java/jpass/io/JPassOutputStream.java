@@ -46,8 +46,11 @@ public class JPassOutputStream extends OutputStream implements JPassStream {
     public JPassOutputStream(OutputStream parent, char[] key) throws IOException {
         this.parent = parent;
 
-        // get the latest supported file version
-        FileVersionType fileVersionType = SUPPORTED_FILE_VERSIONS.get(SUPPORTED_FILE_VERSIONS.lastKey());
+        // get the latest supported file version which can be written as a stream
+        FileVersionType fileVersionType = SUPPORTED_FILE_VERSIONS.values().stream()
+                .filter(version -> !version.isIndexed())
+                .reduce((previous, next) -> next)
+                .orElseThrow(() -> new IOException("No supported file version"));
 
         parent.write(FILE_FORMAT_IDENTIFIER);
         parent.write(fileVersionType.getVersion());
@@ -64,6 +67,11 @@ public class JPassOutputStream extends OutputStream implements JPassStream {
         parent.write(b);
     }
 
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        parent.write(b, off, len);
+    }
+
     @Override
     public void close() throws IOException {
         parent.close();
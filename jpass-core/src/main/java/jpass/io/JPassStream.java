@@ -46,17 +46,20 @@ import jpass.util.CryptUtils;
 public interface JPassStream {
 
     enum FileVersionType {
-        VERSION_0(0, 0, (text, salt) -> CryptUtils.getSha256HashWithDefaultIterations(text)),
-        VERSION_1(1, 16, (text, salt) -> CryptUtils.getPBKDF2KeyWithDefaultIterations(text, salt));
+        VERSION_0(0, 0, (text, salt) -> CryptUtils.getSha256HashWithDefaultIterations(text), false),
+        VERSION_1(1, 16, (text, salt) -> CryptUtils.getPBKDF2KeyWithDefaultIterations(text, salt), false),
+        VERSION_2(2, 16, (text, salt) -> CryptUtils.getPBKDF2KeyWithDefaultIterations(text, salt), true);
 
         private final int version;
         private final int saltLength;
         private final BiFunction<char[], byte[], byte[]> keyGenerator;
+        private final boolean indexed;
 
-        FileVersionType(int version, int saltLength, BiFunction<char[], byte[], byte[]> keyGenerator) {
+        FileVersionType(int version, int saltLength, BiFunction<char[], byte[], byte[]> keyGenerator, boolean indexed) {
             this.version = version;
             this.saltLength = saltLength;
             this.keyGenerator = Objects.requireNonNull(keyGenerator, "keyGenerator must be provided");
+            this.indexed = indexed;
         }
 
         public int getVersion() {
@@ -70,6 +73,16 @@ public interface JPassStream {
         public BiFunction<char[], byte[], byte[]> getKeyGenerator() {
             return keyGenerator;
         }
+
+        /**
+         * Checks if the file version uses the indexed layout, which cannot be
+         * read or written as a single stream.
+         *
+         * @return {@code true} for the indexed layout
+         */
+        public boolean isIndexed() {
+            return indexed;
+        }
     }
 
     byte[] FILE_FORMAT_IDENTIFIER = "JPass\ud83d\udd12".getBytes(StandardCharsets.UTF_8);
@@ -0,0 +1,298 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Output stream which writes data in GZIP format, compressing blocks of the
+ * data in parallel. Every block is compressed independently into a sequence of
+ * complete deflate blocks, using the end of the previous block as preset
+ * dictionary, so the concatenated blocks form a single valid GZIP member
+ * readable by {@link java.util.zip.GZIPInputStream}.
+ *
+ * <p>
+ * Data smaller than a block is compressed on the calling thread, the threads
+ * for compression are started with the second block only.</p>
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    /**
+     * Default size of the independently compressed blocks.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    /**
+     * Maximum size of the deflate dictionary.
+     */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int TRAILER_SIZE = 8;
+
+    private final OutputStream target;
+    private final int blockSize;
+    private final int threads;
+    private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+
+    private ExecutorService executor;
+    private byte[] block;
+    private int position;
+    private byte[] dictionary;
+    private long size;
+    private boolean closed;
+    private boolean targetClosed;
+
+    /**
+     * Creates a stream with the default block size, compressing on as many
+     * threads as available processors.
+     *
+     * @param target underlying stream
+     * @throws IOException if the header could not be written
+     */
+    public ParallelGzipOutputStream(OutputStream target) throws IOException {
+        this(target, DEFAULT_BLOCK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a stream.
+     *
+     * @param target underlying stream
+     * @param blockSize size of the independently compressed blocks
+     * @param threads number of threads to compress on
+     * @throws IOException if the header could not be written
+     */
+    public ParallelGzipOutputStream(OutputStream target, int blockSize, int threads) throws IOException {
+        if (blockSize <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Invalid block size or thread count");
+        }
+        this.target = target;
+        this.blockSize = blockSize;
+        this.threads = threads;
+        this.block = new byte[blockSize];
+        writeHeader();
+    }
+
+    private void writeHeader() throws IOException {
+        this.target.write(new byte[]{
+            (byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+        });
+    }
+
+    private void writeTrailer() throws IOException {
+        byte[] trailer = new byte[TRAILER_SIZE];
+        writeInt((int) this.crc.getValue(), trailer, 0);
+        writeInt((int) this.size, trailer, 4);
+        this.target.write(trailer);
+    }
+
+    private static void writeInt(int value, byte[] buffer, int offset) {
+        for (int i = 0; i < 4; i++) {
+            buffer[offset + i] = (byte) (value >> (8 * i));
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+        this.crc.update(b, off, len);
+        this.size += len;
+        while (len > 0) {
+            if (this.position == this.blockSize) {
+                submitBlock(false);
+            }
+            int count = Math.min(len, this.blockSize - this.position);
+            System.arraycopy(b, off, this.block, this.position, count);
+            this.position += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Passes the current block to compression, and writes the compressed
+     * blocks which are ready in order.
+     *
+     * @param last whether the current block is the last one
+     * @throws IOException if the compressed data could not be written
+     */
+    private void submitBlock(boolean last) throws IOException {
+        byte[] input = this.block;
+        int length = this.position;
+        byte[] presetDictionary = this.dictionary;
+        int dictionaryLength = Math.min(length, DICTIONARY_SIZE);
+        this.dictionary = Arrays.copyOfRange(input, length - dictionaryLength, length);
+        this.block = new byte[this.blockSize];
+        this.position = 0;
+
+        if (this.executor == null && last) {
+            writeBlocks(0);
+            this.target.write(compress(input, length, presetDictionary, true));
+            return;
+        }
+        if (this.executor == null) {
+            this.executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+                Thread thread = new Thread(runnable, "JPass-deflate");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.pendingBlocks.add(this.executor.submit(() -> compress(input, length, presetDictionary, last)));
+        writeBlocks(last ? 0 : 2 * this.threads);
+    }
+
+    /**
+     * Writes compressed blocks in order, until the given number of blocks
+     * are pending.
+     *
+     * @param maxPendingBlocks number of blocks allowed to be pending
+     * @throws IOException if the compressed data could not be written
+     */
+    private void writeBlocks(int maxPendingBlocks) throws IOException {
+        while (this.pendingBlocks.size() > maxPendingBlocks || isReady(this.pendingBlocks.peek())) {
+            try {
+                this.target.write(this.pendingBlocks.poll().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while compressing");
+            } catch (ExecutionException e) {
+                throw new IOException("Could not compress data", e.getCause());
+            }
+        }
+    }
+
+    private static boolean isReady(Future<byte[]> future) {
+        return future != null && future.isDone();
+    }
+
+    /**
+     * Compresses a block into complete deflate blocks.
+     *
+     * @param input the data
+     * @param length length of the data
+     * @param presetDictionary end of the previous block, or {@code null}
+     * @param last whether the final deflate block should be written
+     * @return compressed data
+     */
+    private static byte[] compress(byte[] input, int length, byte[] presetDictionary, boolean last) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            if (presetDictionary != null) {
+                deflater.setDictionary(presetDictionary);
+            }
+            deflater.setInput(input, 0, length);
+            if (last) {
+                deflater.finish();
+            }
+            // sync flush aligns the output to a byte boundary, so the blocks can be concatenated
+            int flush = last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH;
+            byte[] output = new byte[length + length / 1000 + 64];
+            int outputLength = 0;
+            while (true) {
+                if (outputLength == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                int count = deflater.deflate(output, outputLength, output.length - outputLength, flush);
+                outputLength += count;
+                if (last ? deflater.finished() : outputLength < output.length) {
+                    break;
+                }
+            }
+            return Arrays.copyOf(output, outputLength);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Compresses the remaining data and writes the GZIP trailer, without
+     * closing the underlying stream.
+     *
+     * @throws IOException if the compressed data could not be written
+     */
+    public void finish() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            submitBlock(true);
+            writeTrailer();
+        } finally {
+            if (this.executor != null) {
+                this.executor.shutdownNow();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.target.flush();
+    }
+
+    /**
+     * Finishes compression and closes the underlying stream.
+     *
+     * @throws IOException if the compressed data could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.targetClosed) {
+            return;
+        }
+        this.targetClosed = true;
+        try {
+            finish();
+        } finally {
+            this.target.close();
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input stream which reads its source on a separate thread. The data is passed
+ * to the reader in pooled buffers through a bounded queue, so nesting these
+ * streams makes the stages of a stream chain (for example reading, decryption
+ * and inflation) run concurrently.
+ *
+ * <p>
+ * The time a stage spends with its own work is measured without the time
+ * spent waiting for the previous stage or for a free buffer, so the throughput
+ * of the stages can be compared.</p>
+ */
+public class PipelinedInputStream extends InputStream {
+
+    /**
+     * Default size of the pooled buffers.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Default number of pooled buffers.
+     */
+    public static final int DEFAULT_BUFFER_COUNT = 4;
+
+    /**
+     * Time the current thread spent waiting for other stages.
+     */
+    private static final ThreadLocal<long[]> WAIT_TIME = ThreadLocal.withInitial(() -> new long[1]);
+
+    private static final Chunk END_OF_STREAM = new Chunk(null);
+
+    private final String name;
+    private final InputStream source;
+    private final BlockingQueue<byte[]> freeBuffers;
+    private final BlockingQueue<Chunk> filledChunks;
+    private final Thread thread;
+
+    private volatile IOException error;
+    private volatile boolean closed;
+    private volatile long bytes;
+    private volatile long workTime;
+    private volatile long elapsedTime;
+
+    private Chunk current;
+    private int position;
+
+    /**
+     * Creates a stage with the default buffers, and starts reading the
+     * source.
+     *
+     * @param name name of the stage
+     * @param source the stream to read on a separate thread
+     */
+    public PipelinedInputStream(String name, InputStream source) {
+        this(name, source, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+    }
+
+    /**
+     * Creates a stage, and starts reading the source.
+     *
+     * @param name name of the stage
+     * @param source the stream to read on a separate thread
+     * @param bufferSize size of the pooled buffers
+     * @param bufferCount number of pooled buffers
+     */
+    public PipelinedInputStream(String name, InputStream source, int bufferSize, int bufferCount) {
+        if (bufferSize <= 0 || bufferCount <= 0) {
+            throw new IllegalArgumentException("Invalid buffer size or count");
+        }
+        this.name = name;
+        this.source = source;
+        this.freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            this.freeBuffers.add(new byte[bufferSize]);
+        }
+        // one more slot for the end of stream marker
+        this.filledChunks = new ArrayBlockingQueue<>(bufferCount + 1);
+        this.thread = new Thread(this::transfer, "JPass-" + name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Reads the source into the pooled buffers until the end of the stream or
+     * an error.
+     */
+    private void transfer() {
+        long start = System.nanoTime();
+        long[] waitTime = WAIT_TIME.get();
+        try {
+            while (!this.closed) {
+                byte[] buffer = this.freeBuffers.take();
+                long workStart = System.nanoTime();
+                long waitStart = waitTime[0];
+                int length = fill(buffer);
+                this.workTime += System.nanoTime() - workStart - (waitTime[0] - waitStart);
+                if (length > 0) {
+                    this.bytes += length;
+                    this.filledChunks.put(new Chunk(buffer, length));
+                }
+                if (length < buffer.length) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            this.error = new InterruptedIOException("Stage " + this.name + " was interrupted");
+        } catch (IOException e) {
+            this.error = e;
+        } catch (RuntimeException e) {
+            this.error = new IOException(e.getMessage(), e);
+        } finally {
+            this.elapsedTime = System.nanoTime() - start;
+            // there is always a free slot for the marker, as the buffers are limited
+            this.filledChunks.offer(END_OF_STREAM);
+        }
+    }
+
+    /**
+     * Fills the buffer from the source.
+     *
+     * @param buffer the buffer
+     * @return number of bytes read, less than the buffer size at the end of
+     * the stream
+     * @throws IOException if the source throws an exception
+     */
+    private int fill(byte[] buffer) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            int read = this.source.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    /**
+     * Makes sure there is unread data in the current buffer, and returns the
+     * previous buffer to the pool.
+     *
+     * @return {@code false} at the end of the stream
+     * @throws IOException if the stage failed
+     */
+    private boolean nextChunk() throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+        if (this.current == END_OF_STREAM) {
+            return endOfStream();
+        }
+        if (this.current != null && this.position < this.current.length) {
+            return true;
+        }
+        if (this.current != null) {
+            this.freeBuffers.offer(this.current.buffer);
+        }
+        long waitStart = System.nanoTime();
+        try {
+            this.current = this.filledChunks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for stage " + this.name);
+        } finally {
+            addCurrentThreadWaitTime(System.nanoTime() - waitStart);
+        }
+        this.position = 0;
+        return this.current != END_OF_STREAM || endOfStream();
+    }
+
+    private boolean endOfStream() throws IOException {
+        if (this.error != null) {
+            throw this.error;
+        }
+        return false;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextChunk()) {
+            return -1;
+        }
+        return this.current.buffer[this.position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        int count = Math.min(len, this.current.length - this.position);
+        System.arraycopy(this.current.buffer, this.position, b, off, count);
+        this.position += count;
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return this.current == null || this.current == END_OF_STREAM ? 0 : this.current.length - this.position;
+    }
+
+    /**
+     * Stops the stage and closes the source.
+     *
+     * @throws IOException if the source throws an exception
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.thread.interrupt();
+        try {
+            this.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.source.close();
+    }
+
+    /**
+     * Gets the name of the stage.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the number of bytes produced by the stage so far.
+     *
+     * @return number of bytes
+     */
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Gets the time the stage spent reading its source, not counting the time
+     * spent waiting for the previous stages.
+     *
+     * @return time in nanoseconds
+     */
+    public long getWorkTime() {
+        return this.workTime;
+    }
+
+    /**
+     * Gets the time the stage was running, or 0 if it is still running.
+     *
+     * @return time in nanoseconds
+     */
+    public long getElapsedTime() {
+        return this.elapsedTime;
+    }
+
+    /**
+     * Gets the time the current thread spent waiting for other stages.
+     *
+     * @return time in nanoseconds
+     */
+    public static long getCurrentThreadWaitTime() {
+        return WAIT_TIME.get()[0];
+    }
+
+    /**
+     * Adds to the time the current thread spent waiting for other stages.
+     *
+     * @param waitTime time in nanoseconds
+     */
+    static void addCurrentThreadWaitTime(long waitTime) {
+        WAIT_TIME.get()[0] += waitTime;
+    }
+
+    /**
+     * Gets a summary of the throughput of the stage.
+     *
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        return formatThroughput(this.name, this.bytes, this.workTime);
+    }
+
+    /**
+     * Formats the throughput of a stage.
+     *
+     * @param name name of the stage
+     * @param bytes number of bytes processed by the stage
+     * @param workTime time the stage spent with processing, in nanoseconds
+     * @return the formatted throughput
+     */
+    public static String formatThroughput(String name, long bytes, long workTime) {
+        double megabytes = bytes / (1024.0 * 1024.0);
+        double millis = workTime / 1_000_000.0;
+        double throughput = millis > 0 ? megabytes * 1000.0 / millis : 0.0;
+        return String.format("%s: %.2f MB in %.1f ms (%.1f MB/s)", name, megabytes, millis, throughput);
+    }
+
+    /**
+     * Filled part of a pooled buffer.
+     */
+    private static final class Chunk {
+
+        private final byte[] buffer;
+        private final int length;
+
+        Chunk(byte[] buffer) {
+            this(buffer, 0);
+        }
+
+        Chunk(byte[] buffer, int length) {
+            this.buffer = buffer;
+            this.length = length;
+        }
+    }
+}
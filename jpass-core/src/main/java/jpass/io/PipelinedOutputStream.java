@@ -0,0 +1,312 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Output stream which writes its target on a separate thread. The written data
+ * is collected in pooled buffers and passed to the writer thread through a
+ * bounded queue, so nesting these streams makes the stages of a stream chain
+ * (for example compression, encryption and writing to disk) run concurrently.
+ *
+ * <p>
+ * The target is closed by the writer thread when this stream is closed or
+ * the writer thread is interrupted, and errors of the writer thread are
+ * reported by the next write, flush or close call.</p>
+ */
+public class PipelinedOutputStream extends OutputStream {
+
+    private static final Chunk END_OF_STREAM = new Chunk(null, 0);
+
+    private final String name;
+    private final OutputStream target;
+    private final BlockingQueue<byte[]> freeBuffers;
+    private final BlockingQueue<Chunk> filledChunks;
+    private final Thread thread;
+
+    private volatile IOException error;
+    private volatile long bytes;
+    private volatile long workTime;
+
+    private byte[] current;
+    private int position;
+    private boolean closed;
+
+    /**
+     * Creates a stage with the default buffers, and starts the writer thread.
+     *
+     * @param name name of the stage
+     * @param target the stream to write on a separate thread
+     */
+    public PipelinedOutputStream(String name, OutputStream target) {
+        this(name, target, PipelinedInputStream.DEFAULT_BUFFER_SIZE, PipelinedInputStream.DEFAULT_BUFFER_COUNT);
+    }
+
+    /**
+     * Creates a stage, and starts the writer thread.
+     *
+     * @param name name of the stage
+     * @param target the stream to write on a separate thread
+     * @param bufferSize size of the pooled buffers
+     * @param bufferCount number of pooled buffers
+     */
+    public PipelinedOutputStream(String name, OutputStream target, int bufferSize, int bufferCount) {
+        if (bufferSize <= 0 || bufferCount <= 0) {
+            throw new IllegalArgumentException("Invalid buffer size or count");
+        }
+        this.name = name;
+        this.target = target;
+        this.freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            this.freeBuffers.add(new byte[bufferSize]);
+        }
+        // one more slot for the end of stream marker
+        this.filledChunks = new ArrayBlockingQueue<>(bufferCount + 1);
+        this.thread = new Thread(this::transfer, "JPass-" + name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Writes the filled buffers to the target until the end of the stream. In
+     * case of an error, the rest of the buffers are dropped. The target is
+     * closed even if the thread is interrupted, so the next stages of the
+     * chain finish as well.
+     */
+    private void transfer() {
+        try {
+            Chunk chunk;
+            while ((chunk = this.filledChunks.take()) != END_OF_STREAM) {
+                if (this.error == null) {
+                    write(chunk);
+                }
+                this.freeBuffers.offer(chunk.buffer);
+            }
+        } catch (InterruptedException e) {
+            this.error = new InterruptedIOException("Stage " + this.name + " was interrupted");
+        } finally {
+            long workStart = System.nanoTime();
+            long waitStart = PipelinedInputStream.getCurrentThreadWaitTime();
+            closeTarget();
+            this.workTime += System.nanoTime() - workStart - (PipelinedInputStream.getCurrentThreadWaitTime() - waitStart);
+        }
+    }
+
+    private void closeTarget() {
+        try {
+            this.target.close();
+        } catch (IOException e) {
+            if (this.error == null) {
+                this.error = e;
+            }
+        } catch (RuntimeException e) {
+            if (this.error == null) {
+                this.error = new IOException(e.getMessage(), e);
+            }
+        }
+    }
+
+    private void write(Chunk chunk) {
+        long workStart = System.nanoTime();
+        long waitStart = PipelinedInputStream.getCurrentThreadWaitTime();
+        try {
+            this.target.write(chunk.buffer, 0, chunk.length);
+            this.bytes += chunk.length;
+        } catch (IOException e) {
+            this.error = e;
+        } catch (RuntimeException e) {
+            this.error = new IOException(e.getMessage(), e);
+        }
+        this.workTime += System.nanoTime() - workStart - (PipelinedInputStream.getCurrentThreadWaitTime() - waitStart);
+    }
+
+    /**
+     * Passes the current buffer to the writer thread, and takes a free buffer.
+     *
+     * @throws IOException if the writer thread failed
+     */
+    private void handOver() throws IOException {
+        checkError();
+        long waitStart = System.nanoTime();
+        try {
+            if (this.current != null && this.position > 0) {
+                this.filledChunks.put(new Chunk(this.current, this.position));
+                this.current = null;
+            }
+            if (this.current == null) {
+                this.current = this.freeBuffers.take();
+                this.position = 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for stage " + this.name);
+        } finally {
+            PipelinedInputStream.addCurrentThreadWaitTime(System.nanoTime() - waitStart);
+        }
+    }
+
+    private void checkError() throws IOException {
+        if (this.error != null) {
+            // a new instance, as the error can be reported by several calls
+            throw new IOException(this.error.getMessage(), this.error);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (this.current == null || this.position == this.current.length) {
+            handOver();
+        }
+        this.current[this.position++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureOpen();
+        while (len > 0) {
+            if (this.current == null || this.position == this.current.length) {
+                handOver();
+            }
+            int count = Math.min(len, this.current.length - this.position);
+            System.arraycopy(b, off, this.current, this.position, count);
+            this.position += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Passes the buffered data to the writer thread, without waiting for it
+     * to be written.
+     *
+     * @throws IOException if the writer thread failed
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (this.current != null && this.position > 0) {
+            handOver();
+        }
+        checkError();
+    }
+
+    /**
+     * Writes the remaining data, closes the target and waits for the writer
+     * thread to finish.
+     *
+     * @throws IOException if the writer thread failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            if (this.current != null && this.position > 0) {
+                this.filledChunks.put(new Chunk(this.current, this.position));
+                this.current = null;
+            }
+            this.filledChunks.put(END_OF_STREAM);
+            this.thread.join();
+        } catch (InterruptedException e) {
+            this.thread.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing stage " + this.name);
+        }
+        checkError();
+    }
+
+    /**
+     * Gets the name of the stage.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the number of bytes written to the target so far.
+     *
+     * @return number of bytes
+     */
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Gets the time the stage spent writing its target, not counting the time
+     * spent waiting for the next stages.
+     *
+     * @return time in nanoseconds
+     */
+    public long getWorkTime() {
+        return this.workTime;
+    }
+
+    /**
+     * Gets a summary of the throughput of the stage.
+     *
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        return PipelinedInputStream.formatThroughput(this.name, this.bytes, this.workTime);
+    }
+
+    /**
+     * Filled part of a pooled buffer.
+     */
+    private static final class Chunk {
+
+        private final byte[] buffer;
+        private final int length;
+
+        Chunk(byte[] buffer, int length) {
+            this.buffer = buffer;
+            this.length = length;
+        }
+    }
+}
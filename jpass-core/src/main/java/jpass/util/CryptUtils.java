@@ -167,6 +167,24 @@ public final class CryptUtils {
         return salt;
     }
 
+    /**
+     * Generates a random token of hexadecimal digits, with a secure random
+     * generator. The token is used to authenticate local clients.
+     *
+     * @param length number of hexadecimal digits, should be even
+     * @return the token as ASCII characters
+     */
+    public static byte[] generateRandomToken(int length) {
+        byte[] random = new byte[length / 2];
+        new SecureRandom().nextBytes(random);
+        byte[] token = new byte[length];
+        for (int index = 0; index < random.length; index++) {
+            token[2 * index] = (byte) Character.forDigit((random[index] >> 4) & 0xF, 16);
+            token[2 * index + 1] = (byte) Character.forDigit(random[index] & 0xF, 16);
+        }
+        return token;
+    }
+
     /**
      * Get random number generator.
      *
@@ -34,7 +34,6 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
-import java.util.Date;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -58,19 +57,61 @@ public final class DateUtils {
     }
 
     public static String formatIsoDateTime(String dateString, DateTimeFormatter formatter) {
-        LocalDateTime dateTime;
+        return formatEpochMillis(parseIsoDateTime(dateString), formatter);
+    }
+
+    /**
+     * Parses an ISO local date time, or a legacy epoch timestamp in
+     * milliseconds.
+     *
+     * @param dateString the date string
+     * @return the epoch milliseconds in the system default time zone, or 0 if
+     * the date string could not be parsed
+     */
+    public static long parseIsoDateTime(String dateString) {
         try {
-            dateTime = LocalDateTime.parse(dateString, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-        } catch (DateTimeParseException | NullPointerException e) {
-            try {
-                // fallback to epoch timestamp
-                Date date = new Date(Long.parseLong(dateString));
-                dateTime = LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
-            } catch (NumberFormatException | DateTimeParseException | NullPointerException ex) {
-                LOG.log(Level.WARNING, String.format("Could not parse timestamp [%s] due to [%s]", dateString, ex.getMessage()));
-                dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(0), ZoneId.systemDefault());
+            if (isEpochTimestamp(dateString)) {
+                return Long.parseLong(dateString);
             }
+            return LocalDateTime.parse(dateString, DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                    .atZone(ZoneId.systemDefault())
+                    .toInstant()
+                    .toEpochMilli();
+        } catch (NumberFormatException | DateTimeParseException | NullPointerException e) {
+            LOG.log(Level.WARNING, String.format("Could not parse timestamp [%s] due to [%s]", dateString, e.getMessage()));
+            return 0L;
         }
+    }
+
+    /**
+     * Formats epoch milliseconds in the system default time zone, truncated
+     * to seconds.
+     *
+     * @param epochMillis the epoch milliseconds
+     * @param formatter the formatter
+     * @return the formatted date
+     */
+    public static String formatEpochMillis(long epochMillis, DateTimeFormatter formatter) {
+        LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
         return formatter.format(dateTime.truncatedTo(ChronoUnit.SECONDS));
     }
+
+    /**
+     * Checks if the date string is a legacy epoch timestamp, so parsing it as
+     * ISO date time would fail anyway.
+     *
+     * @param dateString the date string
+     * @return {@code true} if the string consists of digits only
+     */
+    private static boolean isEpochTimestamp(String dateString) {
+        if (dateString == null || dateString.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < dateString.length(); i++) {
+            if (!Character.isDigit(dateString.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
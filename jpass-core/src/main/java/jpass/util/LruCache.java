@@ -26,50 +26,34 @@
  * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
  * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
-package jpass.ui;
+package jpass.util;
 
-import java.awt.BorderLayout;
-
-import javax.swing.JProgressBar;
-import javax.swing.border.EmptyBorder;
-import javax.swing.JLabel;
-import javax.swing.JPanel;
-
-import static jpass.ui.JPassFrame.getLocalizedMessages;
-import static jpass.util.Constants.PANEL_PROCESSING;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * Class for representing a status bar.
- *
- * @author Gabor_Bata
+ * Map with limited size, which removes the least recently accessed element
+ * when it is full. It is not thread-safe.
  *
+ * @param <K> the type of keys
+ * @param <V> the type of values
  */
-public class StatusPanel extends JPanel {
-
-    private final JLabel label;
-    private final JProgressBar progressBar;
-
-    public StatusPanel() {
-        super(new BorderLayout());
-        setBorder(new EmptyBorder(2, 2, 2, 2));
-        this.label = new JLabel();
-        this.progressBar = new JProgressBar();
-        add(this.label, BorderLayout.CENTER);
-        add(this.progressBar, BorderLayout.EAST);
-        setProcessing(false);
-    }
-
-    public void setText(final String text) {
-        this.label.setText(text);
-    }
-
-    public String getText() {
-        return this.label.getText();
+public final class LruCache<K, V> extends LinkedHashMap<K, V> {
+
+    private final int maxSize;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxSize maximum number of elements
+     */
+    public LruCache(int maxSize) {
+        super(maxSize, 0.75f, true);
+        this.maxSize = maxSize;
     }
 
-    public void setProcessing(boolean processing) {
-        this.progressBar.setVisible(processing);
-        this.progressBar.setIndeterminate(processing);
-        setText(processing ? getLocalizedMessages().getString(PANEL_PROCESSING) : " ");
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > this.maxSize;
     }
 }
@@ -0,0 +1,113 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.util;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Tracks the progress of processing a known number of bytes, and notifies a
+ * listener about it at most once in the given interval. The remaining time is
+ * estimated from the average speed so far.
+ *
+ * <p>
+ * Updates do not allocate, so the tracker can be updated frequently from
+ * streams.</p>
+ */
+public final class ProgressTracker implements LongConsumer {
+
+    /**
+     * Listener of progress changes.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called when the progress changed.
+         *
+         * @param processed number of bytes processed
+         * @param total total number of bytes, or a non-positive value if
+         * unknown
+         * @param remainingMillis estimated remaining time in milliseconds, or
+         * -1 if unknown
+         */
+        void progressChanged(long processed, long total, long remainingMillis);
+    }
+
+    private final long total;
+    private final long intervalNanos;
+    private final Listener listener;
+    private final long startTime;
+    private long lastNotificationTime;
+
+    /**
+     * Creates a tracker.
+     *
+     * @param total total number of bytes, or a non-positive value if unknown
+     * @param intervalMillis minimum time between notifications
+     * @param listener the listener
+     */
+    public ProgressTracker(long total, long intervalMillis, Listener listener) {
+        this.total = total;
+        this.intervalNanos = intervalMillis * 1_000_000L;
+        this.listener = listener;
+        this.startTime = System.nanoTime();
+        this.lastNotificationTime = this.startTime - this.intervalNanos;
+    }
+
+    /**
+     * Updates the number of bytes processed, and notifies the listener if the
+     * interval since the last notification elapsed.
+     *
+     * @param processed number of bytes processed
+     */
+    @Override
+    public void accept(long processed) {
+        long now = System.nanoTime();
+        if (now - this.lastNotificationTime < this.intervalNanos) {
+            return;
+        }
+        this.lastNotificationTime = now;
+        this.listener.progressChanged(processed, this.total, estimateRemainingMillis(processed, now - this.startTime));
+    }
+
+    /**
+     * Estimates the remaining time from the average speed so far.
+     *
+     * @param processed number of bytes processed
+     * @param elapsedNanos time elapsed since the start
+     * @return estimated remaining time in milliseconds, or -1 if unknown
+     */
+    long estimateRemainingMillis(long processed, long elapsedNanos) {
+        if (this.total <= 0 || processed <= 0) {
+            return -1;
+        }
+        long remaining = Math.max(0, this.total - processed);
+        return (long) (elapsedNanos / 1_000_000.0 * remaining / processed);
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ensures that only one instance of the application runs for the user.
+ *
+ * <p>
+ * The first instance holds a lock on a file, and listens on a loopback
+ * socket. The port and a random token are written into a file, which is
+ * readable only by the owner. Later instances forward their arguments over
+ * the socket to the first instance, and exit.
+ * </p>
+ */
+public final class SingleInstance {
+
+    private static final Logger LOG = Logger.getLogger(SingleInstance.class.getName());
+
+    private static final String LOCK_FILE_NAME = "instance.lock";
+    private static final String PORT_FILE_NAME = "instance.port";
+    private static final int TOKEN_LENGTH = 64;
+    private static final int MAX_ARGUMENT_COUNT = 1024;
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+    private static final int FORWARD_TIMEOUT_MILLIS = 5000;
+    private static final int FORWARD_RETRY_MILLIS = 100;
+
+    private final Path directory;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final ServerSocket serverSocket;
+    private final byte[] token;
+    private final List<List<String>> pendingArguments = new ArrayList<>();
+    private Consumer<List<String>> argumentsHandler;
+
+    private SingleInstance(Path directory, FileChannel lockChannel, FileLock lock) throws IOException {
+        this.directory = directory;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+        this.token = CryptUtils.generateRandomToken(TOKEN_LENGTH);
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Checks if single instance mode is enabled in the configuration.
+     *
+     * @return {@code true} if only one instance should run
+     */
+    public static boolean isEnabled() {
+        return Configuration.getInstance().is("single.instance.enabled", true);
+    }
+
+    /**
+     * Gets the default directory of the lock file.
+     *
+     * @return directory in the home folder of the user
+     */
+    public static Path getDefaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".jpass");
+    }
+
+    /**
+     * Tries to become the running instance.
+     *
+     * @param directory directory of the lock file
+     * @return the running instance, or empty if another instance is running
+     * @throws IOException if the lock file or the socket could not be created
+     */
+    public static Optional<SingleInstance> acquire(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            return Optional.empty();
+        }
+        SingleInstance instance = null;
+        try {
+            instance = new SingleInstance(directory, lockChannel, lock);
+            instance.writePortFile();
+        } catch (IOException | RuntimeException e) {
+            if (instance != null) {
+                instance.close();
+            } else {
+                lockChannel.close();
+            }
+            throw e;
+        }
+        Thread thread = new Thread(instance::acceptConnections, "JPass-instance");
+        thread.setDaemon(true);
+        thread.start();
+        return Optional.of(instance);
+    }
+
+    /**
+     * Forwards the arguments to the running instance. As the running
+     * instance may still be starting, connecting is retried for a while.
+     *
+     * @param directory directory of the lock file
+     * @param arguments the arguments
+     * @return {@code true} if the running instance received the arguments
+     */
+    public static boolean forward(Path directory, List<String> arguments) {
+        long deadline = System.currentTimeMillis() + FORWARD_TIMEOUT_MILLIS;
+        while (true) {
+            try {
+                sendArguments(directory, arguments);
+                return true;
+            } catch (IOException | RuntimeException e) {
+                if (System.currentTimeMillis() >= deadline) {
+                    LOG.log(Level.WARNING, "Could not forward arguments to the running instance", e);
+                    return false;
+                }
+            }
+            try {
+                Thread.sleep(FORWARD_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Sets the handler of the arguments forwarded by later instances. The
+     * handler is called on a background thread, arguments received before
+     * the handler is set are passed to it immediately.
+     *
+     * @param handler the handler
+     */
+    public void setArgumentsHandler(Consumer<List<String>> handler) {
+        List<List<String>> pending;
+        synchronized (this.pendingArguments) {
+            this.argumentsHandler = handler;
+            pending = new ArrayList<>(this.pendingArguments);
+            this.pendingArguments.clear();
+        }
+        pending.forEach(handler);
+    }
+
+    /**
+     * Stops listening, and releases the lock.
+     */
+    public void close() {
+        try {
+            this.serverSocket.close();
+            Files.deleteIfExists(this.directory.resolve(PORT_FILE_NAME));
+            this.lock.release();
+            this.lockChannel.close();
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Could not release instance lock", e);
+        }
+    }
+
+    private void acceptConnections() {
+        while (!this.serverSocket.isClosed()) {
+            try (Socket socket = this.serverSocket.accept()) {
+                receiveArguments(socket).ifPresent(this::handleArguments);
+            } catch (IOException e) {
+                if (!this.serverSocket.isClosed()) {
+                    LOG.log(Level.FINE, "Could not receive arguments", e);
+                }
+            }
+        }
+    }
+
+    private void handleArguments(List<String> arguments) {
+        Consumer<List<String>> handler;
+        synchronized (this.pendingArguments) {
+            handler = this.argumentsHandler;
+            if (handler == null) {
+                this.pendingArguments.add(arguments);
+                return;
+            }
+        }
+        handler.accept(arguments);
+    }
+
+    private Optional<List<String>> receiveArguments(Socket socket) throws IOException {
+        socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        byte[] clientToken = new byte[TOKEN_LENGTH];
+        input.readFully(clientToken);
+        if (!MessageDigest.isEqual(this.token, clientToken)) {
+            LOG.log(Level.WARNING, "Forwarded arguments with incorrect token rejected");
+            return Optional.empty();
+        }
+        int count = input.readInt();
+        if (count < 0 || count > MAX_ARGUMENT_COUNT) {
+            throw new IOException("Invalid argument count");
+        }
+        List<String> arguments = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            arguments.add(input.readUTF());
+        }
+        DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+        output.writeBoolean(true);
+        output.flush();
+        return Optional.of(arguments);
+    }
+
+    private static void sendArguments(Path directory, List<String> arguments) throws IOException {
+        List<String> lines = Files.readAllLines(directory.resolve(PORT_FILE_NAME), StandardCharsets.US_ASCII);
+        if (lines.size() < 2 || lines.get(1).length() != TOKEN_LENGTH) {
+            throw new IOException("Invalid port file");
+        }
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(lines.get(0))), CONNECT_TIMEOUT_MILLIS);
+            socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            output.write(lines.get(1).getBytes(StandardCharsets.US_ASCII));
+            output.writeInt(arguments.size());
+            for (String argument : arguments) {
+                output.writeUTF(argument);
+            }
+            output.flush();
+            if (!new DataInputStream(socket.getInputStream()).readBoolean()) {
+                throw new IOException("Arguments were not received");
+            }
+        }
+    }
+
+    private void writePortFile() throws IOException {
+        FileUtils.replaceFile(this.directory.resolve(PORT_FILE_NAME), path -> Files.write(path,
+                Arrays.asList(String.valueOf(this.serverSocket.getLocalPort()), new String(this.token, StandardCharsets.US_ASCII)),
+                StandardCharsets.US_ASCII));
+    }
+}
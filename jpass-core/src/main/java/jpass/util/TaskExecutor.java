@@ -0,0 +1,290 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Executes named tasks one after the other, in the order of submission. Tasks
+ * can be cancelled while pending or running, and running tasks are cancelled
+ * when their timeout elapses. Timing metrics are recorded per task name.
+ *
+ * <p>
+ * Running the tasks serially guarantees that operations on the same file, for
+ * example two saves, cannot overlap.</p>
+ */
+public final class TaskExecutor {
+
+    private static final Logger LOG = Logger.getLogger(TaskExecutor.class.getName());
+
+    private static TaskExecutor instance;
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService timer;
+    private final Map<String, Metrics> metrics = new ConcurrentHashMap<>();
+    private volatile Task runningTask;
+
+    /**
+     * Creates an executor with its own threads.
+     */
+    TaskExecutor() {
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> createThread(runnable, "JPass-task"));
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> createThread(runnable, "JPass-task-timeout"));
+    }
+
+    private static Thread createThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    public static synchronized TaskExecutor getInstance() {
+        if (instance == null) {
+            instance = new TaskExecutor();
+        }
+        return instance;
+    }
+
+    /**
+     * Submits a task, which is run after the previously submitted tasks
+     * finished.
+     *
+     * @param name name of the task
+     * @param work the work to run, cancelled on timeout or cancellation
+     * @param timeoutMillis maximum running time, or 0 for no timeout
+     * @return the submitted task
+     */
+    public Task submit(String name, RunnableFuture<?> work, long timeoutMillis) {
+        Task task = new Task(name, work, timeoutMillis);
+        this.executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Gets the name of the running task.
+     *
+     * @return name of the running task, or {@code null} if no task is running
+     */
+    public String getRunningTaskName() {
+        Task task = this.runningTask;
+        return task == null ? null : task.getName();
+    }
+
+    /**
+     * Gets the names of the tasks which are waiting for the running task.
+     *
+     * @return names of the pending tasks, in the order they will run
+     */
+    public List<String> getPendingTaskNames() {
+        List<String> names = new ArrayList<>();
+        this.executor.getQueue().forEach(runnable -> names.add(((Task) runnable).getName()));
+        return names;
+    }
+
+    /**
+     * Gets the timing metrics of the tasks with the given name.
+     *
+     * @param name name of the task
+     * @return the metrics, or {@code null} if no such task has finished yet
+     */
+    public Metrics getMetrics(String name) {
+        return this.metrics.get(name);
+    }
+
+    /**
+     * Task submitted to the executor.
+     */
+    public final class Task implements Runnable {
+
+        private final String name;
+        private final RunnableFuture<?> work;
+        private final long timeoutMillis;
+        private final long submitTime;
+        private volatile boolean timedOut;
+
+        private Task(String name, RunnableFuture<?> work, long timeoutMillis) {
+            this.name = name;
+            this.work = work;
+            this.timeoutMillis = timeoutMillis;
+            this.submitTime = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            long startTime = System.nanoTime();
+            ScheduledFuture<?> timeout = null;
+            if (this.timeoutMillis > 0) {
+                timeout = TaskExecutor.this.timer.schedule(() -> {
+                    this.timedOut = true;
+                    this.work.cancel(true);
+                }, this.timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            TaskExecutor.this.runningTask = this;
+            try {
+                this.work.run();
+            } finally {
+                TaskExecutor.this.runningTask = null;
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+                long endTime = System.nanoTime();
+                record(startTime - this.submitTime, endTime - startTime);
+            }
+        }
+
+        private void record(long waitNanos, long runNanos) {
+            boolean cancelled = this.work.isCancelled();
+            boolean failed = false;
+            if (!cancelled) {
+                try {
+                    this.work.get();
+                } catch (ExecutionException | CancellationException e) {
+                    failed = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            TaskExecutor.this.metrics.computeIfAbsent(this.name, Metrics::new).record(waitNanos, runNanos, failed, cancelled);
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine(String.format("Task %s %s in %d ms, waited %d ms", this.name,
+                        this.timedOut ? "timed out" : cancelled ? "cancelled" : failed ? "failed" : "finished",
+                        TimeUnit.NANOSECONDS.toMillis(runNanos), TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+            }
+        }
+
+        /**
+         * Cancels the task. Pending tasks are removed from the queue, running
+         * tasks are interrupted.
+         *
+         * @return {@code false} if the task could not be cancelled, typically
+         * because it has already completed
+         */
+        public boolean cancel() {
+            boolean cancelled = this.work.cancel(true);
+            if (TaskExecutor.this.executor.remove(this)) {
+                TaskExecutor.this.metrics.computeIfAbsent(this.name, Metrics::new).record(0, 0, false, true);
+            }
+            return cancelled;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Checks whether the task was cancelled because of its timeout.
+         *
+         * @return {@code true} if the timeout elapsed
+         */
+        public boolean isTimedOut() {
+            return this.timedOut;
+        }
+    }
+
+    /**
+     * Timing metrics of the tasks with the same name.
+     */
+    public static final class Metrics {
+
+        private final String name;
+        private int count;
+        private int failedCount;
+        private int cancelledCount;
+        private long totalRunNanos;
+        private long maxRunNanos;
+        private long totalWaitNanos;
+
+        private Metrics(String name) {
+            this.name = name;
+        }
+
+        private synchronized void record(long waitNanos, long runNanos, boolean failed, boolean cancelled) {
+            this.count++;
+            if (failed) {
+                this.failedCount++;
+            }
+            if (cancelled) {
+                this.cancelledCount++;
+            }
+            this.totalRunNanos += runNanos;
+            this.maxRunNanos = Math.max(this.maxRunNanos, runNanos);
+            this.totalWaitNanos += waitNanos;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public synchronized int getCount() {
+            return this.count;
+        }
+
+        public synchronized int getFailedCount() {
+            return this.failedCount;
+        }
+
+        public synchronized int getCancelledCount() {
+            return this.cancelledCount;
+        }
+
+        public synchronized long getTotalRunMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(this.totalRunNanos);
+        }
+
+        public synchronized long getMaxRunMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(this.maxRunNanos);
+        }
+
+        public synchronized long getTotalWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(this.totalWaitNanos);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%s: %d runs (%d failed, %d cancelled), total %d ms, max %d ms, waited %d ms",
+                    this.name, this.count, this.failedCount, this.cancelledCount, getTotalRunMillis(),
+                    getMaxRunMillis(), getTotalWaitMillis());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package jpass.xml.bind;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,6 +32,12 @@ public class Entries {
 
     protected List<Entry> entry;
 
+    /**
+     * Source of the password and notes of the entries which are loaded on
+     * demand.
+     */
+    protected Closeable detailsSource;
+
     /**
      * Gets the value of the entry property.
      *
@@ -58,4 +66,26 @@ public class Entries {
         return this.entry;
     }
 
+    /**
+     * Gets the source of the password and notes of the entries which are not
+     * loaded yet. It should be closed when the entries are discarded.
+     *
+     * @return the details source, or {@code null} if every detail is loaded
+     */
+    @JsonIgnore
+    public Closeable getDetailsSource() {
+        return detailsSource;
+    }
+
+    /**
+     * Sets the source of the password and notes of the entries which are
+     * loaded on demand.
+     *
+     * @param source the details source, can be null
+     * @see Entry#setDetailsLoader(java.util.function.Consumer)
+     */
+    @JsonIgnore
+    public void setDetailsSource(Closeable source) {
+        this.detailsSource = source;
+    }
 }
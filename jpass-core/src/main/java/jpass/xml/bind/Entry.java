@@ -0,0 +1,327 @@
+package jpass.xml.bind;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import jpass.crypt.SealedSecret;
+import jpass.util.DateUtils;
+
+/**
+ * <p>
+ * Java class for entry complex type.
+ *
+ * <p>
+ * The following schema fragment specifies the expected content contained within
+ * this class.
+ *
+ * <pre>
+ * &lt;complexType name="entry"&gt;
+ *   &lt;complexContent&gt;
+ *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType"&gt;
+ *       &lt;sequence&gt;
+ *         &lt;element name="title"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}string"&gt;
+ *               &lt;pattern value=".*\S.*"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="url" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/&gt;
+ *         &lt;element name="user" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/&gt;
+ *         &lt;element name="password" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/&gt;
+ *         &lt;element name="notes" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/&gt;
+ *         &lt;element name="creationDate" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/&gt;
+ *         &lt;element name="modificationDate" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/&gt;
+ *      &lt;/sequence&gt;
+ *     &lt;/restriction&gt;
+ *   &lt;/complexContent&gt;
+ * &lt;/complexType&gt;
+ * </pre>
+ *
+ *
+ */
+@JsonPropertyOrder({"title", "url", "user", "password", "notes", "lastModification", "creationDate"})
+public class Entry {
+
+    protected String title;
+    protected String url;
+    protected String user;
+
+    /**
+     * Password and notes are kept sealed, they are unsealed only on access.
+     */
+    protected SealedSecret sealedPassword;
+    protected SealedSecret sealedNotes;
+
+    /**
+     * Loader of password and notes, if they are stored separately and not
+     * loaded yet.
+     */
+    protected Consumer<Entry> detailsLoader;
+
+    protected String lastModification;
+    protected String creationDate;
+
+    /**
+     * Parsed dates in epoch milliseconds, which are not serialized.
+     */
+    protected long lastModificationTime;
+    protected long creationTime;
+
+    public Entry() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        this.creationDate = now.format(DateTimeFormatter.ISO_DATE_TIME);
+        this.lastModification = this.creationDate;
+        this.creationTime = now.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        this.lastModificationTime = this.creationTime;
+    }
+
+    /**
+     * Gets the value of the title property.
+     *
+     * @return possible object is {@link String}
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Sets the value of the title property.
+     *
+     * @param value allowed object is {@link String}
+     */
+    public void setTitle(String value) {
+        this.title = value;
+    }
+
+    /**
+     * Gets the value of the url property.
+     *
+     * @return possible object is {@link String}
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Sets the value of the url property.
+     *
+     * @param value allowed object is {@link String}
+     */
+    public void setUrl(String value) {
+        this.url = value;
+    }
+
+    /**
+     * Gets the value of the user property.
+     *
+     * @return possible object is {@link String}
+     */
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * Sets the value of the user property.
+     *
+     * @param value allowed object is {@link String}
+     */
+    public void setUser(String value) {
+        this.user = value;
+    }
+
+    /**
+     * Gets the unsealed value of the password property.
+     *
+     * @return possible object is {@link String}
+     */
+    public String getPassword() {
+        loadDetails();
+        return sealedPassword == null ? null : sealedPassword.unseal();
+    }
+
+    /**
+     * Seals and sets the value of the password property.
+     *
+     * @param value allowed object is {@link String}
+     */
+    public void setPassword(String value) {
+        loadDetails();
+        this.sealedPassword = SealedSecret.seal(value);
+    }
+
+    /**
+     * Gets the sealed value of the password property.
+     *
+     * @return the sealed password, or {@code null}
+     */
+    @JsonIgnore
+    public SealedSecret getSealedPassword() {
+        loadDetails();
+        return sealedPassword;
+    }
+
+    /**
+     * Sets the sealed value of the password property.
+     *
+     * @param value the sealed password
+     */
+    @JsonIgnore
+    public void setSealedPassword(SealedSecret value) {
+        this.sealedPassword = value;
+    }
+
+    /**
+     * Gets the unsealed value of the notes property.
+     *
+     * @return possible object is {@link String}
+     */
+    public String getNotes() {
+        loadDetails();
+        return sealedNotes == null ? null : sealedNotes.unseal();
+    }
+
+    /**
+     * Seals and sets the value of the notes property.
+     *
+     * @param value allowed object is {@link String}
+     */
+    public void setNotes(String value) {
+        loadDetails();
+        this.sealedNotes = SealedSecret.seal(value);
+    }
+
+    /**
+     * Gets the sealed value of the notes property.
+     *
+     * @return the sealed notes, or {@code null}
+     */
+    @JsonIgnore
+    public SealedSecret getSealedNotes() {
+        loadDetails();
+        return sealedNotes;
+    }
+
+    /**
+     * Sets the loader of password and notes, which is called on first access
+     * of these details. The loader should set them with
+     * {@link #setSealedPassword(SealedSecret)} and
+     * {@link #setSealedNotes(SealedSecret)}.
+     *
+     * @param loader the details loader
+     */
+    @JsonIgnore
+    public synchronized void setDetailsLoader(Consumer<Entry> loader) {
+        this.detailsLoader = loader;
+    }
+
+    /**
+     * Checks if password and notes are loaded.
+     *
+     * @return {@code true} if there is nothing to load
+     */
+    @JsonIgnore
+    public synchronized boolean isDetailsLoaded() {
+        return detailsLoader == null;
+    }
+
+    /**
+     * Loads password and notes, if they are not loaded yet. If the loader
+     * fails, it is kept, so loading is retried on next access.
+     */
+    public synchronized void loadDetails() {
+        if (detailsLoader != null) {
+            detailsLoader.accept(this);
+            detailsLoader = null;
+        }
+    }
+
+    /**
+     * Sets the sealed value of the notes property.
+     *
+     * @param value the sealed notes
+     */
+    @JsonIgnore
+    public void setSealedNotes(SealedSecret value) {
+        this.sealedNotes = value;
+    }
+
+    /**
+     * Gets the value of the creation date property.
+     *
+     * @return the creation date
+     */
+    public String getCreationDate() {
+        return creationDate;
+    }
+
+    /**
+     * Sets the value of the creation date property.
+     *
+     * @param date the creation date
+     */
+    public void setCreationDate(String date) {
+        this.creationDate = date;
+        this.creationTime = DateUtils.parseIsoDateTime(date);
+    }
+
+    /**
+     * Gets the parsed creation date.
+     *
+     * @return the creation date in epoch milliseconds
+     */
+    @JsonIgnore
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    /**
+     * Gets the value of the last modification property.
+     *
+     * @return the last modification date
+     */
+    public String getLastModification() {
+        return lastModification;
+    }
+
+    /**
+     * Sets the value of the last modification property.
+     *
+     * @param date the last modification date
+     */
+    public void setLastModification(String date) {
+        this.lastModification = date;
+        this.lastModificationTime = DateUtils.parseIsoDateTime(date);
+    }
+
+    /**
+     * Gets the parsed last modification date.
+     *
+     * @return the last modification date in epoch milliseconds
+     */
+    @JsonIgnore
+    public long getLastModificationTime() {
+        return lastModificationTime;
+    }
+
+    /**
+     * Replaces URL, user name and dates with the instances returned by the
+     * given function, which should return an equal string. The parsed dates
+     * are kept, so the dates are not parsed again.
+     *
+     * @param canonical returns the instance to keep for a string value, not
+     * called for {@code null} values
+     */
+    @JsonIgnore
+    public void replaceStrings(UnaryOperator<String> canonical) {
+        this.url = url == null ? null : canonical.apply(url);
+        this.user = user == null ? null : canonical.apply(user);
+        this.lastModification = lastModification == null ? null : canonical.apply(lastModification);
+        this.creationDate = creationDate == null ? null : canonical.apply(creationDate);
+    }
+}
@@ -28,6 +28,8 @@
  */
 package jpass.xml.converter;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.xml.JacksonXmlModule;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
@@ -35,6 +37,7 @@ import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.function.Consumer;
 
 /**
  * Class for conversion between objects and streams representing XMLs.
@@ -78,4 +81,30 @@ public class XmlConverter<T> {
     public T read(InputStream inputStream) throws IOException {
         return mapper.readValue(inputStream, documentClass);
     }
+
+    /**
+     * Maps the child elements of the root element of the given input stream
+     * one by one, without mapping the whole document.
+     *
+     * @param <E> the type of child elements
+     * @param inputStream the input stream
+     * @param elementClass the type of child elements
+     * @param consumer consumer of the mapped child elements, called in
+     * document order
+     * @throws IOException if any error occurred
+     */
+    public <E> void readElements(InputStream inputStream, Class<E> elementClass, Consumer<E> consumer) throws IOException {
+        JsonParser parser = mapper.getFactory().createParser(inputStream);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            // root element without child elements
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(mapper.readValue(parser, elementClass));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
 }
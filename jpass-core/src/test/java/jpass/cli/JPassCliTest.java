@@ -0,0 +1,238 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.cli;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import jpass.data.EntriesRepository;
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static jpass.data.TestEntries.createEntry;
+
+/**
+ * Unit test for {@link JPassCli}.
+ */
+class JPassCliTest {
+
+    private static final String PASSWORD = "sesame";
+
+    private String vault;
+    private ByteArrayOutputStream out;
+    private ByteArrayOutputStream err;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        vault = createTempFile();
+        out = new ByteArrayOutputStream();
+        err = new ByteArrayOutputStream();
+        Entries entries = new Entries();
+        entries.getEntry().add(createEntry("mail", null, "mail-user", "secret"));
+        entries.getEntry().add(createEntry("bank", null, "bank-user", "money"));
+        entries.getEntry().add(createEntry("webmail", null, "webmail-user", "other"));
+        EntriesRepository.newInstance(vault, PASSWORD.toCharArray()).writeDocument(entries);
+    }
+
+    @Test
+    public void shouldListTitles() {
+        // when
+        int status = run(PASSWORD, "list", vault);
+
+        // then
+        Assertions.assertEquals(JPassCli.EXIT_OK, status);
+        Assertions.assertEquals(Arrays.asList("mail", "bank", "webmail"), getOutputLines());
+    }
+
+    @Test
+    public void shouldSearchTitles() {
+        // when
+        int status = run(PASSWORD, "search", vault, "MAIL");
+
+        // then
+        Assertions.assertEquals(JPassCli.EXIT_OK, status);
+        Assertions.assertEquals(Arrays.asList("mail", "webmail"), getOutputLines());
+    }
+
+    @Test
+    public void shouldGetField() {
+        // when
+        int passwordStatus = run(PASSWORD, "get", vault, "bank");
+        int userStatus = run(PASSWORD, "get", vault, "bank", "user");
+
+        // then
+        Assertions.assertEquals(JPassCli.EXIT_OK, passwordStatus);
+        Assertions.assertEquals(JPassCli.EXIT_OK, userStatus);
+        Assertions.assertEquals(Arrays.asList("money", "bank-user"), getOutputLines());
+    }
+
+    @Test
+    public void shouldFailWithUnknownEntryOrIncorrectPassword() {
+        // when
+        int unknownStatus = run(PASSWORD, "get", vault, "unknown");
+        int incorrectStatus = run("incorrect", "list", vault);
+
+        // then
+        Assertions.assertEquals(JPassCli.EXIT_ERROR, unknownStatus);
+        Assertions.assertEquals(JPassCli.EXIT_ERROR, incorrectStatus);
+        Assertions.assertTrue(getOutputLines().isEmpty());
+    }
+
+    @Test
+    public void shouldPrintUsageOnInvalidArguments() {
+        // when
+        int noArgumentStatus = run(PASSWORD);
+        int unknownCommandStatus = run(PASSWORD, "remove", vault);
+        int unknownFieldStatus = run(PASSWORD, "get", vault, "bank", "pin");
+
+        // then
+        Assertions.assertEquals(JPassCli.EXIT_USAGE, noArgumentStatus);
+        Assertions.assertEquals(JPassCli.EXIT_USAGE, unknownCommandStatus);
+        Assertions.assertEquals(JPassCli.EXIT_USAGE, unknownFieldStatus);
+        Assertions.assertTrue(new String(err.toByteArray(), StandardCharsets.UTF_8).startsWith("Usage:"));
+    }
+
+    @Test
+    public void shouldExportAndImportEntries() throws Exception {
+        // given
+        String xml = createTempFile();
+        String otherVault = createTempFile();
+        Files.delete(new File(otherVault).toPath());
+        Entries entries = new Entries();
+        entries.getEntry().add(createEntry("bank", null, "bank-user", "changed"));
+        entries.getEntry().add(createEntry("shop", null, "shop-user", "cart"));
+        EntriesRepository.newInstance(otherVault, PASSWORD.toCharArray()).writeDocument(entries);
+
+        // when
+        int exportStatus = run(PASSWORD, "export", otherVault, xml);
+        int importStatus = run(PASSWORD, "import", vault, xml);
+
+        // then
+        Assertions.assertEquals(JPassCli.EXIT_OK, exportStatus);
+        Assertions.assertEquals(JPassCli.EXIT_OK, importStatus);
+        List<Entry> imported = EntriesRepository.newInstance(vault, PASSWORD.toCharArray()).readDocument().getEntry();
+        Assertions.assertEquals(Arrays.asList("secret", "changed", "other", "cart"),
+                imported.stream().map(Entry::getPassword).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void shouldImportIntoNewVaultWithConfirmedPassword() throws Exception {
+        // given
+        String xml = createTempFile();
+        String newVault = createTempFile();
+        Files.delete(new File(newVault).toPath());
+        run(PASSWORD, "export", vault, xml);
+
+        // when
+        int status = run(PASSWORD + "\n" + PASSWORD, "import", newVault, xml);
+
+        // then
+        Assertions.assertEquals(JPassCli.EXIT_OK, status);
+        List<Entry> imported = EntriesRepository.newInstance(newVault, PASSWORD.toCharArray()).readDocument().getEntry();
+        Assertions.assertEquals(Arrays.asList("mail", "bank", "webmail"),
+                imported.stream().map(Entry::getTitle).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void shouldNotCreateVaultWhenPasswordIsNotConfirmed() throws Exception {
+        // given
+        String xml = createTempFile();
+        String newVault = createTempFile();
+        Files.delete(new File(newVault).toPath());
+        run(PASSWORD, "export", vault, xml);
+
+        // when
+        int status = run(PASSWORD + "\nsesam", "import", newVault, xml);
+
+        // then
+        Assertions.assertEquals(JPassCli.EXIT_ERROR, status);
+        Assertions.assertFalse(new File(newVault).exists());
+        Assertions.assertTrue(new String(err.toByteArray(), StandardCharsets.UTF_8).contains("Passwords are not identical."));
+    }
+
+    @Test
+    public void shouldExportToStandardOutput() {
+        // when
+        int status = run(PASSWORD, "export", vault, "-");
+
+        // then
+        Assertions.assertEquals(JPassCli.EXIT_OK, status);
+        String xml = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        Assertions.assertTrue(xml.contains("<title>webmail</title>"));
+        Assertions.assertTrue(xml.contains("<password>other</password>"));
+    }
+
+    @Test
+    public void shouldReadEntriesFromAgentWithoutPassword() throws Exception {
+        // given
+        UnlockAgent agent = UnlockAgent.start(vault, PASSWORD.toCharArray(), 60000);
+
+        // when
+        int status;
+        try {
+            status = run("", "get", vault, "webmail");
+        } finally {
+            agent.close();
+        }
+
+        // then
+        Assertions.assertEquals(JPassCli.EXIT_OK, status);
+        Assertions.assertEquals(Arrays.asList("other"), getOutputLines());
+    }
+
+    private int run(String password, String... args) {
+        PrintStream outStream = new PrintStream(out, true);
+        JPassCli cli = new JPassCli(new BufferedReader(new StringReader(password)), outStream, new PrintStream(err, true), null);
+        int status = cli.run(args);
+        outStream.flush();
+        return status;
+    }
+
+    private List<String> getOutputLines() {
+        return Arrays.stream(new String(out.toByteArray(), StandardCharsets.UTF_8).split("\\R"))
+                .filter(line -> !line.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static String createTempFile() throws Exception {
+        File file = File.createTempFile("jpass", "temp");
+        file.deleteOnExit();
+        return file.getPath();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jpass.data.EntriesRepository;
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link UnlockAgent}.
+ */
+class UnlockAgentTest {
+
+    private static final char[] PASSWORD = "sesame".toCharArray();
+
+    private String vault;
+    private UnlockAgent agent;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        File file = File.createTempFile("jpass", "temp");
+        file.deleteOnExit();
+        vault = file.getPath();
+        writeVault("mail", "secret", "webmail", "other");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (agent != null) {
+            agent.close();
+        }
+    }
+
+    @Test
+    public void shouldServeBatchedRequests() throws Exception {
+        // given
+        agent = UnlockAgent.start(vault, PASSWORD, 60000);
+
+        // when
+        List<List<String>> responses;
+        try (AgentClient client = AgentClient.connect(vault).get()) {
+            responses = client.execute(Arrays.asList(
+                    Arrays.asList("list"),
+                    Arrays.asList("search", "web"),
+                    Arrays.asList("get", "mail", "password"),
+                    Arrays.asList("get", "unknown", "password"),
+                    Arrays.asList("remove", "mail")));
+        }
+
+        // then
+        Assertions.assertEquals(Arrays.asList("OK", "mail", "webmail"), responses.get(0));
+        Assertions.assertEquals(Arrays.asList("OK", "webmail"), responses.get(1));
+        Assertions.assertEquals(Arrays.asList("OK", "secret"), responses.get(2));
+        Assertions.assertEquals(Arrays.asList("ERROR", "Entry not found: unknown"), responses.get(3));
+        Assertions.assertEquals("ERROR", responses.get(4).get(0));
+    }
+
+    @Test
+    public void shouldReloadChangedVault() throws Exception {
+        // given
+        agent = UnlockAgent.start(vault, PASSWORD, 60000);
+        try (AgentClient client = AgentClient.connect(vault).get()) {
+            Assertions.assertEquals(Arrays.asList("OK", "secret"), client.execute("get", "mail", "password"));
+        }
+
+        // when
+        writeVault("mail", "changed password");
+        List<String> response;
+        try (AgentClient client = AgentClient.connect(vault).get()) {
+            response = client.execute("get", "mail", "password");
+        }
+
+        // then
+        Assertions.assertEquals(Arrays.asList("OK", "changed password"), response);
+    }
+
+    @Test
+    public void shouldRejectIncorrectToken() throws Exception {
+        // given
+        agent = UnlockAgent.start(vault, PASSWORD, 60000);
+        String agentFile = UnlockAgent.getAgentFileName(vault);
+        char[] token = new char[UnlockAgent.TOKEN_LENGTH];
+        Arrays.fill(token, '0');
+        Files.write(Paths.get(agentFile), Arrays.asList(String.valueOf(agent.getPort()), new String(token)), StandardCharsets.US_ASCII);
+
+        // when
+        AgentClient client = AgentClient.connect(vault).get();
+
+        // then
+        Assertions.assertThrows(IOException.class, () -> client.execute("list"));
+        client.close();
+    }
+
+    @Test
+    public void shouldStopWhenIdleOrRequested() throws Exception {
+        // given
+        agent = UnlockAgent.start(vault, PASSWORD, 100);
+        File agentFile = new File(UnlockAgent.getAgentFileName(vault));
+        Assertions.assertTrue(agentFile.exists());
+
+        // when
+        boolean idleStopped = agent.awaitTermination(10, TimeUnit.SECONDS);
+        UnlockAgent stoppedAgent = UnlockAgent.start(vault, PASSWORD, 60000);
+        try (AgentClient client = AgentClient.connect(vault).get()) {
+            Assertions.assertEquals(Arrays.asList("OK"), client.execute("stop"));
+        }
+
+        // then
+        Assertions.assertTrue(idleStopped);
+        Assertions.assertTrue(stoppedAgent.awaitTermination(10, TimeUnit.SECONDS));
+        Assertions.assertFalse(agentFile.exists());
+        Assertions.assertFalse(AgentClient.connect(vault).isPresent());
+    }
+
+    @Test
+    public void shouldNotStartWithIncorrectPassword() {
+        // when
+        Assertions.assertThrows(IOException.class, () -> UnlockAgent.start(vault, "incorrect".toCharArray(), 60000));
+
+        // then
+        Assertions.assertFalse(new File(UnlockAgent.getAgentFileName(vault)).exists());
+    }
+
+    private void writeVault(String... titlesAndPasswords) throws Exception {
+        Entries entries = new Entries();
+        for (int index = 0; index < titlesAndPasswords.length; index += 2) {
+            Entry entry = new Entry();
+            entry.setTitle(titlesAndPasswords[index]);
+            entry.setPassword(titlesAndPasswords[index + 1]);
+            entries.getEntry().add(entry);
+        }
+        EntriesRepository.newInstance(vault, PASSWORD).writeDocument(entries);
+    }
+}
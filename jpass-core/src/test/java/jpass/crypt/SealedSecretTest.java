@@ -0,0 +1,81 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.crypt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link SealedSecret}.
+ */
+class SealedSecretTest {
+
+    @Test
+    public void shouldUnsealSealedValue() {
+        // given
+        String value = "Don't tell Marge, árvíztűrő tükörfúrógép, a longer note of several blocks";
+
+        // when
+        SealedSecret sealed = SealedSecret.seal(value);
+
+        // then
+        Assertions.assertEquals(value, sealed.unseal());
+        Assertions.assertFalse(sealed.isEmpty());
+    }
+
+    @Test
+    public void shouldNotShareBuffersWithCaller() {
+        // given
+        byte[] plain = "doh".getBytes(StandardCharsets.UTF_8);
+        SealedSecret sealed = SealedSecret.seal(plain);
+
+        // when
+        byte[] unsealed = sealed.unsealBytes();
+        Arrays.fill(unsealed, (byte) 0);
+        Arrays.fill(plain, (byte) 0);
+
+        // then
+        Assertions.assertEquals("doh", sealed.unseal());
+    }
+
+    @Test
+    public void shouldSealEmptyAndNullValues() {
+        // when
+        SealedSecret empty = SealedSecret.seal("");
+        SealedSecret none = SealedSecret.seal((String) null);
+
+        // then
+        Assertions.assertTrue(empty.isEmpty());
+        Assertions.assertEquals("", empty.unseal());
+        Assertions.assertNull(none);
+    }
+}
@@ -56,4 +56,36 @@ public class CryptIOStreamTest {
         Assertions.assertEquals(plain.length, decrypted.toByteArray().length);
         Assertions.assertTrue(Arrays.equals(plain, decrypted.toByteArray()));
     }
+
+    /**
+     * A random message will be encrypted and decrypted in chunks.
+     */
+    @Test
+    public void shouldDecryptAnEncryptedRandomMessageInChunks() throws IOException {
+        byte[] key = new byte[32];
+        Random rnd = new Random();
+        rnd.nextBytes(key);
+
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        CryptOutputStream output = new CryptOutputStream(encrypted, key);
+
+        byte[] plain = new byte[DATA_SIZE * 100];
+        rnd.nextBytes(plain);
+
+        output.write(plain);
+        output.close();
+
+        CryptInputStream decrypter = new CryptInputStream(new ByteArrayInputStream(encrypted.toByteArray()), key);
+        ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+
+        byte[] chunk = new byte[DATA_SIZE - 1];
+        int read;
+        while ((read = decrypter.read(chunk, 0, chunk.length)) >= 0) {
+            decrypted.write(chunk, 0, read);
+        }
+        decrypted.close();
+        decrypter.close();
+
+        Assertions.assertTrue(Arrays.equals(plain, decrypted.toByteArray()));
+    }
 }
@@ -0,0 +1,400 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DataModelTest {
+
+    public DataModel dataModel;
+    public List<String> events;
+    public DataModelListener listener;
+
+    @BeforeEach
+    public void setup() {
+        dataModel = DataModel.getInstance();
+        dataModel.clear();
+        dataModel.setFileName("File");
+
+        Entry entry = new Entry();
+        entry.setTitle("EntryTest");
+        entry.setUser("UserTest");
+        dataModel.addEntry(entry);
+
+        char[] pass = new char[]{'t', 'e', 's', 't'};
+        dataModel.setPassword(pass);
+
+        events = new ArrayList<>();
+        listener = new DataModelListener() {
+            @Override
+            public void entryInserted(int index, Entry entry) {
+                events.add("inserted " + index + " " + entry.getTitle());
+            }
+
+            @Override
+            public void entryRemoved(int index, Entry entry) {
+                events.add("removed " + index + " " + entry.getTitle());
+            }
+
+            @Override
+            public void entryUpdated(int index, Entry oldEntry, Entry newEntry) {
+                events.add("updated " + index + " " + oldEntry.getTitle() + " " + newEntry.getTitle());
+            }
+
+            @Override
+            public void entriesChanged() {
+                events.add("changed");
+            }
+
+            @Override
+            public void searchIndexChanged() {
+                events.add("index");
+            }
+        };
+        dataModel.addDataModelListener(listener);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dataModel.removeDataModelListener(listener);
+    }
+
+    @Test
+    public void getEntriesTest() {
+        assertEquals(1, dataModel.getEntries().getEntry().size());
+    }
+
+    @Test
+    public void setEntriesTest() {
+        Entries entries = new Entries();
+        Entry entry = new Entry();
+        entry.setTitle("EntryTest");
+        entry.setUser("UserTest");
+        Entry entry2 = new Entry();
+
+        entries.getEntry().add(entry);
+        entries.getEntry().add(entry2);
+
+        dataModel.setEntries(entries);
+
+        assertEquals(2, dataModel.getEntries().getEntry().size());
+    }
+
+    @Test
+    public void getFileNameTest() {
+        String expectedResult = "File";
+        assertEquals(expectedResult, dataModel.getFileName());
+    }
+
+    @Test
+    public void setFileNameTest() {
+        dataModel.setFileName("NewFile");
+        String expectedResult = "NewFile";
+        assertEquals(expectedResult, dataModel.getFileName());
+    }
+
+    @Test
+    public void isModifiedTest() {
+        Boolean expectedResult = false;
+        assertEquals(expectedResult, dataModel.isModified());
+    }
+
+    @Test
+    public void setModifiedTest() {
+        dataModel.setModified(true);
+        Boolean expectedResult = true;
+        assertEquals(expectedResult, dataModel.isModified());
+    }
+
+    @Test
+    public void getPasswordTest() {
+        assertNotNull(dataModel.getPassword());
+    }
+
+    @Test
+    public void setPasswordTest() {
+        char[] previousPassword = dataModel.getPassword();
+        dataModel.setPassword(new char[]{'t', 'e', 's', 't', 's'});
+
+        assertNotEquals(previousPassword, dataModel.getPassword());
+    }
+
+    @Test
+    public void clearTest() {
+        dataModel.clear();
+        assertArrayEquals(null, dataModel.getPassword());
+    }
+
+    @Test
+    public void getTitlesTest() {
+        List<String> result = dataModel.getTitles();
+        assertNotNull("EntryTest", result.get(0));
+    }
+
+    @Test
+    public void getEntryByTitleTest() {
+        Entry result = dataModel.getEntryByTitle("EntryTest");
+        assertNotNull("UserTest", result.getUser());
+    }
+
+    @Test
+    public void getEntryByTitleInvalidTitleTest() {
+        Entry result = dataModel.getEntryByTitle("EntryT");
+        assertNull(result);
+    }
+
+    @Test
+    public void getEntriesShouldBeUnmodifiable() {
+        List<Entry> entryList = dataModel.getEntries().getEntry();
+
+        assertThrows(UnsupportedOperationException.class, () -> entryList.add(new Entry()));
+        assertThrows(UnsupportedOperationException.class, () -> entryList.remove(0));
+        assertEquals(1, dataModel.getEntries().getEntry().size());
+    }
+
+    @Test
+    public void addEntryTest() {
+        Entry entry = new Entry();
+        entry.setTitle("Added");
+
+        dataModel.addEntry(entry);
+
+        assertEquals(2, dataModel.getEntries().getEntry().size());
+        assertSame(entry, dataModel.getEntries().getEntry().get(1));
+        assertEquals(Arrays.asList("inserted 1 Added"), events);
+    }
+
+    @Test
+    public void addEntriesTest() {
+        Entry entry = new Entry();
+        entry.setTitle("Added");
+        Entry entry2 = new Entry();
+        entry2.setTitle("Added2");
+
+        dataModel.addEntries(Arrays.asList(entry, entry2));
+
+        assertEquals(3, dataModel.getEntries().getEntry().size());
+        assertSame(entry2, dataModel.getEntries().getEntry().get(2));
+        assertEquals(Arrays.asList("changed"), events);
+    }
+
+    @Test
+    public void removeEntryTest() {
+        Entry entry = dataModel.getEntryByTitle("EntryTest");
+
+        assertTrue(dataModel.removeEntry(entry));
+
+        assertTrue(dataModel.getEntries().getEntry().isEmpty());
+        assertEquals(Arrays.asList("removed 0 EntryTest"), events);
+    }
+
+    @Test
+    public void removeEntryNotFoundTest() {
+        assertFalse(dataModel.removeEntry(new Entry()));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void updateEntryTest() {
+        Entry oldEntry = dataModel.getEntryByTitle("EntryTest");
+        Entry newEntry = new Entry();
+        newEntry.setTitle("Updated");
+
+        assertTrue(dataModel.updateEntry(oldEntry, newEntry));
+
+        assertEquals(1, dataModel.getEntries().getEntry().size());
+        assertSame(newEntry, dataModel.getEntries().getEntry().get(0));
+        assertEquals(Arrays.asList("updated 0 EntryTest Updated"), events);
+    }
+
+    @Test
+    public void setEntriesEventTest() {
+        dataModel.setEntries(new Entries());
+        dataModel.clear();
+
+        assertEquals(Arrays.asList("changed", "changed"), events);
+    }
+
+    @Test
+    public void snapshotTest() {
+        DataModel.Snapshot snapshot = dataModel.getSnapshot();
+        Entry entry = new Entry();
+        entry.setTitle("Added");
+
+        dataModel.addEntry(entry);
+        dataModel.removeEntry(dataModel.getEntryByTitle("EntryTest"));
+        dataModel.setFileName("Other");
+        dataModel.setModified(true);
+
+        assertEquals(Arrays.asList("EntryTest"), snapshot.getTitles());
+        assertEquals("File", snapshot.getFileName());
+        assertFalse(snapshot.isModified());
+        assertEquals(Arrays.asList("Added"), dataModel.getSnapshot().getTitles());
+        assertEquals("Other", dataModel.getSnapshot().getFileName());
+        assertTrue(dataModel.getSnapshot().isModified());
+    }
+
+    @Test
+    public void setEntriesCopiesListTest() {
+        Entries entries = new Entries();
+        entries.getEntry().add(new Entry());
+
+        dataModel.setEntries(entries);
+        entries.getEntry().add(new Entry());
+
+        assertEquals(1, dataModel.getEntries().getEntry().size());
+    }
+
+    @Test
+    public void markSavedTest() {
+        dataModel.setModified(true);
+        DataModel.Snapshot snapshot = dataModel.getSnapshot();
+
+        assertTrue(dataModel.markSaved(snapshot, "Saved", new char[]{'p'}));
+
+        assertFalse(dataModel.isModified());
+        assertEquals("Saved", dataModel.getFileName());
+        assertArrayEquals(new char[]{'p'}, dataModel.getPassword());
+    }
+
+    @Test
+    public void markSavedModifiedSinceSnapshotTest() {
+        dataModel.setModified(true);
+        DataModel.Snapshot snapshot = dataModel.getSnapshot();
+        dataModel.addEntry(new Entry());
+
+        assertFalse(dataModel.markSaved(snapshot, "Saved", null));
+
+        assertTrue(dataModel.isModified());
+        assertEquals("Saved", dataModel.getFileName());
+    }
+
+    @Test
+    public void concurrentReadersTest() throws Exception {
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 1000; i++) {
+                Entry entry = new Entry();
+                entry.setTitle("Entry" + i);
+                dataModel.addEntry(entry);
+            }
+        });
+        writer.start();
+        int previousSize = 0;
+        while (writer.isAlive()) {
+            List<Entry> entryList = dataModel.getSnapshot().getEntryList();
+            int size = entryList.size();
+            // iterating over a snapshot never fails while the writer is running
+            assertEquals(size, entryList.stream().count());
+            assertTrue(size >= previousSize);
+            previousSize = size;
+        }
+        writer.join();
+
+        assertEquals(1001, dataModel.getEntries().getEntry().size());
+    }
+
+    @Test
+    public void setSearchIndexTest() {
+        DataModel.Snapshot snapshot = dataModel.getSnapshot();
+        TrigramIndex index = TrigramIndex.build(snapshot.getEntryList());
+
+        assertTrue(dataModel.setSearchIndex(snapshot, index));
+        dataModel.setModified(true);
+
+        assertSame(index, dataModel.getSnapshot().getSearchIndex());
+        assertEquals(Arrays.asList("index"), events);
+    }
+
+    @Test
+    public void setSearchIndexOfChangedEntriesTest() {
+        DataModel.Snapshot snapshot = dataModel.getSnapshot();
+        TrigramIndex index = TrigramIndex.build(snapshot.getEntryList());
+        dataModel.setSearchIndex(snapshot, index);
+
+        dataModel.addEntry(new Entry());
+
+        assertNull(dataModel.getSnapshot().getSearchIndex());
+        assertFalse(dataModel.setSearchIndex(snapshot, index));
+        assertNull(dataModel.getSnapshot().getSearchIndex());
+    }
+
+    @Test
+    public void closeDetailsSourceOfReplacedEntriesTest() {
+        AtomicInteger closed = new AtomicInteger();
+        Closeable source = closed::incrementAndGet;
+        Entries entries = new Entries();
+        entries.getEntry().add(new Entry());
+        entries.setDetailsSource(source);
+        dataModel.setEntries(entries);
+
+        dataModel.addEntry(new Entry());
+        dataModel.setEntries(dataModel.getEntries());
+
+        assertSame(source, dataModel.getEntries().getDetailsSource());
+        assertEquals(0, closed.get());
+
+        dataModel.setEntries(new Entries());
+
+        assertNull(dataModel.getEntries().getDetailsSource());
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void closeDetailsSourceOnClearTest() {
+        AtomicInteger closed = new AtomicInteger();
+        Entries entries = new Entries();
+        entries.setDetailsSource(closed::incrementAndGet);
+        dataModel.setEntries(entries);
+
+        dataModel.clear();
+
+        assertNull(dataModel.getEntries().getDetailsSource());
+        assertEquals(1, closed.get());
+    }
+}
@@ -0,0 +1,483 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import jpass.util.DateUtils;
+import jpass.util.TaskExecutor;
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link EntriesRepository}.
+ *
+ * @author Gabor Bata
+ */
+class EntriesRepositoryTest {
+
+    private static final String TITLE = "Duff Beer Webshop";
+    private static final String URL = "http://duffbeer.com";
+    private static final String USER = "homer";
+    private static final String PASSWORD = "doh";
+    private static final String NOTES = "Don't tell Marge";
+
+    private String filePath;
+    private char[] correctKey;
+    private char[] incorrectKey;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        File tempFile = File.createTempFile("jpass", "temp");
+        tempFile.deleteOnExit();
+        filePath = tempFile.getPath();
+
+        correctKey = "sesame".toCharArray();
+        incorrectKey = "doh".toCharArray();
+    }
+
+    @Test
+    public void shouldWriteAndReadEncryptedFileWithCorrectPassword() throws DocumentProcessException, IOException {
+        // given
+        Entries expectedEntries = createEntries();
+        EntriesRepository.newInstance(filePath, correctKey).writeDocument(expectedEntries);
+
+        // when
+        Entries readEntries = EntriesRepository.newInstance(filePath, correctKey).readDocument();
+
+        // then
+        assertEquals(expectedEntries, readEntries);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenReadingDocumentWithIncorrectKey() throws DocumentProcessException, IOException {
+        // given
+        EntriesRepository.newInstance(filePath, correctKey).writeDocument(createEntries());
+
+        // when
+        Assertions.assertThrows(IOException.class,
+                () -> EntriesRepository.newInstance(filePath, incorrectKey).readDocument());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenReadingDocumentWithInvalidFormat() throws DocumentProcessException, IOException {
+        // given
+        try ( FileWriter writer = new FileWriter(filePath)) {
+            writer.append("invalid content");
+        } catch (Exception e) {
+            Assertions.fail("could not prepare test data");
+        }
+
+        // when
+        Assertions.assertThrows(IOException.class,
+                () -> EntriesRepository.newInstance(filePath, correctKey).readDocument());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenReadingDocumentWithNonExistingFile() throws DocumentProcessException, IOException {
+        // given
+        EntriesRepository entriesRepository = EntriesRepository.newInstance("not_existing_path", correctKey);
+
+        // when
+        Assertions.assertThrows(FileNotFoundException.class,
+                () -> entriesRepository.readDocument());
+    }
+
+    @Test
+    public void shouldBeAbleToWriteAndReadUnencryptedFile() throws DocumentProcessException, IOException {
+        // given
+        Entries expectedEntries = createEntries();
+        EntriesRepository.newInstance(filePath).writeDocument(expectedEntries);
+
+        // when
+        Entries readEntries = EntriesRepository.newInstance(filePath).readDocument();
+
+        // then
+        assertEquals(expectedEntries, readEntries);
+    }
+
+    @Test
+    public void shouldNotBeAbleToReadEncryptedFileWithoutKey() throws DocumentProcessException, IOException {
+        // given
+        EntriesRepository.newInstance(filePath, correctKey).writeDocument(createEntries());
+
+        // when
+        Assertions.assertThrows(IOException.class,
+                () -> EntriesRepository.newInstance(filePath).readDocument());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenReadingUnencryptedDocumentWithInvalidFormat() throws DocumentProcessException, IOException {
+        // given
+        try ( FileWriter writer = new FileWriter(filePath)) {
+            writer.append("invalid content");
+        } catch (Exception e) {
+            Assertions.fail("could not prepare test data");
+        }
+
+        // when
+        Assertions.assertThrows(IOException.class,
+                () -> EntriesRepository.newInstance(filePath).readDocument());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenReadingUnecrypredDocumentWithNonExistingFile() throws DocumentProcessException, IOException {
+        // given
+        EntriesRepository entriesRepository = EntriesRepository.newInstance("not_existing_path");
+
+        // when
+        Assertions.assertThrows(FileNotFoundException.class,
+                () -> entriesRepository.readDocument());
+    }
+
+    @Test
+    public void shouldBeAbleToReadEntriesFromFileVersion0() throws DocumentProcessException, IOException {
+        // given
+        Entries expectedEntries = createEntries();
+
+        // when
+        Entries readEntries = EntriesRepository.newInstance("src/test/resources/jpass-test-v0.jpass", correctKey).readDocument();
+
+        // then
+        assertEquals(expectedEntries, readEntries);
+    }
+
+    @Test
+    public void shouldBeAbleToReadEntriesFromFileVersion1() throws DocumentProcessException, IOException {
+        // given
+        Entries expectedEntries = createEntries();
+
+        // when
+        Entries readEntries = EntriesRepository.newInstance("src/test/resources/jpass-test-v1.jpass", correctKey).readDocument();
+
+        // then
+        assertEquals(expectedEntries, readEntries);
+    }
+
+    @Test
+    public void shouldBeAbleToImportEntriesFromFile() throws DocumentProcessException, IOException {
+        // given
+        Entries expectedEntries = createEntries();
+
+        // when
+        Entries readEntries = EntriesRepository.newInstance("src/test/resources/jpass-test.xml").readDocument();
+
+        // then
+        assertEquals(expectedEntries, readEntries);
+    }
+
+    @Test
+    public void shouldParseEntryDatesWithoutSerializingThem() throws DocumentProcessException, IOException {
+        // given
+        Entries entries = EntriesRepository.newInstance("src/test/resources/jpass-test.xml").readDocument();
+
+        // when
+        EntriesRepository.newInstance(filePath).writeDocument(entries);
+        String document = new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8);
+
+        // then
+        Entry entry = entries.getEntry().get(0);
+        Assertions.assertEquals(DateUtils.parseIsoDateTime("2022-09-19T11:13:30"), entry.getLastModificationTime());
+        Assertions.assertEquals(DateUtils.parseIsoDateTime("2022-09-19T11:13:30"), entry.getCreationTime());
+        Assertions.assertTrue(document.contains("<lastModification>2022-09-19T11:13:30</lastModification>"));
+        Assertions.assertFalse(document.contains("Time>"));
+    }
+
+    @Test
+    public void shouldDeduplicateStringsAndKeepParsedDates() {
+        // given
+        Entries entries = createEntries();
+        entries.getEntry().add(createEntry());
+        for (Entry entry : entries.getEntry()) {
+            entry.setLastModification(new String("2022-09-19T11:13:30"));
+            entry.setCreationDate(new String("2022-09-19T11:13:30"));
+        }
+        Entry first = entries.getEntry().get(0);
+        Entry second = entries.getEntry().get(1);
+        long time = first.getLastModificationTime();
+
+        // when
+        EntriesRepository.deduplicateStrings(entries);
+
+        // then
+        Assertions.assertSame(first.getLastModification(), second.getLastModification());
+        Assertions.assertSame(first.getLastModification(), second.getCreationDate());
+        Assertions.assertEquals(URL, second.getUrl());
+        Assertions.assertEquals(time, second.getLastModificationTime());
+        Assertions.assertEquals(time, second.getCreationTime());
+    }
+
+    @Test
+    public void shouldWriteSealedDetailsInSchemaOrder() throws DocumentProcessException, IOException {
+        // given
+        Entries entries = createEntries();
+
+        // when
+        EntriesRepository.newInstance(filePath).writeDocument(entries);
+        String document = new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8);
+
+        // then
+        int user = document.indexOf("<user>homer</user>");
+        int password = document.indexOf("<password>doh</password>");
+        int notes = document.indexOf("<notes>Don't tell Marge</notes>");
+        int lastModification = document.indexOf("<lastModification>");
+        Assertions.assertTrue(user != -1 && user < password && password < notes && notes < lastModification);
+        Assertions.assertFalse(document.contains("sealed"));
+    }
+
+    @Test
+    public void shouldReadEntriesInBatches() throws DocumentProcessException, IOException {
+        // given
+        Entries entries = createEntries();
+        entries.getEntry().add(createEntry());
+        entries.getEntry().add(createEntry());
+        EntriesRepository.newInstance(filePath, correctKey).writeDocument(entries);
+        List<List<Entry>> batches = new ArrayList<>();
+
+        // when
+        EntriesRepository.newInstance(filePath, correctKey).readEntries(2, batches::add);
+
+        // then
+        Assertions.assertEquals(2, batches.size());
+        Assertions.assertEquals(2, batches.get(0).size());
+        Assertions.assertEquals(1, batches.get(1).size());
+        assertEquals(createEntry(), batches.get(1).get(0));
+    }
+
+    @Test
+    public void shouldNotReadBatchFromEmptyDocument() throws DocumentProcessException, IOException {
+        // given
+        EntriesRepository.newInstance(filePath).writeDocument(new Entries());
+        List<List<Entry>> batches = new ArrayList<>();
+
+        // when
+        EntriesRepository.newInstance(filePath).readEntries(2, batches::add);
+
+        // then
+        Assertions.assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    public void shouldExportDocumentWithProgress() throws DocumentProcessException, IOException {
+        // given
+        Entries expectedEntries = createEntries();
+        List<Long> progress = new ArrayList<>();
+
+        // when
+        EntriesRepository.newInstance(filePath).exportDocument(expectedEntries, progress::add);
+
+        // then
+        long fileSize = new File(filePath).length();
+        Assertions.assertEquals(Arrays.asList(fileSize), progress);
+        assertEquals(expectedEntries, EntriesRepository.newInstance(filePath).readDocument());
+        File[] temporaryFiles = new File(filePath).getAbsoluteFile().getParentFile()
+                .listFiles((dir, name) -> name.startsWith(new File(filePath).getName()) && name.endsWith(".tmp"));
+        Assertions.assertEquals(0, temporaryFiles.length);
+    }
+
+    @Test
+    public void shouldNotReplaceFileWhenExportFails() throws DocumentProcessException, IOException {
+        // given
+        Files.write(Paths.get(filePath), "original".getBytes(StandardCharsets.UTF_8));
+        Entries entries = createEntries();
+        entries.getEntry().get(0).setDetailsLoader(entry -> {
+            throw new UncheckedIOException(new IOException("file changed"));
+        });
+
+        // when
+        Assertions.assertThrows(DocumentProcessException.class,
+                () -> EntriesRepository.newInstance(filePath).exportDocument(entries, null));
+
+        // then
+        Assertions.assertEquals("original", new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldKeepFileWhenSaveIsCancelled() throws Exception {
+        // given
+        EntriesRepository.newInstance(filePath, correctKey).writeDocument(createEntries());
+        byte[] original = Files.readAllBytes(Paths.get(filePath));
+
+        // when
+        FutureTask<Void> save = cancelSave(createEntriesWithLongNotes(2000));
+
+        // then
+        Assertions.assertTrue(save.isCancelled());
+        Assertions.assertArrayEquals(original, Files.readAllBytes(Paths.get(filePath)));
+        assertEquals(createEntries(), EntriesRepository.newInstance(filePath, correctKey).readDocument());
+        String tempFilePrefix = new File(filePath).getName();
+        Assertions.assertEquals(0, new File(filePath).getParentFile()
+                .list((dir, name) -> name.startsWith(tempFilePrefix) && name.endsWith(".tmp")).length);
+    }
+
+    @Test
+    public void shouldStopPipelineStagesWhenSaveIsCancelled() throws Exception {
+        // given
+        Assumptions.assumeTrue(Runtime.getRuntime().availableProcessors() > 1, "Saves are pipelined on multiple processors only");
+        System.setProperty("jpass.pipelined.save.min.entry.count", "1");
+
+        // when
+        FutureTask<Void> save;
+        try {
+            // more data than the buffers of the stages can hold
+            save = cancelSave(createEntriesWithLongNotes(10000));
+        } finally {
+            System.clearProperty("jpass.pipelined.save.min.entry.count");
+        }
+
+        // then
+        Assertions.assertTrue(save.isCancelled());
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().matches("JPass-(write|encrypt|deflate)")) {
+                thread.join(5000);
+                Assertions.assertFalse(thread.isAlive(), thread.getName());
+            }
+        }
+    }
+
+    /**
+     * Starts saving the entries on the task executor, and cancels the save
+     * while the file is being written.
+     *
+     * @param entries the entries to save
+     * @return the cancelled save, which has finished
+     * @throws Exception if waiting for the save failed
+     */
+    private FutureTask<Void> cancelSave(Entries entries) throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        FutureTask<Void> save = new FutureTask<>(() -> {
+            try {
+                EntriesRepository.newInstance(filePath, correctKey).writeDocument(entries, written -> {
+                    writing.countDown();
+                    try {
+                        cancelled.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } finally {
+                finished.countDown();
+            }
+            return null;
+        });
+        TaskExecutor.Task task = TaskExecutor.getInstance().submit("save", save, 0);
+        Assertions.assertTrue(writing.await(10, TimeUnit.SECONDS));
+        task.cancel();
+        cancelled.countDown();
+        Assertions.assertTrue(finished.await(10, TimeUnit.SECONDS));
+        return save;
+    }
+
+    private Entries createEntriesWithLongNotes(int count) {
+        Entries entries = new Entries();
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            Entry entry = createEntry();
+            entry.setNotes(new BigInteger(4096, random).toString(36));
+            entries.getEntry().add(entry);
+        }
+        return entries;
+    }
+
+    @Test
+    public void shouldReportProgressOfWritingDocument() throws DocumentProcessException, IOException {
+        // given
+        List<Long> progress = new ArrayList<>();
+
+        // when
+        EntriesRepository.newInstance(filePath, correctKey).writeDocument(createEntries(), progress::add);
+
+        // then
+        Assertions.assertEquals(Arrays.asList(new File(filePath).length()), progress);
+    }
+
+    @Test
+    public void shouldReportProgressOfReadingEntries() throws DocumentProcessException, IOException {
+        // given
+        EntriesRepository.newInstance(filePath).writeDocument(createEntries());
+        List<Long> progress = new ArrayList<>();
+        List<Entry> entries = new ArrayList<>();
+
+        // when
+        EntriesRepository.newInstance(filePath).readEntries(Integer.MAX_VALUE, entries::addAll, progress::add);
+
+        // then
+        Assertions.assertEquals(1, entries.size());
+        Assertions.assertEquals(Arrays.asList(0L), progress);
+    }
+
+    private Entries createEntries() {
+        Entries entries = new Entries();
+        entries.getEntry().add(createEntry());
+        return entries;
+    }
+
+    private Entry createEntry() {
+        Entry entry = new Entry();
+        entry.setTitle(TITLE);
+        entry.setUrl(URL);
+        entry.setUser(USER);
+        entry.setPassword(PASSWORD);
+        entry.setNotes(NOTES);
+        return entry;
+    }
+
+    private void assertEquals(Entries expectedEntries, Entries actualEntries) {
+        Assertions.assertEquals(expectedEntries.getEntry().size(), actualEntries.getEntry().size(), 1);
+        assertEquals(expectedEntries.getEntry().iterator().next(), actualEntries.getEntry().iterator().next());
+    }
+
+    private void assertEquals(Entry expectedEntry, Entry actualEntry) {
+        Assertions.assertEquals(expectedEntry.getTitle(), actualEntry.getTitle());
+        Assertions.assertEquals(expectedEntry.getUrl(), actualEntry.getUrl());
+        Assertions.assertEquals(expectedEntry.getUser(), actualEntry.getUser());
+        Assertions.assertEquals(expectedEntry.getPassword(), actualEntry.getPassword());
+        Assertions.assertEquals(expectedEntry.getNotes(), actualEntry.getNotes());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Memory benchmark which compares the retained size of entries as loaded
+ * (baseline) and after the string deduplication done on load, see
+ * {@link EntriesRepository#deduplicateStrings(Entries)}.
+ *
+ * <p>
+ * Run with the test classpath, the optional argument is the number of
+ * entries:
+ * </p>
+ * <pre>
+ * java -cp target/classes:target/test-classes:jol-core.jar jpass.data.EntryMemoryBenchmark 100000
+ * </pre>
+ */
+public final class EntryMemoryBenchmark {
+
+    private static final int DEFAULT_ENTRY_COUNT = 100_000;
+    private static final int HOST_COUNT = 200;
+    private static final int USER_COUNT = 50;
+
+    private EntryMemoryBenchmark() {
+        // benchmark runner
+    }
+
+    public static void main(String[] args) {
+        int entryCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ENTRY_COUNT;
+
+        Entries entries = new Entries();
+        entries.getEntry().addAll(createEntries(entryCount));
+        long baselineSize = print("Baseline entries", entries, entryCount);
+
+        EntriesRepository.deduplicateStrings(entries);
+        long deduplicatedSize = print("Deduplicated entries", entries, entryCount);
+
+        System.out.printf("%-35s %,15d bytes %,10.1f %%%n", "Saved by deduplication", baselineSize - deduplicatedSize,
+                100.0 * (baselineSize - deduplicatedSize) / baselineSize);
+    }
+
+    /**
+     * Creates entries with new string instances for every detail, as the XML
+     * parser does.
+     *
+     * @param entryCount number of entries
+     * @return list of entries
+     */
+    private static List<Entry> createEntries(int entryCount) {
+        List<Entry> entries = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            Entry entry = new Entry();
+            entry.setTitle(new String("Corporate account " + i));
+            entry.setUrl(new String("https://app" + (i % HOST_COUNT) + ".intranet.example.com/login"));
+            entry.setUser(new String("user" + (i % USER_COUNT) + "@example.com"));
+            entry.setPassword(new String(Long.toHexString(Double.doubleToLongBits(Math.random()))));
+            entry.setNotes(new String(""));
+            entry.setLastModification(new String("2022-09-19T11:13:" + (10 + i % 50)));
+            entry.setCreationDate(new String("2022-09-19T11:13:30"));
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static long print(String name, Object root, int entryCount) {
+        long totalSize = GraphLayout.parseInstance(root).totalSize();
+        System.out.printf("%-35s %,15d bytes %,10d bytes/entry%n", name, totalSize, totalSize / entryCount);
+        return totalSize;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import jpass.xml.bind.Entry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static jpass.data.TestEntries.createEntry;
+import static jpass.data.TestEntries.titles;
+
+/**
+ * Unit test for {@link EntrySearch}.
+ */
+class EntrySearchTest {
+
+    private EntrySearch search;
+
+    @BeforeEach
+    public void setup() {
+        search = new EntrySearch(Arrays.asList(
+                createEntry("GitLab"),
+                createEntry("bank"),
+                createEntry("GitHub"),
+                createEntry("Amazon")));
+    }
+
+    @Test
+    public void shouldReturnAllEntriesOrderedByTitleWhenCriteriaIsEmpty() {
+        // when
+        List<Entry> result = search.search("");
+
+        // then
+        Assertions.assertEquals(Arrays.asList("Amazon", "bank", "GitHub", "GitLab"), titles(result));
+        Assertions.assertEquals(4, search.getEntryCount());
+    }
+
+    @Test
+    public void shouldReturnAllEntriesWhenCriteriaIsNull() {
+        // when
+        List<Entry> result = search.search(null);
+
+        // then
+        Assertions.assertEquals(4, result.size());
+    }
+
+    @Test
+    public void shouldFindEntriesCaseInsensitively() {
+        // when
+        List<Entry> result = search.search("GIT");
+
+        // then
+        Assertions.assertEquals(Arrays.asList("GitHub", "GitLab"), titles(result));
+    }
+
+    @Test
+    public void shouldReturnEmptyListWhenNothingMatches() {
+        // when
+        List<Entry> result = search.search("duff");
+
+        // then
+        Assertions.assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void shouldCancelSearchWhenThreadIsInterrupted() {
+        // given
+        Thread.currentThread().interrupt();
+
+        // when
+        try {
+            Assertions.assertThrows(CancellationException.class, () -> search.search("git"));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void shouldReturnCachedResultForRepeatedSearch() {
+        // given
+        List<Entry> firstResult = search.search("git");
+
+        // when
+        List<Entry> secondResult = search.search("GIT");
+
+        // then
+        Assertions.assertSame(firstResult, secondResult);
+        Assertions.assertSame(firstResult, search.getCachedResult("Git").get());
+    }
+
+    @Test
+    public void shouldNarrowPreviousResultWhenCriteriaIsExtended() {
+        // given
+        search.search("git");
+
+        // when
+        List<Entry> result = search.search("gith");
+
+        // then
+        Assertions.assertEquals(Arrays.asList("GitHub"), titles(result));
+        Assertions.assertEquals(Arrays.asList("GitHub", "GitLab"), titles(search.getCachedResult("git").get()));
+    }
+
+    @Test
+    public void shouldNotReturnCachedResultForNewCriteria() {
+        // when
+        search.search("git");
+
+        // then
+        Assertions.assertFalse(search.getCachedResult("gith").isPresent());
+        Assertions.assertEquals(4, search.getCachedResult("").get().size());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedResults() {
+        // given
+        List<Entry> firstResult = search.search("a");
+
+        // when
+        for (int i = 0; i < 20; i++) {
+            search.search("x" + i);
+        }
+
+        // then
+        Assertions.assertFalse(search.getCachedResult("a").isPresent());
+        Assertions.assertNotSame(firstResult, search.search("a"));
+    }
+
+    @Test
+    public void shouldFindSameEntriesWithIndex() {
+        // given
+        List<Entry> entries = Arrays.asList(
+                createEntry("GitLab"),
+                createEntry("bank"),
+                createEntry("GitHub"),
+                createEntry("Amazon"),
+                createEntry("github enterprise"));
+        EntrySearch indexedSearch = new EntrySearch(entries, TrigramIndex.build(entries));
+
+        // when
+        List<Entry> result = indexedSearch.search("GITH");
+        List<Entry> shortCriteriaResult = indexedSearch.search("a");
+
+        // then
+        Assertions.assertEquals(Arrays.asList("GitHub", "github enterprise"), titles(result));
+        Assertions.assertEquals(Arrays.asList("Amazon", "bank", "GitLab"), titles(shortCriteriaResult));
+        Assertions.assertTrue(indexedSearch.search("xyz").isEmpty());
+    }
+
+    @Test
+    public void shouldIgnoreIndexOfOtherEntries() {
+        // given
+        List<Entry> entries = Arrays.asList(createEntry("GitLab"), createEntry("GitHub"));
+        EntrySearch indexedSearch = new EntrySearch(entries, TrigramIndex.build(Arrays.asList(createEntry("GitLab"))));
+
+        // when
+        List<Entry> result = indexedSearch.search("git");
+
+        // then
+        Assertions.assertEquals(Arrays.asList("GitHub", "GitLab"), titles(result));
+    }
+}
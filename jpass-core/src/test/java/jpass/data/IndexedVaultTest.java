@@ -0,0 +1,270 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link IndexedVault}.
+ */
+class IndexedVaultTest {
+
+    private File file;
+    private char[] correctKey;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        file = File.createTempFile("jpass", "temp");
+        file.deleteOnExit();
+        correctKey = "sesame".toCharArray();
+    }
+
+    @Test
+    public void shouldReadIndexAndLoadDetailsOnDemand() throws Exception {
+        // given
+        Entries entries = createEntries();
+        IndexedVault.write(file.getPath(), correctKey, entries);
+
+        // when
+        Entries readEntries = EntriesRepository.newInstance(file.getPath(), correctKey).readDocument();
+
+        // then
+        Assertions.assertTrue(IndexedVault.isIndexedVault(file.getPath()));
+        Assertions.assertEquals(2, readEntries.getEntry().size());
+        Entry first = readEntries.getEntry().get(0);
+        Entry second = readEntries.getEntry().get(1);
+        Assertions.assertFalse(first.isDetailsLoaded());
+        Assertions.assertEquals("Duff Beer Webshop", first.getTitle());
+        Assertions.assertEquals("http://duffbeer.com", first.getUrl());
+        Assertions.assertEquals("homer", first.getUser());
+        Assertions.assertEquals("2022-09-19T11:13:30", first.getLastModification());
+        Assertions.assertEquals("doh", first.getPassword());
+        Assertions.assertEquals("Don't tell Marge", first.getNotes());
+        Assertions.assertTrue(first.isDetailsLoaded());
+        Assertions.assertFalse(second.isDetailsLoaded());
+        Assertions.assertNull(second.getUrl());
+        Assertions.assertNull(second.getPassword());
+        Assertions.assertEquals("", second.getNotes());
+    }
+
+    @Test
+    public void shouldRewriteVaultWithDetailsNotLoaded() throws Exception {
+        // given
+        IndexedVault.write(file.getPath(), correctKey, createEntries());
+        Entries readEntries = IndexedVault.read(file.getPath(), correctKey);
+
+        // when
+        IndexedVault.write(file.getPath(), correctKey, readEntries);
+        Entries rewrittenEntries = IndexedVault.read(file.getPath(), correctKey);
+
+        // then
+        Assertions.assertEquals("doh", rewrittenEntries.getEntry().get(0).getPassword());
+        Assertions.assertEquals("Don't tell Marge", rewrittenEntries.getEntry().get(0).getNotes());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenReadingWithIncorrectKey() throws Exception {
+        // given
+        IndexedVault.write(file.getPath(), correctKey, createEntries());
+
+        // when
+        Assertions.assertThrows(IOException.class,
+                () -> EntriesRepository.newInstance(file.getPath(), "doh".toCharArray()).readDocument());
+    }
+
+    @Test
+    public void shouldLoadDetailsAfterFileIsTouchedOrReplaced() throws Exception {
+        // given
+        IndexedVault.write(file.getPath(), correctKey, createEntries());
+        Entries entries = IndexedVault.read(file.getPath(), correctKey);
+        File replacement = File.createTempFile("jpass", "temp", file.getParentFile());
+        replacement.deleteOnExit();
+        IndexedVault.write(replacement.getPath(), correctKey, new Entries());
+
+        // when
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(file.lastModified() - 60_000));
+        String password = entries.getEntry().get(0).getPassword();
+        Files.move(replacement.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        // then
+        Assertions.assertEquals("doh", password);
+        Assertions.assertEquals("", entries.getEntry().get(1).getNotes());
+    }
+
+    @Test
+    public void shouldLoadDetailsAfterLoadingThreadIsInterrupted() throws Exception {
+        // given
+        IndexedVault.write(file.getPath(), correctKey, createEntries());
+        Entries entries = IndexedVault.read(file.getPath(), correctKey);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Thread loader = new Thread(() -> {
+            // the interrupt closes the channel of the read
+            Thread.currentThread().interrupt();
+            try {
+                entries.getEntry().get(0).loadDetails();
+            } catch (RuntimeException e) {
+                failure.set(e);
+            }
+        });
+
+        // when
+        loader.start();
+        loader.join(5000);
+
+        // then
+        Assertions.assertTrue(failure.get() instanceof UncheckedIOException);
+        Assertions.assertTrue(failure.get().getCause() instanceof ClosedByInterruptException);
+        Assertions.assertFalse(entries.getEntry().get(0).isDetailsLoaded());
+        Assertions.assertEquals("", entries.getEntry().get(1).getNotes());
+        Assertions.assertEquals("doh", entries.getEntry().get(0).getPassword());
+    }
+
+    @Test
+    public void shouldNotLoadDetailsAfterSourceIsClosed() throws Exception {
+        // given
+        IndexedVault.write(file.getPath(), correctKey, createEntries());
+        Entries entries = IndexedVault.read(file.getPath(), correctKey);
+
+        // when
+        entries.getDetailsSource().close();
+
+        // then
+        Assertions.assertThrows(UncheckedIOException.class, entries.getEntry().get(0)::getPassword);
+    }
+
+    @Test
+    public void shouldNotLoadSwappedRecords() throws Exception {
+        // given
+        Entries entries = createEntries();
+        entries.getEntry().get(0).setNotes("Marg");
+        entries.getEntry().get(1).setPassword("duh");
+        entries.getEntry().get(1).setNotes("Bart");
+        IndexedVault.write(file.getPath(), correctKey, entries);
+        byte[] content = Files.readAllBytes(file.toPath());
+        // both records of 15 bytes have the same length: IV, one encrypted block and MAC
+        int recordLength = 16 + 16 + 32;
+        byte[] swapped = content.clone();
+        System.arraycopy(content, content.length - 2 * recordLength, swapped, content.length - recordLength, recordLength);
+        System.arraycopy(content, content.length - recordLength, swapped, content.length - 2 * recordLength, recordLength);
+        Files.write(file.toPath(), swapped);
+
+        // when
+        Entry entry = IndexedVault.read(file.getPath(), correctKey).getEntry().get(0);
+
+        // then
+        Assertions.assertThrows(UncheckedIOException.class, entry::getPassword);
+        Assertions.assertFalse(entry.isDetailsLoaded());
+    }
+
+    @Test
+    public void shouldNotLoadTruncatedRecord() throws Exception {
+        // given
+        IndexedVault.write(file.getPath(), correctKey, createEntries());
+        byte[] content = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(content, content.length - 1));
+
+        // when
+        Entries entries = IndexedVault.read(file.getPath(), correctKey);
+
+        // then
+        Assertions.assertEquals("doh", entries.getEntry().get(0).getPassword());
+        Assertions.assertThrows(UncheckedIOException.class, entries.getEntry().get(1)::getNotes);
+    }
+
+    @Test
+    public void shouldNotReadModifiedIndex() throws Exception {
+        // given
+        IndexedVault.write(file.getPath(), correctKey, createEntries());
+        byte[] content = Files.readAllBytes(file.toPath());
+        content[content.length / 2] ^= 1;
+        Files.write(file.toPath(), content);
+
+        // when
+        Assertions.assertThrows(IOException.class, () -> IndexedVault.read(file.getPath(), correctKey));
+    }
+
+    @Test
+    public void shouldReportProgressAndKeyOfRead() throws Exception {
+        // given
+        IndexedVault.write(file.getPath(), correctKey, createEntries());
+        EntriesRepository repository = EntriesRepository.newInstance(file.getPath(), correctKey);
+        List<Long> progress = new ArrayList<>();
+
+        // when
+        repository.readEntries(10, entries -> { }, progress::add);
+
+        // then
+        Assertions.assertEquals(file.length(), (long) progress.get(progress.size() - 1));
+        Assertions.assertNotNull(repository.getFileKey());
+    }
+
+    @Test
+    public void shouldNotDetectStreamFilesAsIndexed() throws Exception {
+        // when
+        boolean indexed = IndexedVault.isIndexedVault("src/test/resources/jpass-test-v1.jpass");
+        boolean empty = IndexedVault.isIndexedVault(file.getPath());
+
+        // then
+        Assertions.assertFalse(indexed);
+        Assertions.assertFalse(empty);
+    }
+
+    private Entries createEntries() {
+        Entry first = new Entry();
+        first.setTitle("Duff Beer Webshop");
+        first.setUrl("http://duffbeer.com");
+        first.setUser("homer");
+        first.setPassword("doh");
+        first.setNotes("Don't tell Marge");
+        first.setLastModification("2022-09-19T11:13:30");
+        Entry second = new Entry();
+        second.setTitle("Kwik-E-Mart");
+        second.setNotes("");
+        Entries entries = new Entries();
+        entries.getEntry().add(first);
+        entries.getEntry().add(second);
+        return entries;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Optional;
+
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link SearchIndexFile}.
+ */
+class SearchIndexFileTest {
+
+    private String vaultFileName;
+    private Entries entries;
+    private byte[] fileKey;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        File vaultFile = File.createTempFile("jpass", "temp");
+        vaultFile.deleteOnExit();
+        new File(SearchIndexFile.getFileName(vaultFile.getPath())).deleteOnExit();
+        vaultFileName = vaultFile.getPath();
+
+        entries = new Entries();
+        for (String title : Arrays.asList("GitHub", "GitLab", "Bank")) {
+            Entry entry = new Entry();
+            entry.setTitle(title);
+            entries.getEntry().add(entry);
+        }
+        EntriesRepository repository = EntriesRepository.newInstance(vaultFileName, "sesame".toCharArray());
+        repository.writeDocument(entries);
+        fileKey = repository.getFileKey();
+    }
+
+    @Test
+    public void shouldLoadSavedIndex() throws Exception {
+        // given
+        SearchIndexFile.save(vaultFileName, fileKey, TrigramIndex.build(entries.getEntry()));
+
+        // when
+        Optional<TrigramIndex> index = SearchIndexFile.load(vaultFileName, fileKey, 3);
+
+        // then
+        Assertions.assertTrue(index.isPresent());
+        Assertions.assertArrayEquals(new int[] {0, 1}, index.get().getCandidates("git"));
+    }
+
+    @Test
+    public void shouldUseKeyOfVaultReadAfterSave() throws Exception {
+        // given
+        SearchIndexFile.save(vaultFileName, fileKey, TrigramIndex.build(entries.getEntry()));
+        EntriesRepository repository = EntriesRepository.newInstance(vaultFileName, "sesame".toCharArray());
+        repository.readDocument();
+
+        // when
+        Optional<TrigramIndex> index = SearchIndexFile.load(vaultFileName, repository.getFileKey(), 3);
+
+        // then
+        Assertions.assertTrue(index.isPresent());
+    }
+
+    @Test
+    public void shouldIgnoreIndexOfChangedVault() throws Exception {
+        // given
+        SearchIndexFile.save(vaultFileName, fileKey, TrigramIndex.build(entries.getEntry()));
+        EntriesRepository repository = EntriesRepository.newInstance(vaultFileName, "sesame".toCharArray());
+        repository.writeDocument(entries);
+
+        // when
+        Optional<TrigramIndex> index = SearchIndexFile.load(vaultFileName, repository.getFileKey(), 3);
+
+        // then
+        Assertions.assertFalse(index.isPresent());
+    }
+
+    @Test
+    public void shouldIgnoreIndexWithIncorrectKeyOrEntryCount() throws Exception {
+        // given
+        SearchIndexFile.save(vaultFileName, fileKey, TrigramIndex.build(entries.getEntry()));
+        byte[] incorrectKey = fileKey.clone();
+        incorrectKey[0] ^= 1;
+
+        // when
+        Optional<TrigramIndex> incorrectKeyIndex = SearchIndexFile.load(vaultFileName, incorrectKey, 3);
+        Optional<TrigramIndex> incorrectCountIndex = SearchIndexFile.load(vaultFileName, fileKey, 4);
+
+        // then
+        Assertions.assertFalse(incorrectKeyIndex.isPresent());
+        Assertions.assertFalse(incorrectCountIndex.isPresent());
+    }
+
+    @Test
+    public void shouldIgnoreMissingIndex() {
+        // when
+        Optional<TrigramIndex> index = SearchIndexFile.load(vaultFileName, fileKey, 3);
+
+        // then
+        Assertions.assertFalse(index.isPresent());
+        Assertions.assertFalse(Files.exists(Paths.get(SearchIndexFile.getFileName(vaultFileName))));
+    }
+}
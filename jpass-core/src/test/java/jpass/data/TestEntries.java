@@ -0,0 +1,81 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import jpass.xml.bind.Entry;
+
+/**
+ * Entries used by the unit tests.
+ */
+public final class TestEntries {
+
+    private TestEntries() {
+        // not intended to be instantiated
+    }
+
+    /**
+     * Creates an entry with a title only.
+     *
+     * @param title title of the entry
+     * @return the entry
+     */
+    public static Entry createEntry(String title) {
+        return createEntry(title, null, null, null);
+    }
+
+    /**
+     * Creates an entry.
+     *
+     * @param title title of the entry
+     * @param url URL of the entry, can be null
+     * @param user user of the entry, can be null
+     * @param password password of the entry, can be null
+     * @return the entry
+     */
+    public static Entry createEntry(String title, String url, String user, String password) {
+        Entry entry = new Entry();
+        entry.setTitle(title);
+        entry.setUrl(url);
+        entry.setUser(user);
+        entry.setPassword(password);
+        return entry;
+    }
+
+    /**
+     * Gets the titles of the entries.
+     *
+     * @param entries the entries
+     * @return titles of the entries, in the same order
+     */
+    public static List<String> titles(List<Entry> entries) {
+        return entries.stream().map(Entry::getTitle).collect(Collectors.toList());
+    }
+}
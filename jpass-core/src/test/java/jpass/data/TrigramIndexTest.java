@@ -0,0 +1,105 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import jpass.xml.bind.Entry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static jpass.data.TestEntries.createEntry;
+
+/**
+ * Unit test for {@link TrigramIndex}.
+ */
+class TrigramIndexTest {
+
+    @Test
+    public void shouldFindCandidatesContainingAllTrigrams() {
+        // given
+        TrigramIndex index = TrigramIndex.build(Arrays.asList(
+                createEntry("GitHub"), createEntry("gitgit"), createEntry(null), createEntry("Bank hub"), createEntry("git hub")));
+
+        // when
+        int[] candidates = index.getCandidates("hub");
+        int[] gitCandidates = index.getCandidates("git");
+
+        // then
+        Assertions.assertArrayEquals(new int[] {0, 3, 4}, candidates);
+        Assertions.assertArrayEquals(new int[] {0, 1, 4}, gitCandidates);
+        Assertions.assertArrayEquals(new int[] {0}, index.getCandidates("github"));
+        Assertions.assertEquals(0, index.getCandidates("lab").length);
+        Assertions.assertNull(index.getCandidates("gi"));
+        Assertions.assertEquals(5, index.getEntryCount());
+    }
+
+    @Test
+    public void shouldReadWrittenIndex() throws IOException {
+        // given
+        List<Entry> entries = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            entries.add(createEntry("Entry " + random.nextInt(100000)));
+        }
+        TrigramIndex index = TrigramIndex.build(entries);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // when
+        index.write(new DataOutputStream(output));
+        TrigramIndex readIndex = TrigramIndex.read(new DataInputStream(new ByteArrayInputStream(output.toByteArray())));
+
+        // then
+        Assertions.assertEquals(1000, readIndex.getEntryCount());
+        for (String criteria : Arrays.asList("entry", "123", "y 9", "999")) {
+            Assertions.assertArrayEquals(index.getCandidates(criteria), readIndex.getCandidates(criteria));
+        }
+    }
+
+    @Test
+    public void shouldFailToReadInvalidIndex() {
+        // given
+        byte[] invalid = {0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 5};
+
+        // when
+        Exception exception = Assertions.assertThrows(IOException.class,
+                () -> TrigramIndex.read(new DataInputStream(new ByteArrayInputStream(invalid))));
+
+        // then
+        Assertions.assertEquals("Invalid search index", exception.getMessage());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static jpass.data.TestEntries.createEntry;
+import static jpass.data.TestEntries.titles;
+
+/**
+ * Unit test for {@link VaultFile}.
+ */
+class VaultFileTest {
+
+    private static final char[] PASSWORD = "sesame".toCharArray();
+
+    private String fileName;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        File file = File.createTempFile("jpass", "temp");
+        file.deleteOnExit();
+        fileName = file.getPath();
+    }
+
+    @Test
+    public void shouldReadEntriesInBatches() throws Exception {
+        // given
+        Entries entries = new Entries();
+        entries.getEntry().addAll(Arrays.asList(createEntry("first"), createEntry("second"), createEntry("third")));
+        EntriesRepository.newInstance(fileName, PASSWORD).writeDocument(entries);
+        List<List<Entry>> batches = new ArrayList<>();
+
+        // when
+        Entries result = new VaultFile(fileName, PASSWORD).read(2, batches::add, null);
+
+        // then
+        Assertions.assertEquals(Arrays.asList("first", "second", "third"), titles(result.getEntry()));
+        Assertions.assertEquals(2, batches.size());
+        Assertions.assertEquals(Arrays.asList("third"), titles(batches.get(1)));
+    }
+
+    @Test
+    public void shouldWriteModelAndMarkItSaved() throws Exception {
+        // given
+        DataModel model = DataModel.newInstance();
+        model.addEntry(createEntry("first"));
+        model.setModified(true);
+        VaultFile vaultFile = new VaultFile(fileName, PASSWORD);
+
+        // when
+        DataModel.Snapshot snapshot = vaultFile.write(model, null);
+
+        // then
+        Assertions.assertSame(snapshot.getEntries(), model.getSnapshot().getEntries());
+        Assertions.assertFalse(model.isModified());
+        Assertions.assertEquals(fileName, model.getFileName());
+        Assertions.assertArrayEquals(PASSWORD, model.getPassword());
+        Assertions.assertEquals(Arrays.asList("first"),
+                titles(EntriesRepository.newInstance(fileName, PASSWORD).readDocument().getEntry()));
+    }
+
+    @Test
+    public void shouldNotUseSearchIndexFileByDefault() throws Exception {
+        // given
+        DataModel model = DataModel.newInstance();
+        model.addEntry(createEntry("first"));
+        VaultFile vaultFile = new VaultFile(fileName, PASSWORD);
+
+        // when
+        DataModel.Snapshot snapshot = vaultFile.write(model, null);
+        vaultFile.saveSearchIndex(model, snapshot);
+
+        // then
+        Assertions.assertFalse(vaultFile.hasSearchIndexFile());
+        Assertions.assertFalse(vaultFile.loadSearchIndex(snapshot.getEntries()).isPresent());
+        Assertions.assertFalse(new File(SearchIndexFile.getFileName(fileName)).exists());
+    }
+}
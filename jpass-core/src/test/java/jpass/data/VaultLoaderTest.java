@@ -0,0 +1,107 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link VaultLoader}.
+ */
+class VaultLoaderTest {
+
+    @Test
+    public void shouldUnlockVaultsInParallelKeepingOrder() throws Exception {
+        // given
+        Map<String, char[]> vaults = new LinkedHashMap<>();
+        vaults.put(createVault("personal", "sesame".toCharArray()), "sesame".toCharArray());
+        vaults.put(createVault("shared", "doh".toCharArray()), "doh".toCharArray());
+        List<String> errors = new ArrayList<>();
+
+        // when
+        List<DataModel> models = VaultLoader.unlock(vaults, (fileName, e) -> errors.add(fileName), 2);
+
+        // then
+        Assertions.assertTrue(errors.isEmpty());
+        Assertions.assertEquals(2, models.size());
+        Assertions.assertEquals(Arrays.asList("personal"), models.get(0).getTitles());
+        Assertions.assertEquals(Arrays.asList("shared"), models.get(1).getTitles());
+        Assertions.assertEquals(new ArrayList<>(vaults.keySet()).get(1), models.get(1).getFileName());
+        Assertions.assertArrayEquals("doh".toCharArray(), models.get(1).getPassword());
+        Assertions.assertNotSame(models.get(0), models.get(1));
+        Assertions.assertNotSame(DataModel.getInstance(), models.get(0));
+    }
+
+    @Test
+    public void shouldReportVaultWithIncorrectPassword() throws Exception {
+        // given
+        String personal = createVault("personal", "sesame".toCharArray());
+        String shared = createVault("shared", "doh".toCharArray());
+        Map<String, char[]> vaults = new LinkedHashMap<>();
+        vaults.put(personal, "sesame".toCharArray());
+        vaults.put(shared, "incorrect".toCharArray());
+        List<String> errors = new ArrayList<>();
+
+        // when
+        List<DataModel> models = VaultLoader.unlock(vaults, (fileName, e) -> errors.add(fileName), 2);
+
+        // then
+        Assertions.assertEquals(Arrays.asList(shared), errors);
+        Assertions.assertEquals(1, models.size());
+        Assertions.assertEquals(personal, models.get(0).getFileName());
+    }
+
+    @Test
+    public void shouldReturnEmptyListWithoutVaults() throws Exception {
+        // when
+        List<DataModel> models = VaultLoader.unlock(new LinkedHashMap<>(), (fileName, e) -> Assertions.fail(fileName));
+
+        // then
+        Assertions.assertTrue(models.isEmpty());
+    }
+
+    private static String createVault(String title, char[] password) throws Exception {
+        File file = File.createTempFile("jpass", "temp");
+        file.deleteOnExit();
+        Entry entry = new Entry();
+        entry.setTitle(title);
+        Entries entries = new Entries();
+        entries.getEntry().add(entry);
+        EntriesRepository.newInstance(file.getPath(), password).writeDocument(entries);
+        return file.getPath();
+    }
+}
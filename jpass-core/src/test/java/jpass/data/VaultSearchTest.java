@@ -0,0 +1,128 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.data;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import jpass.xml.bind.Entry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link VaultSearch}.
+ */
+class VaultSearchTest {
+
+    @Test
+    public void shouldMergeRankedMatchesOfAllVaults() {
+        // given
+        DataModel personal = createVault("personal", "Home VPN", "vpn", "Bank");
+        DataModel shared = createVault("shared", "VPN gateway", "Office VPN", "Wiki");
+        VaultSearch search = new VaultSearch(Arrays.asList(personal, shared));
+
+        // when
+        List<VaultSearch.Match> matches = search.search("VPN");
+
+        // then
+        Assertions.assertEquals(Arrays.asList("vpn", "VPN gateway", "Home VPN", "Office VPN"), titles(matches));
+        Assertions.assertEquals(Arrays.asList(personal, shared, personal, shared),
+                matches.stream().map(VaultSearch.Match::getVault).collect(Collectors.toList()));
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 2),
+                matches.stream().map(VaultSearch.Match::getRank).collect(Collectors.toList()));
+        Assertions.assertEquals(6, search.getEntryCount());
+    }
+
+    @Test
+    public void shouldReturnAllEntriesWithEmptyCriteria() {
+        // given
+        VaultSearch search = new VaultSearch(Arrays.asList(createVault("a", "b", "a"), createVault("b", "c")));
+
+        // when
+        List<VaultSearch.Match> matches = search.search("");
+
+        // then
+        Assertions.assertEquals(Arrays.asList("a", "b", "c"), titles(matches));
+    }
+
+    @Test
+    public void shouldSearchSnapshotOfVaults() {
+        // given
+        DataModel vault = createVault("vault", "VPN");
+        VaultSearch search = new VaultSearch(Arrays.asList(vault));
+        Entry entry = new Entry();
+        entry.setTitle("VPN 2");
+
+        // when
+        vault.addEntry(entry);
+        List<VaultSearch.Match> matches = search.search("vpn");
+
+        // then
+        Assertions.assertEquals(Arrays.asList("VPN"), titles(matches));
+    }
+
+    @Test
+    public void shouldCancelSearchWhenInterrupted() throws Exception {
+        // given
+        VaultSearch search = new VaultSearch(Arrays.asList(createVault("vault", "VPN")));
+        AtomicReference<RuntimeException> error = new AtomicReference<>();
+
+        // when
+        Thread thread = new Thread(() -> {
+            Thread.currentThread().interrupt();
+            try {
+                search.search("vpn");
+            } catch (RuntimeException e) {
+                error.set(e);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        // then
+        Assertions.assertTrue(error.get() instanceof CancellationException);
+    }
+
+    private static DataModel createVault(String fileName, String... titles) {
+        DataModel vault = DataModel.newInstance();
+        vault.setFileName(fileName);
+        for (String title : titles) {
+            Entry entry = new Entry();
+            entry.setTitle(title);
+            vault.addEntry(entry);
+        }
+        return vault;
+    }
+
+    private static List<String> titles(List<VaultSearch.Match> matches) {
+        return matches.stream().map(match -> match.getEntry().getTitle()).collect(Collectors.toList());
+    }
+}
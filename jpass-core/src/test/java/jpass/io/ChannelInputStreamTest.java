@@ -0,0 +1,127 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.io;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link ChannelInputStream}.
+ */
+class ChannelInputStreamTest {
+
+    private File file;
+    private byte[] content;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        file = File.createTempFile("jpass", "temp");
+        file.deleteOnExit();
+        content = new byte[ChannelInputStream.DIRECT_BUFFER_SIZE * 2 + 123];
+        new Random(42).nextBytes(content);
+        Files.write(file.toPath(), content);
+    }
+
+    @Test
+    public void shouldReadFileWithDirectBuffer() throws IOException {
+        // given
+        byte[] result;
+
+        // when
+        try (InputStream input = ChannelInputStream.open(file.getPath(), false)) {
+            result = readAll(input);
+        }
+
+        // then
+        Assertions.assertArrayEquals(content, result);
+    }
+
+    @Test
+    public void shouldReadMemoryMappedFile() throws IOException {
+        // given
+        byte[] result;
+
+        // when
+        try (InputStream input = ChannelInputStream.open(file.getPath(), true)) {
+            result = readAll(input);
+        }
+
+        // then
+        Assertions.assertArrayEquals(content, result);
+    }
+
+    @Test
+    public void shouldResetToMarkedPosition() throws IOException {
+        // given
+        try (InputStream input = ChannelInputStream.open(file.getPath(), false)) {
+            input.mark(10);
+            byte[] first = new byte[10];
+            input.read(first);
+
+            // when
+            input.reset();
+            Assertions.assertEquals(ChannelInputStream.DIRECT_BUFFER_SIZE + 100, input.skip(ChannelInputStream.DIRECT_BUFFER_SIZE + 100));
+            input.mark(10);
+            int value = input.read();
+            input.skip(ChannelInputStream.DIRECT_BUFFER_SIZE);
+            input.reset();
+
+            // then
+            Assertions.assertArrayEquals(Arrays.copyOf(content, 10), first);
+            Assertions.assertEquals(content[ChannelInputStream.DIRECT_BUFFER_SIZE + 100] & 0xff, value);
+            Assertions.assertEquals(value, input.read());
+        }
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenReadingNonExistingFile() {
+        Assertions.assertThrows(FileNotFoundException.class,
+                () -> ChannelInputStream.open("not_existing_path", false));
+    }
+
+    private byte[] readAll(InputStream input) throws IOException {
+        byte[] result = new byte[content.length];
+        int length = 0;
+        int read;
+        while ((read = input.read(result, length, Math.min(1000, result.length - length))) > 0) {
+            length += read;
+        }
+        Assertions.assertEquals(-1, input.read());
+        return result;
+    }
+}
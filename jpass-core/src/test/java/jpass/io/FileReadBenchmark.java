@@ -0,0 +1,141 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Benchmark which compares reading a file with {@link BufferedInputStream},
+ * and with {@link ChannelInputStream} using a direct buffer or memory mapping,
+ * on cold and warm page cache.
+ *
+ * <p>
+ * Run with the test classpath, the optional arguments are the file size in
+ * megabytes and the command which drops the page cache:
+ * </p>
+ * <pre>
+ * java -cp target/classes:target/test-classes jpass.io.FileReadBenchmark 256 "sync; echo 3 &gt; /proc/sys/vm/drop_caches"
+ * </pre>
+ * <p>
+ * Without the command, or if it fails (for example without root privileges),
+ * the cold page cache measurements are skipped.
+ * </p>
+ */
+public final class FileReadBenchmark {
+
+    private static final int DEFAULT_FILE_SIZE_MB = 256;
+    private static final int WARM_ROUNDS = 5;
+
+    private FileReadBenchmark() {
+        // benchmark runner
+    }
+
+    public static void main(String[] args) throws Exception {
+        int fileSizeMb = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FILE_SIZE_MB;
+        String dropCachesCommand = args.length > 1 ? args[1] : null;
+
+        File file = File.createTempFile("jpass-benchmark", ".jpass");
+        file.deleteOnExit();
+        writeRandomFile(file, fileSizeMb);
+
+        System.out.printf("%-25s %12s %12s%n", "Read method", "cold MB/s", "warm MB/s");
+        benchmark("BufferedInputStream", file, dropCachesCommand, () -> new BufferedInputStream(new FileInputStream(file)));
+        benchmark("FileChannel direct", file, dropCachesCommand, () -> ChannelInputStream.open(file.getPath(), false));
+        benchmark("FileChannel mapped", file, dropCachesCommand, () -> ChannelInputStream.open(file.getPath(), true));
+    }
+
+    private static void writeRandomFile(File file, int fileSizeMb) throws IOException {
+        Random random = new Random();
+        byte[] buffer = new byte[1024 * 1024];
+        try (OutputStream output = Files.newOutputStream(file.toPath())) {
+            for (int i = 0; i < fileSizeMb; i++) {
+                random.nextBytes(buffer);
+                output.write(buffer);
+            }
+        }
+    }
+
+    private static void benchmark(String name, File file, String dropCachesCommand, StreamFactory factory) throws Exception {
+        String cold = "skipped";
+        if (dropCaches(dropCachesCommand)) {
+            cold = String.format("%.1f", read(file, factory));
+        }
+        double warm = 0;
+        for (int i = 0; i < WARM_ROUNDS; i++) {
+            warm = Math.max(warm, read(file, factory));
+        }
+        System.out.printf("%-25s %12s %12.1f%n", name, cold, warm);
+    }
+
+    /**
+     * Reads the file in chunks, as the decrypt stage does.
+     *
+     * @return throughput in MB/s
+     */
+    private static double read(File file, StreamFactory factory) throws IOException {
+        byte[] chunk = new byte[4096];
+        long checksum = 0;
+        long start = System.nanoTime();
+        try (InputStream input = factory.open()) {
+            int read;
+            while ((read = input.read(chunk, 0, chunk.length)) >= 0) {
+                checksum += chunk[read > 0 ? read - 1 : 0];
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (checksum == Long.MIN_VALUE) {
+            System.out.println();
+        }
+        return file.length() / (1024.0 * 1024.0) / (elapsed / 1_000_000_000.0);
+    }
+
+    private static boolean dropCaches(String command) throws InterruptedException {
+        if (command == null) {
+            return false;
+        }
+        try {
+            return new ProcessBuilder("sh", "-c", command).inheritIO().start().waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    private interface StreamFactory {
+
+        InputStream open() throws IOException;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link ParallelGzipOutputStream}.
+ */
+class ParallelGzipOutputStreamTest {
+
+    @Test
+    public void shouldWriteGzipReadableDataInParallelBlocks() throws IOException {
+        // given
+        byte[] plain = createCompressibleData(100_000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        // when
+        try (ParallelGzipOutputStream output = new ParallelGzipOutputStream(compressed, 1000, 3)) {
+            output.write(plain, 0, 5);
+            output.write(plain[5]);
+            output.write(plain, 6, plain.length - 6);
+        }
+
+        // then
+        Assertions.assertArrayEquals(plain, decompress(compressed.toByteArray()));
+        Assertions.assertTrue(compressed.size() < plain.length / 2);
+    }
+
+    @Test
+    public void shouldWriteGzipReadableDataInSingleBlock() throws IOException {
+        // given
+        byte[] plain = createCompressibleData(100);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        // when
+        try (ParallelGzipOutputStream output = new ParallelGzipOutputStream(compressed)) {
+            output.write(plain);
+        }
+
+        // then
+        Assertions.assertArrayEquals(plain, decompress(compressed.toByteArray()));
+    }
+
+    @Test
+    public void shouldWriteEmptyGzipData() throws IOException {
+        // given
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        // when
+        new ParallelGzipOutputStream(compressed, 1000, 2).close();
+
+        // then
+        Assertions.assertEquals(0, decompress(compressed.toByteArray()).length);
+    }
+
+    private static byte[] createCompressibleData(int length) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < length) {
+            builder.append("<entry><title>").append(random.nextInt(1000)).append("</title></entry>\n");
+        }
+        return builder.substring(0, length).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] decompress(byte[] data) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                output.write(buffer, 0, read);
+            }
+        }
+        return output.toByteArray();
+    }
+}
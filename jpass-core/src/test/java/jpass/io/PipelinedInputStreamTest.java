@@ -0,0 +1,120 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import jpass.crypt.io.CryptInputStream;
+import jpass.crypt.io.CryptOutputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link PipelinedInputStream}.
+ */
+class PipelinedInputStreamTest {
+
+    @Test
+    public void shouldPassDataThroughStagesUnchanged() throws IOException {
+        // given
+        Random random = new Random(42);
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+        byte[] plain = new byte[100_000];
+        random.nextBytes(plain);
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        try (GZIPOutputStream output = new GZIPOutputStream(new CryptOutputStream(encrypted, key))) {
+            output.write(plain);
+        }
+
+        // when
+        PipelinedInputStream readStage = new PipelinedInputStream("read", new ByteArrayInputStream(encrypted.toByteArray()), 1000, 2);
+        PipelinedInputStream decryptStage = new PipelinedInputStream("decrypt", new CryptInputStream(readStage, key), 777, 3);
+        PipelinedInputStream inflateStage = new PipelinedInputStream("inflate", new GZIPInputStream(decryptStage), 4096, 2);
+        byte[] result;
+        try (InputStream input = inflateStage) {
+            result = readAll(input);
+        }
+
+        // then
+        Assertions.assertArrayEquals(plain, result);
+        Assertions.assertEquals(encrypted.size(), readStage.getBytes());
+        Assertions.assertEquals(plain.length, inflateStage.getBytes());
+        Assertions.assertTrue(inflateStage.toString().startsWith("inflate: "));
+    }
+
+    @Test
+    public void shouldReadEmptyStream() throws IOException {
+        // given
+        PipelinedInputStream stage = new PipelinedInputStream("read", new ByteArrayInputStream(new byte[0]));
+
+        // when
+        int result = stage.read();
+
+        // then
+        Assertions.assertEquals(-1, result);
+        Assertions.assertEquals(-1, stage.read(new byte[10], 0, 10));
+        stage.close();
+    }
+
+    @Test
+    public void shouldPropagateExceptionOfStage() throws IOException {
+        // given
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("can't decrypt");
+            }
+        };
+
+        // when
+        PipelinedInputStream stage = new PipelinedInputStream("decrypt", failing);
+
+        // then
+        IOException exception = Assertions.assertThrows(IOException.class, () -> stage.read());
+        Assertions.assertEquals("can't decrypt", exception.getMessage());
+        stage.close();
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1234];
+        int read;
+        while ((read = input.read(buffer, 0, buffer.length)) >= 0) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jpass.crypt.io.CryptInputStream;
+import jpass.crypt.io.CryptOutputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link PipelinedOutputStream}.
+ */
+class PipelinedOutputStreamTest {
+
+    @Test
+    public void shouldPassDataThroughStagesUnchanged() throws IOException {
+        // given
+        Random random = new Random(42);
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+        byte[] plain = new byte[100_000];
+        random.nextBytes(plain);
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+
+        // when
+        PipelinedOutputStream writeStage = new PipelinedOutputStream("write", encrypted, 1000, 2);
+        PipelinedOutputStream encryptStage = new PipelinedOutputStream("encrypt", new CryptOutputStream(writeStage, key), 777, 3);
+        try (OutputStream output = encryptStage) {
+            output.write(plain, 0, 10);
+            output.write(plain[10]);
+            output.flush();
+            output.write(plain, 11, plain.length - 11);
+        }
+
+        // then
+        CryptInputStream decrypter = new CryptInputStream(new ByteArrayInputStream(encrypted.toByteArray()), key);
+        byte[] decrypted = new byte[plain.length];
+        int length = 0;
+        int read;
+        while ((read = decrypter.read(decrypted, length, decrypted.length - length)) > 0) {
+            length += read;
+        }
+        Assertions.assertArrayEquals(plain, decrypted);
+        Assertions.assertEquals(-1, decrypter.read());
+        Assertions.assertEquals(plain.length, encryptStage.getBytes());
+        Assertions.assertEquals(encrypted.size(), writeStage.getBytes());
+    }
+
+    @Test
+    public void shouldPropagateExceptionOfStage() throws IOException {
+        // given
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        PipelinedOutputStream stage = new PipelinedOutputStream("write", failing, 10, 2);
+
+        // when
+        IOException exception = Assertions.assertThrows(IOException.class, () -> {
+            try (OutputStream output = stage) {
+                output.write(new byte[1000]);
+            }
+        });
+
+        // then
+        Assertions.assertEquals("disk full", exception.getMessage());
+    }
+
+    @Test
+    public void shouldStopNextStagesWhenInterrupted() throws Exception {
+        // given
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        OutputStream slowTarget = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                writing.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        };
+        PipelinedOutputStream second = new PipelinedOutputStream("interrupted-second", slowTarget, 10, 1);
+        PipelinedOutputStream first = new PipelinedOutputStream("interrupted-first", second, 10, 1);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try (OutputStream output = first) {
+                output.write(new byte[1000]);
+            } catch (IOException e) {
+                failure.set(e);
+            }
+        });
+
+        // when
+        caller.start();
+        Assertions.assertTrue(writing.await(5, TimeUnit.SECONDS));
+        caller.interrupt();
+        caller.join(5000);
+        released.countDown();
+
+        // then
+        Assertions.assertFalse(caller.isAlive());
+        Assertions.assertTrue(failure.get() instanceof InterruptedIOException);
+        Assertions.assertTrue(closed.await(5, TimeUnit.SECONDS));
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("JPass-interrupted-")) {
+                thread.join(5000);
+                Assertions.assertFalse(thread.isAlive(), thread.getName());
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@
 package jpass.util;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -102,4 +103,16 @@ public class CryptUtilsTest {
         // then
         Assertions.assertArrayEquals(expectedKey, key);
     }
+
+    @Test
+    public void shouldGenerateRandomHexadecimalToken() {
+        // when
+        byte[] token = CryptUtils.generateRandomToken(64);
+        byte[] other = CryptUtils.generateRandomToken(64);
+
+        // then
+        Assertions.assertEquals(64, token.length);
+        Assertions.assertTrue(new String(token, StandardCharsets.US_ASCII).matches("[0-9a-f]{64}"));
+        Assertions.assertFalse(Arrays.equals(token, other));
+    }
 }
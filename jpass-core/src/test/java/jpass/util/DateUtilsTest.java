@@ -227,4 +227,28 @@ public class DateUtilsTest {
 
         assertEquals(result, expectedResult);
     }
+
+    @Test
+    public void parseIsoDateTimeEpochTest() {
+        long result = DateUtils.parseIsoDateTime("1616697411");
+
+        assertEquals(1616697411L, result);
+    }
+
+    @Test
+    public void parseIsoDateTimeIncorrectTest() {
+        long result = DateUtils.parseIsoDateTime("2021-03-0:11:58");
+
+        assertEquals(0L, result);
+    }
+
+    @Test
+    public void formatEpochMillisTest() {
+        DateTimeFormatter formatter = DateUtils.createFormatter("dd.MM.yyyy HH:mm:ss");
+
+        long time = DateUtils.parseIsoDateTime("2021-03-02T20:11:58.123");
+        String result = DateUtils.formatEpochMillis(time, formatter);
+
+        assertEquals("02.03.2021 20:11:58", result);
+    }
 }
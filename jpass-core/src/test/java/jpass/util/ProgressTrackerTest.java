@@ -0,0 +1,99 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link ProgressTracker}.
+ */
+class ProgressTrackerTest {
+
+    @Test
+    public void shouldNotifyAtMostOnceInInterval() {
+        // given
+        List<Long> notifications = new ArrayList<>();
+        ProgressTracker tracker = new ProgressTracker(100, 60_000, (processed, total, remaining) -> notifications.add(processed));
+
+        // when
+        tracker.accept(10);
+        tracker.accept(20);
+        tracker.accept(30);
+
+        // then
+        Assertions.assertEquals(Arrays.asList(10L), notifications);
+    }
+
+    @Test
+    public void shouldNotifyEveryUpdateWithoutInterval() {
+        // given
+        List<Long> notifications = new ArrayList<>();
+        ProgressTracker tracker = new ProgressTracker(100, 0, (processed, total, remaining) -> notifications.add(total));
+
+        // when
+        tracker.accept(10);
+        tracker.accept(20);
+
+        // then
+        Assertions.assertEquals(Arrays.asList(100L, 100L), notifications);
+    }
+
+    @Test
+    public void shouldEstimateRemainingTimeFromAverageSpeed() {
+        // given
+        ProgressTracker tracker = new ProgressTracker(1000, 0, (processed, total, remaining) -> {
+        });
+
+        // when
+        long remaining = tracker.estimateRemainingMillis(250, 3_000_000_000L);
+
+        // then
+        Assertions.assertEquals(9000, remaining);
+        Assertions.assertEquals(0, tracker.estimateRemainingMillis(2000, 3_000_000_000L));
+        Assertions.assertEquals(-1, tracker.estimateRemainingMillis(0, 3_000_000_000L));
+    }
+
+    @Test
+    public void shouldNotEstimateRemainingTimeWithUnknownTotal() {
+        // given
+        ProgressTracker tracker = new ProgressTracker(0, 0, (processed, total, remaining) -> {
+        });
+
+        // when
+        long remaining = tracker.estimateRemainingMillis(250, 3_000_000_000L);
+
+        // then
+        Assertions.assertEquals(-1, remaining);
+    }
+}
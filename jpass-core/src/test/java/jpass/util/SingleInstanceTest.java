@@ -0,0 +1,87 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link SingleInstance}.
+ */
+class SingleInstanceTest {
+
+    @Test
+    public void shouldForwardArgumentsToRunningInstance() throws Exception {
+        // given
+        Path directory = Files.createTempDirectory("jpass");
+        SingleInstance instance = SingleInstance.acquire(directory).get();
+        BlockingQueue<List<String>> received = new LinkedBlockingQueue<>();
+
+        try {
+            // when
+            Optional<SingleInstance> otherInstance = SingleInstance.acquire(directory);
+            boolean pendingForwarded = SingleInstance.forward(directory, Arrays.asList("/tmp/first.jpass", "/tmp/second.jpass"));
+            instance.setArgumentsHandler(received::add);
+            boolean forwarded = SingleInstance.forward(directory, Collections.emptyList());
+
+            // then
+            Assertions.assertFalse(otherInstance.isPresent());
+            Assertions.assertTrue(pendingForwarded);
+            Assertions.assertTrue(forwarded);
+            Assertions.assertEquals(Arrays.asList("/tmp/first.jpass", "/tmp/second.jpass"), received.poll(10, TimeUnit.SECONDS));
+            Assertions.assertEquals(Collections.emptyList(), received.poll(10, TimeUnit.SECONDS));
+        } finally {
+            instance.close();
+        }
+    }
+
+    @Test
+    public void shouldAcquireAfterRunningInstanceClosed() throws Exception {
+        // given
+        Path directory = Files.createTempDirectory("jpass");
+        SingleInstance instance = SingleInstance.acquire(directory).get();
+
+        // when
+        instance.close();
+        Optional<SingleInstance> nextInstance = SingleInstance.acquire(directory);
+
+        // then
+        Assertions.assertTrue(nextInstance.isPresent());
+        nextInstance.get().close();
+    }
+}
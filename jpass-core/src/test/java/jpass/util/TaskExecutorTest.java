@@ -0,0 +1,155 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link TaskExecutor}.
+ */
+class TaskExecutorTest {
+
+    private final TaskExecutor executor = new TaskExecutor();
+
+    @Test
+    public void shouldRunTasksInOrderOfSubmission() throws Exception {
+        // given
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        FutureTask<Void> first = new FutureTask<>(() -> {
+            started.countDown();
+            latch.await();
+            events.add("first");
+            return null;
+        });
+        FutureTask<Void> second = new FutureTask<>(() -> events.add("second"), null);
+
+        // when
+        executor.submit("first", first, 0);
+        executor.submit("second", second, 0);
+        started.await(5, TimeUnit.SECONDS);
+        String running = executor.getRunningTaskName();
+        List<String> pending = executor.getPendingTaskNames();
+        latch.countDown();
+        second.get(5, TimeUnit.SECONDS);
+
+        // then
+        Assertions.assertEquals("first", running);
+        Assertions.assertEquals(Arrays.asList("second"), pending);
+        Assertions.assertEquals(Arrays.asList("first", "second"), events);
+    }
+
+    @Test
+    public void shouldCancelPendingTask() throws Exception {
+        // given
+        CountDownLatch latch = new CountDownLatch(1);
+        FutureTask<Void> running = new FutureTask<>(() -> {
+            latch.await();
+            return null;
+        });
+        FutureTask<Void> pending = new FutureTask<>(() -> Assertions.fail("should not run"), null);
+        executor.submit("running", running, 0);
+        TaskExecutor.Task task = executor.submit("pending", pending, 0);
+
+        // when
+        boolean cancelled = task.cancel();
+        latch.countDown();
+        running.get(5, TimeUnit.SECONDS);
+
+        // then
+        Assertions.assertTrue(cancelled);
+        Assertions.assertTrue(pending.isCancelled());
+        Assertions.assertTrue(executor.getPendingTaskNames().isEmpty());
+        Assertions.assertEquals(1, executor.getMetrics("pending").getCancelledCount());
+    }
+
+    @Test
+    public void shouldCancelTaskAfterTimeout() throws Exception {
+        // given
+        FutureTask<Void> work = new FutureTask<>(() -> {
+            Thread.sleep(60_000);
+            return null;
+        });
+
+        // when
+        TaskExecutor.Task task = executor.submit("slow", work, 50);
+
+        // then
+        Assertions.assertThrows(CancellationException.class, () -> work.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(task.isTimedOut());
+    }
+
+    @Test
+    public void shouldRecordMetricsPerTaskName() throws Exception {
+        // given
+        FutureTask<Void> succeeding = new FutureTask<>(() -> null);
+        FutureTask<Void> failing = new FutureTask<>(() -> {
+            throw new IllegalStateException("failed");
+        });
+        FutureTask<Void> last = new FutureTask<>(() -> null);
+
+        // when
+        executor.submit("save", succeeding, 0);
+        executor.submit("save", failing, 0);
+        executor.submit("open", last, 0);
+        last.get(5, TimeUnit.SECONDS);
+        Assertions.assertThrows(ExecutionException.class, () -> failing.get());
+
+        // then
+        TaskExecutor.Metrics metrics = waitForMetrics("save", 2);
+        Assertions.assertEquals(2, metrics.getCount());
+        Assertions.assertEquals(1, metrics.getFailedCount());
+        Assertions.assertEquals(0, metrics.getCancelledCount());
+        Assertions.assertTrue(metrics.toString().startsWith("save: 2 runs (1 failed, 0 cancelled)"));
+    }
+
+    private TaskExecutor.Metrics waitForMetrics(String name, int count) throws InterruptedException {
+        // metrics are recorded right after the work completed
+        for (int i = 0; i < 500; i++) {
+            TaskExecutor.Metrics metrics = executor.getMetrics(name);
+            if (metrics != null && metrics.getCount() >= count) {
+                return metrics;
+            }
+            Thread.sleep(10);
+        }
+        return executor.getMetrics(name);
+    }
+}
@@ -27,7 +27,7 @@ fi
 
 mkdir -p "/opt/jpass"
 cp -R "$JPASS_PATH" "/opt/jpass"
-chmod +x "/opt/jpass/jpass.sh"
+chmod +x "/opt/jpass/jpass.sh" "/opt/jpass/jpass-cli.sh"
 
 echo "Add JPass desktop entry..."
 if [ ! -d "/usr/share/applications" ]; then
@@ -28,18 +28,17 @@
  */
 package jpass;
 
-import com.formdev.flatlaf.FlatDarkLaf;
-import com.formdev.flatlaf.FlatLaf;
-import com.formdev.flatlaf.FlatLightLaf;
 import javax.swing.SwingUtilities;
-import javax.swing.UIManager;
 
 import jpass.ui.JPassFrame;
-import jpass.util.Configuration;
+import jpass.util.SingleInstance;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.swing.JDialog;
-import javax.swing.JFrame;
 
 /**
  * Entry point of JPass.
@@ -60,21 +59,41 @@ public final class JPass {
     }
 
     public static void main(final String[] args) {
-        try {
-            UIManager.put("Button.arc", 4);
-            FlatLaf lookAndFeel;
-            if (Configuration.getInstance().is("ui.theme.dark.mode.enabled", false)) {
-                lookAndFeel = new FlatDarkLaf();
-            } else {
-                lookAndFeel = new FlatLightLaf();
+        Optional<SingleInstance> singleInstance = Optional.empty();
+        if (SingleInstance.isEnabled()) {
+            try {
+                singleInstance = SingleInstance.acquire(SingleInstance.getDefaultDirectory());
+                if (!singleInstance.isPresent() && SingleInstance.forward(SingleInstance.getDefaultDirectory(), getFileArguments(args))) {
+                    return;
+                }
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Could not check running instance", e);
             }
-            JFrame.setDefaultLookAndFeelDecorated(true);
-            JDialog.setDefaultLookAndFeelDecorated(true);
-            UIManager.setLookAndFeel(lookAndFeel);
-        } catch (Exception e) {
-            LOG.log(Level.CONFIG, "Could not set look and feel for the application", e);
         }
 
-        SwingUtilities.invokeLater(() -> JPassFrame.getInstance((args.length > 0) ? args[0] : null));
+        // the look and feel is set only for the running instance, a forwarding launch exits without it
+        JPassFrame.setLookAndFeel();
+
+        final Optional<SingleInstance> runningInstance = singleInstance;
+        SwingUtilities.invokeLater(() -> {
+            JPassFrame frame = JPassFrame.getInstance((args.length > 0) ? args[0] : null);
+            runningInstance.ifPresent(instance -> instance.setArgumentsHandler(
+                    fileNames -> SwingUtilities.invokeLater(() -> frame.openForwardedFiles(fileNames))));
+        });
+    }
+
+    /**
+     * Gets the file arguments with absolute paths, as the running instance
+     * may have a different working directory.
+     *
+     * @param args command line arguments
+     * @return absolute paths of the files
+     */
+    private static List<String> getFileArguments(String[] args) {
+        List<String> fileNames = new ArrayList<>(args.length);
+        for (String arg : args) {
+            fileNames.add(new File(arg).getAbsolutePath());
+        }
+        return fileNames;
     }
 }
@@ -0,0 +1,101 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.ui;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import jpass.xml.bind.Entry;
+
+import static jpass.ui.JPassFrame.getLocalizedMessages;
+import static jpass.util.Constants.VIEW_WINDOW_CREATED;
+import static jpass.util.Constants.VIEW_WINDOW_MODIFIED;
+import static jpass.util.Constants.VIEW_WINDOW_TITLE;
+import static jpass.util.Constants.VIEW_WINDOW_URL;
+import static jpass.util.Constants.VIEW_WINDOW_USER;
+
+/**
+ * Entry details which can be displayed in the entry details table.
+ */
+enum DetailType {
+    TITLE(getLocalizedMessages().getString(VIEW_WINDOW_TITLE), Entry::getTitle, null),
+    URL(getLocalizedMessages().getString(VIEW_WINDOW_URL), Entry::getUrl, null),
+    USER(getLocalizedMessages().getString(VIEW_WINDOW_USER), Entry::getUser, null),
+    MODIFIED(getLocalizedMessages().getString(VIEW_WINDOW_MODIFIED), Entry::getLastModification, Entry::getLastModificationTime),
+    CREATED(getLocalizedMessages().getString(VIEW_WINDOW_CREATED), Entry::getCreationDate, Entry::getCreationTime);
+
+    static final Map<String, DetailType> DETAILS_BY_NAME = Arrays.stream(values())
+            .collect(Collectors.toMap(Enum::name, Function.identity()));
+
+    private final String description;
+    private final Function<Entry, String> valueMapper;
+    private final ToLongFunction<Entry> timeMapper;
+
+    DetailType(String description, Function<Entry, String> valueMapper, ToLongFunction<Entry> timeMapper) {
+        this.description = description;
+        this.valueMapper = valueMapper;
+        this.timeMapper = timeMapper;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the raw value of this detail, dates are not formatted.
+     *
+     * @param entry the entry
+     * @return the value
+     */
+    public String getValue(Entry entry) {
+        return entry != null ? valueMapper.apply(entry) : "";
+    }
+
+    /**
+     * Checks if the detail is a date which should be formatted for display.
+     *
+     * @return {@code true} for date details
+     */
+    public boolean isDate() {
+        return timeMapper != null;
+    }
+
+    /**
+     * Gets the parsed value of a date detail.
+     *
+     * @param entry the entry
+     * @return the date in epoch milliseconds
+     */
+    public long getTime(Entry entry) {
+        return timeMapper.applyAsLong(entry);
+    }
+}
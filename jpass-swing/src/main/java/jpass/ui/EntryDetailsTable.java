@@ -0,0 +1,355 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.ui;
+
+import java.awt.Component;
+import java.awt.FontMetrics;
+import java.awt.Insets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import javax.swing.JComponent;
+import javax.swing.JTable;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.TableColumn;
+import jpass.ui.action.TableListener;
+import jpass.util.Configuration;
+import jpass.xml.bind.Entry;
+
+/**
+ * Table to display entry details.
+ */
+public class EntryDetailsTable extends JTable {
+
+    private static final String[] DEFAULT_DETAILS = {
+        DetailType.TITLE.name(),
+        DetailType.MODIFIED.name()
+    };
+
+    /**
+     * Maximum number of rows to measure when all rows of the table changed.
+     */
+    private static final int MEASURED_ROW_LIMIT = 1000;
+
+    private final List<DetailType> detailsToDisplay;
+    private final EntryTableModel tableModel;
+
+    /**
+     * Horizontal padding of the cell renderer, -1 if not yet calculated.
+     */
+    private int cellPadding = -1;
+
+    public EntryDetailsTable() {
+        super();
+
+        detailsToDisplay = Arrays.stream(Configuration.getInstance().getArray("entry.details", DEFAULT_DETAILS))
+                .map(DetailType.DETAILS_BY_NAME::get)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        if (detailsToDisplay.isEmpty()) {
+            Arrays.stream(DEFAULT_DETAILS)
+                    .map(DetailType.DETAILS_BY_NAME::get)
+                    .forEach(detailsToDisplay::add);
+        }
+
+        tableModel = new EntryTableModel(detailsToDisplay);
+        setModel(tableModel);
+        setRowSorter(new EntryRowSorter());
+        getTableHeader().setReorderingAllowed(false);
+        addMouseListener(new TableListener());
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    /**
+     * Adjusts the column widths to the changed rows as well.
+     *
+     * @param event the table model event
+     */
+    @Override
+    public void tableChanged(TableModelEvent event) {
+        super.tableChanged(event);
+        // the table model is set by the super constructor before this table is initialized
+        if (this.tableModel == null || event.getType() == TableModelEvent.DELETE) {
+            return;
+        }
+        int rowCount = this.tableModel.getRowCount();
+        if (event.getFirstRow() == TableModelEvent.HEADER_ROW || event.getLastRow() >= rowCount) {
+            int step = Math.max(1, rowCount / MEASURED_ROW_LIMIT);
+            for (int row = 0; row < rowCount; row += step) {
+                fitColumnWidths(row);
+            }
+        } else {
+            for (int row = event.getFirstRow(); row <= event.getLastRow(); row++) {
+                fitColumnWidths(row);
+            }
+        }
+    }
+
+    /**
+     * Resets the cached renderer padding, as it may change with the look and
+     * feel.
+     */
+    @Override
+    public void updateUI() {
+        super.updateUI();
+        this.cellPadding = -1;
+    }
+
+    /**
+     * Widens the columns (except the first one), if the values of the given
+     * model row do not fit. Columns are never narrowed.
+     *
+     * @param row model row index
+     */
+    private void fitColumnWidths(int row) {
+        FontMetrics fontMetrics = getFontMetrics(getFont());
+        for (int column = 1; column < this.tableModel.getColumnCount(); column++) {
+            Object value = this.tableModel.getValueAt(row, column);
+            if (value == null) {
+                continue;
+            }
+            int width = fontMetrics.stringWidth(value.toString()) + getCellPadding() + getIntercellSpacing().width;
+            TableColumn tableColumn = getColumnModel().getColumn(column);
+            if (width > tableColumn.getPreferredWidth()) {
+                tableColumn.setPreferredWidth(width);
+                tableColumn.setMaxWidth(width);
+            }
+        }
+    }
+
+    /**
+     * Gets the horizontal padding of the default cell renderer.
+     *
+     * @return the sum of left and right insets
+     */
+    private int getCellPadding() {
+        if (this.cellPadding == -1) {
+            Component component = getDefaultRenderer(String.class).getTableCellRendererComponent(this, "", false, false, 0, 0);
+            Insets insets = component instanceof JComponent ? ((JComponent) component).getInsets() : new Insets(0, 0, 0, 0);
+            this.cellPadding = insets.left + insets.right;
+        }
+        return this.cellPadding;
+    }
+
+    public void clear() {
+        tableModel.setEntries(Collections.emptyList(), entry -> true);
+    }
+
+    /**
+     * Sets the entries to display.
+     *
+     * @param entries the entries in display order, the list is not copied
+     * @param filter the filter which was used to select the entries
+     */
+    public void setEntries(List<Entry> entries, Predicate<Entry> filter) {
+        tableModel.setEntries(entries, filter);
+    }
+
+    /**
+     * Inserts an entry, if it passes the filter of the displayed entries.
+     *
+     * @param entry the entry
+     */
+    public void insertEntry(Entry entry) {
+        tableModel.insertEntry(entry);
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param entry the entry
+     */
+    public void removeEntry(Entry entry) {
+        tableModel.removeEntry(entry);
+    }
+
+    /**
+     * Replaces an entry with an updated one.
+     *
+     * @param oldEntry the replaced entry
+     * @param newEntry the updated entry
+     */
+    public void updateEntry(Entry oldEntry, Entry newEntry) {
+        boolean selected = oldEntry == getSelectedEntry();
+        int row = tableModel.updateEntry(oldEntry, newEntry);
+        if (selected && row != -1) {
+            selectRow(row);
+        }
+    }
+
+    /**
+     * Selects the row of the given entry.
+     *
+     * @param entry the entry
+     * @return {@code true} if the entry is displayed and selected
+     */
+    public boolean selectEntry(Entry entry) {
+        int row = entry == null ? -1 : tableModel.indexOf(entry);
+        if (row != -1) {
+            selectRow(convertRowIndexToView(row));
+        }
+        return row != -1;
+    }
+
+    /**
+     * Selects the given row and scrolls it into view.
+     *
+     * @param row row index
+     */
+    private void selectRow(int row) {
+        setRowSelectionInterval(row, row);
+        scrollRectToVisible(getCellRect(row, 0, true));
+    }
+
+    /**
+     * Gets the entry displayed in the given row.
+     *
+     * @param row row index
+     * @return the entry
+     */
+    public Entry getEntryAt(int row) {
+        return tableModel.getEntryAt(convertRowIndexToModel(row));
+    }
+
+    /**
+     * Gets the selected entry.
+     *
+     * @return the selected entry, or {@code null} if no entry is selected
+     */
+    public Entry getSelectedEntry() {
+        int selectedRow = getSelectedRow();
+        return selectedRow == -1 ? null : getEntryAt(selectedRow);
+    }
+
+    public int rowCount() {
+        return tableModel.getRowCount();
+    }
+
+    /**
+     * Row sorter which delegates sorting to the table model, so view and
+     * model row indices are always the same. It keeps track of the sort keys,
+     * which are displayed in the table header.
+     */
+    private final class EntryRowSorter extends RowSorter<EntryTableModel> {
+
+        private List<SortKey> sortKeys = Collections.emptyList();
+
+        @Override
+        public EntryTableModel getModel() {
+            return tableModel;
+        }
+
+        @Override
+        public void toggleSortOrder(int column) {
+            boolean ascending = this.sortKeys.isEmpty()
+                    || this.sortKeys.get(0).getColumn() != column
+                    || this.sortKeys.get(0).getSortOrder() != SortOrder.ASCENDING;
+            setSortKeys(Collections.singletonList(new SortKey(column, ascending ? SortOrder.ASCENDING : SortOrder.DESCENDING)));
+        }
+
+        @Override
+        public void setSortKeys(List<? extends SortKey> keys) {
+            SortKey sortKey = keys == null || keys.isEmpty() ? null : keys.get(0);
+            if (sortKey == null || sortKey.getSortOrder() == SortOrder.UNSORTED) {
+                return;
+            }
+            this.sortKeys = Collections.singletonList(sortKey);
+            Entry selectedEntry = getSelectedEntry();
+            tableModel.sort(sortKey.getColumn(), sortKey.getSortOrder() == SortOrder.ASCENDING);
+            fireSortOrderChanged();
+            selectEntry(selectedEntry);
+        }
+
+        @Override
+        public List<? extends SortKey> getSortKeys() {
+            return this.sortKeys;
+        }
+
+        @Override
+        public int convertRowIndexToModel(int index) {
+            return index;
+        }
+
+        @Override
+        public int convertRowIndexToView(int index) {
+            return index;
+        }
+
+        @Override
+        public int getViewRowCount() {
+            return tableModel.getRowCount();
+        }
+
+        @Override
+        public int getModelRowCount() {
+            return tableModel.getRowCount();
+        }
+
+        @Override
+        public void modelStructureChanged() {
+            // model rows are already sorted
+        }
+
+        @Override
+        public void allRowsChanged() {
+            // model rows are already sorted
+        }
+
+        @Override
+        public void rowsInserted(int firstRow, int endRow) {
+            // model rows are already sorted
+        }
+
+        @Override
+        public void rowsDeleted(int firstRow, int endRow) {
+            // model rows are already sorted
+        }
+
+        @Override
+        public void rowsUpdated(int firstRow, int endRow) {
+            // model rows are already sorted
+        }
+
+        @Override
+        public void rowsUpdated(int firstRow, int endRow, int column) {
+            // model rows are already sorted
+        }
+    }
+}
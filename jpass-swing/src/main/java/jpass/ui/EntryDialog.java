@@ -250,10 +250,12 @@ public class EntryDialog extends JDialog implements ActionListener {
         this.originalTitle = entry.getTitle() == null ? "" : entry.getTitle();
         this.titleField.setText(this.originalTitle + (this.newEntry ? " (copy)" : ""));
         this.userField.setText(entry.getUser() == null ? "" : entry.getUser());
-        this.passwordField.setText(entry.getPassword() == null ? "" : entry.getPassword());
-        this.repeatField.setText(entry.getPassword() == null ? "" : entry.getPassword());
+        String password = entry.getPassword();
+        this.passwordField.setText(password == null ? "" : password);
+        this.repeatField.setText(password == null ? "" : password);
         this.urlField.setText(entry.getUrl() == null ? "" : entry.getUrl());
-        this.notesField.setText(entry.getNotes() == null ? "" : entry.getNotes());
+        String notes = entry.getNotes();
+        this.notesField.setText(notes == null ? "" : notes);
         this.notesField.setCaretPosition(0);
     }
 
@@ -267,7 +269,9 @@ public class EntryDialog extends JDialog implements ActionListener {
 
         String title = StringUtils.stripNonValidXMLCharacters(this.titleField.getText());
         String user = StringUtils.stripNonValidXMLCharacters(this.userField.getText());
-        String password = StringUtils.stripNonValidXMLCharacters(String.valueOf(this.passwordField.getPassword()));
+        char[] passwordChars = this.passwordField.getPassword();
+        String password = StringUtils.stripNonValidXMLCharacters(String.valueOf(passwordChars));
+        Arrays.fill(passwordChars, '\0');
         String url = StringUtils.stripNonValidXMLCharacters(this.urlField.getText());
         String notes = StringUtils.stripNonValidXMLCharacters(this.notesField.getText());
 
@@ -0,0 +1,357 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.ui;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.function.Predicate;
+
+import javax.swing.table.AbstractTableModel;
+
+import jpass.data.EntrySearch;
+import jpass.util.Configuration;
+import jpass.util.DateUtils;
+import jpass.util.LruCache;
+import jpass.xml.bind.Entry;
+
+/**
+ * Table model which displays the details of a list of entries.
+ *
+ * <p>
+ * The model does not copy the entry details, it refers to the displayed
+ * (filtered and sorted) list of entries directly, and the cell values are
+ * computed only when they are requested by the table, which happens for the
+ * visible rows only. Dates are parsed once by the entries, and the formatted
+ * dates are cached.
+ * </p>
+ *
+ * <p>
+ * The entries are ordered by title by default, and can be sorted by any of
+ * the displayed details. Text details are compared by collation keys, which
+ * are computed once per entry instance, and dates by their parsed values.
+ * </p>
+ *
+ * <p>
+ * Single entries can be inserted, removed or updated incrementally. The rows
+ * of the entries are found with binary search in the displayed list, and only
+ * the affected rows are reported to the table.
+ * </p>
+ */
+final class EntryTableModel extends AbstractTableModel {
+
+    private static final DateTimeFormatter FORMATTER
+            = DateUtils.createFormatter(Configuration.getInstance().get("date.format", "yyyy-MM-dd"));
+
+    /**
+     * Maximum number of cached formatted dates.
+     */
+    private static final int FORMATTED_DATE_CACHE_SIZE = 1024;
+
+    private final List<DetailType> details;
+    private final Map<Long, String> formattedDates = new LruCache<>(FORMATTED_DATE_CACHE_SIZE);
+    private final Map<DetailType, Map<Entry, SortKey>> sortKeys = new EnumMap<>(DetailType.class);
+    private final Collator collator = Collator.getInstance();
+    private Comparator<Entry> comparator = EntrySearch.TITLE_ORDER;
+    private DetailType sortDetail;
+    private boolean ascending = true;
+    private List<Entry> entries = Collections.emptyList();
+    private Predicate<Entry> filter = entry -> true;
+
+    /**
+     * Signals if the displayed list is owned by someone else, so it should be
+     * copied before modification.
+     */
+    private boolean shared = false;
+
+    /**
+     * Creates a new table model.
+     *
+     * @param details details to display as columns
+     */
+    EntryTableModel(List<DetailType> details) {
+        this.details = details;
+    }
+
+    /**
+     * Sets the displayed entries.
+     *
+     * @param entries the entries in display order, the list is not copied
+     * @param filter the filter which was used to select the displayed entries
+     */
+    public void setEntries(List<Entry> entries, Predicate<Entry> filter) {
+        this.filter = filter;
+        if (this.sortDetail == null) {
+            this.entries = entries;
+            this.shared = true;
+        } else {
+            this.entries = sortEntries(entries);
+            this.shared = false;
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Sorts the displayed entries by the given column. Entries with equal
+     * values are ordered by title.
+     *
+     * @param columnIndex the column index
+     * @param ascending {@code true} for ascending, {@code false} for
+     * descending order
+     */
+    public void sort(int columnIndex, boolean ascending) {
+        this.sortDetail = this.details.get(columnIndex);
+        this.ascending = ascending;
+        this.comparator = (first, second) -> compareSortKeys(getSortKey(first), getSortKey(second));
+        this.entries = sortEntries(this.entries);
+        this.shared = false;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Sorts the given entries by the current sort detail. The sort keys are
+     * looked up once per entry, not once per comparison.
+     *
+     * @param unsortedEntries the entries to sort
+     * @return new list of sorted entries
+     */
+    private List<Entry> sortEntries(List<Entry> unsortedEntries) {
+        List<SortedEntry> sortedEntries = new ArrayList<>(unsortedEntries.size());
+        for (Entry entry : unsortedEntries) {
+            sortedEntries.add(new SortedEntry(entry, getSortKey(entry)));
+        }
+        sortedEntries.sort((first, second) -> compareSortKeys(first.sortKey, second.sortKey));
+        List<Entry> result = new ArrayList<>(sortedEntries.size());
+        for (SortedEntry sortedEntry : sortedEntries) {
+            result.add(sortedEntry.entry);
+        }
+        return result;
+    }
+
+    /**
+     * Compares sort keys of the current sort detail and direction.
+     *
+     * @param first the first sort key
+     * @param second the second sort key
+     * @return the comparison result
+     */
+    private int compareSortKeys(SortKey first, SortKey second) {
+        int result = first.text != null ? first.text.compareTo(second.text) : Long.compare(first.time, second.time);
+        if (!this.ascending) {
+            result = -result;
+        }
+        return result != 0 ? result : first.title.compareTo(second.title);
+    }
+
+    /**
+     * Gets the sort key of an entry for the current sort detail. Keys are
+     * cached for entry instances, as entries are replaced on modification.
+     *
+     * @param entry the entry
+     * @return the sort key
+     */
+    private SortKey getSortKey(Entry entry) {
+        DetailType detail = this.sortDetail;
+        return this.sortKeys
+                .computeIfAbsent(detail, d -> new WeakHashMap<>())
+                .computeIfAbsent(entry, e -> new SortKey(detail, e, this.collator));
+    }
+
+    /**
+     * Inserts an entry into the displayed entries, if it passes the filter.
+     *
+     * @param entry the entry
+     * @return the row of the inserted entry, or -1 if it is not displayed
+     */
+    public int insertEntry(Entry entry) {
+        if (!this.filter.test(entry)) {
+            return -1;
+        }
+        int rowIndex = Collections.binarySearch(this.entries, entry, this.comparator);
+        if (rowIndex < 0) {
+            rowIndex = -(rowIndex + 1);
+        }
+        getModifiableEntries().add(rowIndex, entry);
+        fireTableRowsInserted(rowIndex, rowIndex);
+        return rowIndex;
+    }
+
+    /**
+     * Removes an entry from the displayed entries.
+     *
+     * @param entry the entry
+     * @return the former row of the entry, or -1 if it was not displayed
+     */
+    public int removeEntry(Entry entry) {
+        int rowIndex = indexOf(entry);
+        if (rowIndex != -1) {
+            getModifiableEntries().remove(rowIndex);
+            fireTableRowsDeleted(rowIndex, rowIndex);
+        }
+        return rowIndex;
+    }
+
+    /**
+     * Replaces an entry with an updated one. If the position of the entry
+     * does not change, only its row is updated.
+     *
+     * @param oldEntry the replaced entry
+     * @param newEntry the updated entry
+     * @return the row of the updated entry, or -1 if it is not displayed
+     */
+    public int updateEntry(Entry oldEntry, Entry newEntry) {
+        int rowIndex = indexOf(oldEntry);
+        if (rowIndex != -1 && this.filter.test(newEntry)
+                && (rowIndex == 0 || this.comparator.compare(this.entries.get(rowIndex - 1), newEntry) <= 0)
+                && (rowIndex == this.entries.size() - 1 || this.comparator.compare(newEntry, this.entries.get(rowIndex + 1)) <= 0)) {
+            getModifiableEntries().set(rowIndex, newEntry);
+            fireTableRowsUpdated(rowIndex, rowIndex);
+            return rowIndex;
+        }
+        removeEntry(oldEntry);
+        return insertEntry(newEntry);
+    }
+
+    /**
+     * Gets the row of the given entry.
+     *
+     * @param entry the entry
+     * @return the row index, or -1 if the entry is not displayed
+     */
+    public int indexOf(Entry entry) {
+        int found = Collections.binarySearch(this.entries, entry, this.comparator);
+        if (found < 0) {
+            return -1;
+        }
+        // other entries may be equal by order, look for the same instance
+        for (int rowIndex = found; rowIndex >= 0 && this.comparator.compare(this.entries.get(rowIndex), entry) == 0; rowIndex--) {
+            if (this.entries.get(rowIndex) == entry) {
+                return rowIndex;
+            }
+        }
+        for (int rowIndex = found + 1; rowIndex < this.entries.size() && this.comparator.compare(this.entries.get(rowIndex), entry) == 0; rowIndex++) {
+            if (this.entries.get(rowIndex) == entry) {
+                return rowIndex;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the displayed list for modification.
+     *
+     * @return the modifiable list of displayed entries
+     */
+    private List<Entry> getModifiableEntries() {
+        if (this.shared) {
+            this.entries = new ArrayList<>(this.entries);
+            this.shared = false;
+        }
+        return this.entries;
+    }
+
+    /**
+     * Gets the entry displayed in the given row.
+     *
+     * @param rowIndex row index
+     * @return the entry
+     */
+    public Entry getEntryAt(int rowIndex) {
+        return this.entries.get(rowIndex);
+    }
+
+    @Override
+    public int getRowCount() {
+        return this.entries.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return this.details.size();
+    }
+
+    @Override
+    public String getColumnName(int columnIndex) {
+        return this.details.get(columnIndex).getDescription();
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return String.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        DetailType detail = this.details.get(columnIndex);
+        Entry entry = this.entries.get(rowIndex);
+        if (detail.isDate()) {
+            return this.formattedDates.computeIfAbsent(detail.getTime(entry), time -> DateUtils.formatEpochMillis(time, FORMATTER));
+        }
+        return detail.getValue(entry);
+    }
+
+    /**
+     * Precomputed sort key of an entry: collation keys for text details and
+     * parsed values for dates.
+     */
+    private static final class SortKey {
+
+        private final CollationKey text;
+        private final long time;
+        private final CollationKey title;
+
+        SortKey(DetailType detail, Entry entry, Collator collator) {
+            this.text = detail.isDate() ? null : collator.getCollationKey(Objects.toString(detail.getValue(entry), ""));
+            this.time = detail.isDate() ? detail.getTime(entry) : 0L;
+            this.title = detail == DetailType.TITLE ? this.text : collator.getCollationKey(Objects.toString(entry.getTitle(), ""));
+        }
+    }
+
+    /**
+     * Entry decorated with its sort key for sorting.
+     */
+    private static final class SortedEntry {
+
+        private final Entry entry;
+        private final SortKey sortKey;
+
+        SortedEntry(Entry entry, SortKey sortKey) {
+            this.entry = entry;
+            this.sortKey = sortKey;
+        }
+    }
+}
@@ -0,0 +1,751 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.ui;
+
+import com.formdev.flatlaf.FlatDarkLaf;
+import com.formdev.flatlaf.FlatLaf;
+import com.formdev.flatlaf.FlatLightLaf;
+import jpass.data.DataModel;
+import jpass.data.DataModelListener;
+import jpass.data.EntrySearch;
+import jpass.ui.action.CloseListener;
+import jpass.ui.action.MenuActionType;
+import jpass.ui.action.SearchWorker;
+import jpass.ui.helper.EntryHelper;
+import jpass.ui.helper.FileHelper;
+import jpass.util.Configuration;
+import jpass.xml.bind.Entry;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.event.KeyEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JList;
+import javax.swing.JMenu;
+import javax.swing.JMenuBar;
+import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.JToolBar;
+import javax.swing.UIManager;
+import javax.swing.WindowConstants;
+
+import static jpass.ui.MessageDialog.NO_OPTION;
+import static jpass.ui.MessageDialog.YES_NO_CANCEL_OPTION;
+import static jpass.ui.MessageDialog.YES_OPTION;
+import static jpass.ui.MessageDialog.getIcon;
+import static jpass.ui.MessageDialog.showQuestionMessage;
+import static jpass.util.Constants.BOTTOM_MENU_ENTRIES_COUNT;
+import static jpass.util.Constants.BOTTOM_MENU_ENTRIES_FOUND;
+import static jpass.util.Constants.EDIT_MENU;
+import static jpass.util.Constants.FILE_MENU;
+import static jpass.util.Constants.HELP_MENU;
+import static jpass.util.Constants.PANEL_VAULT;
+import static jpass.util.Constants.PANEL_SAVE_MODIFIED_QUESTION_MESSAGE;
+import static jpass.util.Constants.TOOLS_MENU;
+
+/**
+ * The main frame for JPass.
+ *
+ * @author Gabor_Bata
+ *
+ */
+public final class JPassFrame extends JFrame {
+
+    private static ResourceBundle localizedMessages;
+    private static final Logger LOG = Logger.getLogger(JPassFrame.class.getName());
+
+    private static JPassFrame instance;
+
+    public static final String PROGRAM_NAME = "JPass Password Manager";
+    public static final String PROGRAM_VERSION = "1.0.7-SNAPSHOT";
+
+    private final JPopupMenu popup;
+    private final JPanel topContainerPanel;
+    private final JMenuBar jpassMenuBar;
+    private final SearchPanel searchPanel;
+    private final JMenu fileMenu;
+    private final JMenu editMenu;
+    private final JMenu toolsMenu;
+    private final JMenu helpMenu;
+    private final JToolBar toolBar;
+    private final JComboBox<DataModel> vaultSelector;
+    private final JScrollPane scrollPane;
+
+    private final EntryDetailsTable entryDetailsTable;
+    private final List<DataModel> vaults = new ArrayList<>();
+    private final DataModelListener modelListener;
+    private DataModel model = DataModel.getInstance();
+    private boolean refreshingVaultSelector = false;
+    private final StatusPanel statusPanel;
+    private volatile boolean processing = false;
+
+    private volatile EntrySearch entrySearch;
+    private SearchWorker searchWorker;
+    private String displayedSearchCriteria = "";
+
+    private JPassFrame(String fileName, Locale locale) {
+        try {
+            setIconImages(Stream.of(16, 20, 32, 40, 64, 80, 128, 160)
+                    .map(size -> getIcon("jpass", size, size).getImage())
+                    .collect(Collectors.toList()));
+        } catch (Exception e) {
+            LOG.log(Level.CONFIG, "Could not set application icon.", e);
+        }
+
+        localizedMessages = ResourceBundle.getBundle("resources.languages.languages", locale);
+
+        this.toolBar = new JToolBar();
+        this.toolBar.setFloatable(false);
+        this.toolBar.add(MenuActionType.NEW_FILE.getAction());
+        this.toolBar.add(MenuActionType.OPEN_FILE.getAction());
+        this.toolBar.add(MenuActionType.SAVE_FILE.getAction());
+        this.toolBar.addSeparator();
+        this.toolBar.add(MenuActionType.ADD_ENTRY.getAction());
+        this.toolBar.add(MenuActionType.EDIT_ENTRY.getAction());
+        this.toolBar.add(MenuActionType.DUPLICATE_ENTRY.getAction());
+        this.toolBar.add(MenuActionType.DELETE_ENTRY.getAction());
+        this.toolBar.addSeparator();
+        this.toolBar.add(MenuActionType.COPY_URL.getAction());
+        this.toolBar.add(MenuActionType.COPY_USER.getAction());
+        this.toolBar.add(MenuActionType.COPY_PASSWORD.getAction());
+        this.toolBar.add(MenuActionType.CLEAR_CLIPBOARD.getAction());
+        this.toolBar.addSeparator();
+        this.toolBar.add(MenuActionType.ABOUT.getAction());
+        this.toolBar.add(MenuActionType.EXIT.getAction());
+        this.toolBar.addSeparator();
+
+        this.vaultSelector = createVaultSelector();
+        this.toolBar.add(this.vaultSelector);
+
+        this.searchPanel = new SearchPanel(enabled -> {
+            if (enabled) {
+                searchEntryTitleList();
+            }
+        });
+
+        this.topContainerPanel = new JPanel(new BorderLayout());
+        this.topContainerPanel.add(this.toolBar, BorderLayout.NORTH);
+        this.topContainerPanel.add(this.searchPanel, BorderLayout.SOUTH);
+
+        this.jpassMenuBar = new JMenuBar();
+
+        this.fileMenu = new JMenu(localizedMessages.getString(FILE_MENU));
+        this.fileMenu.setMnemonic(KeyEvent.VK_F);
+        this.fileMenu.add(MenuActionType.NEW_FILE.getAction());
+        this.fileMenu.add(MenuActionType.OPEN_FILE.getAction());
+        this.fileMenu.add(MenuActionType.SAVE_FILE.getAction());
+        this.fileMenu.add(MenuActionType.SAVE_AS_FILE.getAction());
+        this.fileMenu.addSeparator();
+        this.fileMenu.add(MenuActionType.OPEN_VAULTS.getAction());
+        this.fileMenu.add(MenuActionType.CLOSE_VAULT.getAction());
+        this.fileMenu.addSeparator();
+        this.fileMenu.add(MenuActionType.EXPORT_XML.getAction());
+        this.fileMenu.add(MenuActionType.IMPORT_XML.getAction());
+        this.fileMenu.addSeparator();
+        this.fileMenu.add(MenuActionType.CHANGE_PASSWORD.getAction());
+        this.fileMenu.addSeparator();
+        this.fileMenu.add(MenuActionType.EXIT.getAction());
+        this.jpassMenuBar.add(this.fileMenu);
+
+        this.editMenu = new JMenu(localizedMessages.getString(EDIT_MENU));
+        this.editMenu.setMnemonic(KeyEvent.VK_E);
+        this.editMenu.add(MenuActionType.ADD_ENTRY.getAction());
+        this.editMenu.add(MenuActionType.EDIT_ENTRY.getAction());
+        this.editMenu.add(MenuActionType.DUPLICATE_ENTRY.getAction());
+        this.editMenu.add(MenuActionType.DELETE_ENTRY.getAction());
+        this.editMenu.addSeparator();
+        this.editMenu.add(MenuActionType.COPY_URL.getAction());
+        this.editMenu.add(MenuActionType.COPY_USER.getAction());
+        this.editMenu.add(MenuActionType.COPY_PASSWORD.getAction());
+        this.editMenu.addSeparator();
+        this.editMenu.add(MenuActionType.FIND_ENTRY.getAction());
+        this.editMenu.add(MenuActionType.FIND_IN_VAULTS.getAction());
+        this.jpassMenuBar.add(this.editMenu);
+
+        this.toolsMenu = new JMenu(localizedMessages.getString(TOOLS_MENU));
+        this.toolsMenu.setMnemonic(KeyEvent.VK_T);
+        this.toolsMenu.add(MenuActionType.GENERATE_PASSWORD.getAction());
+        this.toolsMenu.add(MenuActionType.CLEAR_CLIPBOARD.getAction());
+        this.jpassMenuBar.add(this.toolsMenu);
+
+        this.helpMenu = new JMenu(localizedMessages.getString(HELP_MENU));
+        this.helpMenu.setMnemonic(KeyEvent.VK_H);
+        this.helpMenu.add(MenuActionType.LICENSE.getAction());
+        this.helpMenu.addSeparator();
+        this.helpMenu.add(MenuActionType.ABOUT.getAction());
+        this.jpassMenuBar.add(this.helpMenu);
+
+        this.popup = new JPopupMenu();
+        this.popup.add(MenuActionType.ADD_ENTRY.getAction());
+        this.popup.add(MenuActionType.EDIT_ENTRY.getAction());
+        this.popup.add(MenuActionType.DUPLICATE_ENTRY.getAction());
+        this.popup.add(MenuActionType.DELETE_ENTRY.getAction());
+        this.popup.addSeparator();
+        this.popup.add(MenuActionType.COPY_URL.getAction());
+        this.popup.add(MenuActionType.COPY_USER.getAction());
+        this.popup.add(MenuActionType.COPY_PASSWORD.getAction());
+        this.popup.addSeparator();
+        this.popup.add(MenuActionType.FIND_ENTRY.getAction());
+
+        this.entryDetailsTable = new EntryDetailsTable();
+        this.scrollPane = new JScrollPane(this.entryDetailsTable);
+        MenuActionType.bindAllActions(this.entryDetailsTable);
+
+        this.statusPanel = new StatusPanel();
+
+        this.modelListener = createModelListener();
+        this.model.addDataModelListener(this.modelListener);
+        this.vaults.add(this.model);
+        refreshVaultSelector();
+
+        refreshAll();
+
+        getContentPane().add(this.topContainerPanel, BorderLayout.NORTH);
+        getContentPane().add(this.scrollPane, BorderLayout.CENTER);
+        getContentPane().add(this.statusPanel, BorderLayout.SOUTH);
+
+        setJMenuBar(this.jpassMenuBar);
+        setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        setSize(450, 400);
+        setMinimumSize(new Dimension(420, 200));
+        addWindowListener(new CloseListener());
+        setLocationRelativeTo(null);
+        setVisible(true);
+        FileHelper.openFileInBackground(fileName, this);
+
+        // set focus to the list for easier keyboard navigation
+        this.entryDetailsTable.requestFocusInWindow();
+    }
+
+    public static JPassFrame getInstance() {
+        return getInstance(null);
+    }
+
+    public static synchronized JPassFrame getInstance(String fileName) {
+        if (instance == null) {
+            String languageTag = Configuration.getInstance().get("language.languageSetting", "en-US");
+            instance = new JPassFrame(fileName, Locale.forLanguageTag(languageTag));
+        }
+        return instance;
+    }
+
+    /**
+     * Sets the look and feel of the application, before the frame is
+     * created.
+     */
+    public static void setLookAndFeel() {
+        try {
+            UIManager.put("Button.arc", 4);
+            FlatLaf lookAndFeel;
+            if (Configuration.getInstance().is("ui.theme.dark.mode.enabled", false)) {
+                lookAndFeel = new FlatDarkLaf();
+            } else {
+                lookAndFeel = new FlatLightLaf();
+            }
+            JFrame.setDefaultLookAndFeelDecorated(true);
+            JDialog.setDefaultLookAndFeelDecorated(true);
+            UIManager.setLookAndFeel(lookAndFeel);
+        } catch (Exception e) {
+            LOG.log(Level.CONFIG, "Could not set look and feel for the application", e);
+        }
+    }
+
+    /**
+     * Gets the entry title list.
+     *
+     * @return entry title list
+     */
+    public EntryDetailsTable getEntryTitleTable() {
+        return this.entryDetailsTable;
+    }
+
+    /**
+     * Gets the data model of this frame.
+     *
+     * @return data model
+     */
+    public DataModel getModel() {
+        return this.model;
+    }
+
+    /**
+     * Gets the open vaults. Each vault has its own data model, the
+     * selected one is returned by {@link #getModel()}.
+     *
+     * @return unmodifiable list of the open vaults
+     */
+    public List<DataModel> getVaults() {
+        return Collections.unmodifiableList(this.vaults);
+    }
+
+    /**
+     * Adds an unlocked vault and selects it. An empty untitled vault is
+     * replaced by the new one.
+     *
+     * @param vault data model of the vault
+     */
+    public void addVault(DataModel vault) {
+        DataModel previousVault = this.model;
+        this.vaults.add(vault);
+        selectVault(vault);
+        if (previousVault.getFileName() == null && !previousVault.isModified() && previousVault.getEntries().getEntry().isEmpty()) {
+            this.vaults.remove(previousVault);
+            refreshVaultSelector();
+        }
+    }
+
+    /**
+     * Shows the entries of the given vault. The entries of the vault are
+     * already decrypted, so switching does not access the file.
+     *
+     * @param vault data model of an open vault
+     */
+    public void selectVault(DataModel vault) {
+        if (!this.vaults.contains(vault)) {
+            throw new IllegalArgumentException("Vault is not open");
+        }
+        cancelSearch();
+        this.model.removeDataModelListener(this.modelListener);
+        this.model = vault;
+        this.model.addDataModelListener(this.modelListener);
+        this.entrySearch = null;
+        refreshVaultSelector();
+        refreshAll();
+    }
+
+    /**
+     * Brings the frame to the front, and opens the files passed to a later
+     * launch of the application as additional vaults.
+     *
+     * @param fileNames file names of the vaults, may be empty
+     */
+    public void openForwardedFiles(List<String> fileNames) {
+        setExtendedState(getExtendedState() & ~ICONIFIED);
+        toFront();
+        if (!fileNames.isEmpty()) {
+            FileHelper.openVaults(this, fileNames);
+        }
+    }
+
+    /**
+     * Closes the selected vault without saving it, and selects the previous
+     * one. The last open vault is cleared instead.
+     */
+    public void closeVault() {
+        if (this.vaults.size() == 1) {
+            clearModel();
+            refreshAll();
+            return;
+        }
+        int index = this.vaults.indexOf(this.model);
+        DataModel closedVault = this.model;
+        this.vaults.remove(index);
+        selectVault(this.vaults.get(Math.max(0, index - 1)));
+        closedVault.clear();
+    }
+
+    /**
+     * Creates the listener which keeps the entry list in sync with the
+     * selected data model.
+     *
+     * @return the data model listener
+     */
+    private DataModelListener createModelListener() {
+        return new DataModelListener() {
+            @Override
+            public void entryInserted(int index, Entry entry) {
+                entrySearch = null;
+                entryDetailsTable.insertEntry(entry);
+                refreshEntryCount();
+            }
+
+            @Override
+            public void entryRemoved(int index, Entry entry) {
+                entrySearch = null;
+                entryDetailsTable.removeEntry(entry);
+                refreshEntryCount();
+            }
+
+            @Override
+            public void entryUpdated(int index, Entry oldEntry, Entry newEntry) {
+                entrySearch = null;
+                entryDetailsTable.updateEntry(oldEntry, newEntry);
+                refreshEntryCount();
+            }
+
+            @Override
+            public void entriesChanged() {
+                // the entry list is refreshed after bulk changes
+                entrySearch = null;
+            }
+
+            @Override
+            public void searchIndexChanged() {
+                entrySearch = null;
+            }
+        };
+    }
+
+    /**
+     * Creates the combo box which switches between the open vaults.
+     *
+     * @return the vault selector
+     */
+    private JComboBox<DataModel> createVaultSelector() {
+        JComboBox<DataModel> selector = new JComboBox<>();
+        selector.setToolTipText(localizedMessages.getString(PANEL_VAULT));
+        selector.setFocusable(false);
+        selector.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                return super.getListCellRendererComponent(list, getVaultTitle((DataModel) value), index, isSelected, cellHasFocus);
+            }
+        });
+        selector.addActionListener(event -> {
+            DataModel selectedVault = (DataModel) selector.getSelectedItem();
+            if (!this.refreshingVaultSelector && selectedVault != null && selectedVault != this.model) {
+                selectVault(selectedVault);
+            }
+        });
+        return selector;
+    }
+
+    /**
+     * Refreshes the vault selector, which is shown only if more than one
+     * vault is open.
+     */
+    private void refreshVaultSelector() {
+        this.refreshingVaultSelector = true;
+        try {
+            this.vaultSelector.removeAllItems();
+            this.vaults.forEach(this.vaultSelector::addItem);
+            this.vaultSelector.setSelectedItem(this.model);
+        } finally {
+            this.refreshingVaultSelector = false;
+        }
+        this.vaultSelector.setVisible(this.vaults.size() > 1);
+    }
+
+    /**
+     * Gets the title of a vault displayed by the vault selector.
+     *
+     * @param vault data model of the vault
+     * @return vault title
+     */
+    private static String getVaultTitle(DataModel vault) {
+        if (vault == null) {
+            return "";
+        }
+        return (vault.isModified() ? "*" : "")
+                + (vault.getFileName() == null ? "Untitled" : new File(vault.getFileName()).getName());
+    }
+
+    /**
+     * Clears data model.
+     */
+    public void clearModel() {
+        cancelSearch();
+        this.entrySearch = null;
+        this.model.clear();
+        this.entryDetailsTable.clear();
+    }
+
+    /**
+     * Refresh frame title based on data model.
+     */
+    public void refreshFrameTitle() {
+        this.vaultSelector.repaint();
+        setTitle((getModel().isModified() ? "*" : "")
+                + (getModel().getFileName() == null ? "Untitled" : getModel().getFileName()) + " - "
+                + PROGRAM_NAME);
+    }
+
+    /**
+     * Refresh the entry titles based on data model.
+     *
+     * @param selectTitle title to select, or {@code null} if nothing to select
+     */
+    public void refreshEntryTitleList(String selectTitle) {
+        cancelSearch();
+        this.entrySearch = newEntrySearch();
+        String searchCriteria = this.searchPanel.getSearchCriteria();
+        showEntryTitleList(this.entrySearch.search(searchCriteria), searchCriteria, this.entrySearch.getEntryCount(), selectTitle);
+    }
+
+    /**
+     * Creates a search over the current entries, using their search index if
+     * available.
+     *
+     * @return the search
+     */
+    private EntrySearch newEntrySearch() {
+        DataModel.Snapshot snapshot = this.model.getSnapshot();
+        return new EntrySearch(snapshot.getEntryList(), snapshot.getSearchIndex());
+    }
+
+    /**
+     * Filters the entry titles in the background based on the search criteria.
+     * Any previously started search is cancelled. Recent search results are
+     * shown immediately.
+     */
+    public void searchEntryTitleList() {
+        cancelSearch();
+        if (this.entrySearch == null) {
+            this.entrySearch = newEntrySearch();
+        }
+        String searchCriteria = this.searchPanel.getSearchCriteria();
+        Optional<List<Entry>> cachedResult = this.entrySearch.getCachedResult(searchCriteria);
+        if (cachedResult.isPresent()) {
+            showEntryTitleList(cachedResult.get(), searchCriteria, this.entrySearch.getEntryCount(), null);
+            return;
+        }
+        this.searchWorker = new SearchWorker(this, this.entrySearch, searchCriteria);
+        this.searchWorker.execute();
+    }
+
+    /**
+     * Shows the result of a background search, if it belongs to the latest
+     * search.
+     *
+     * @param worker the worker which executed the search
+     * @param entries the matching entries
+     * @param searchCriteria the search criteria
+     * @param entryCount number of all entries
+     */
+    public void showSearchResult(SearchWorker worker, List<Entry> entries, String searchCriteria, int entryCount) {
+        if (worker == this.searchWorker) {
+            this.searchWorker = null;
+            showEntryTitleList(entries, searchCriteria, entryCount, null);
+        }
+    }
+
+    /**
+     * Cancels the running background search.
+     */
+    private void cancelSearch() {
+        if (this.searchWorker != null) {
+            this.searchWorker.cancel(true);
+            this.searchWorker = null;
+        }
+    }
+
+    /**
+     * Selects the given entry in the entry title list, if it is displayed.
+     *
+     * @param entry the entry to select
+     */
+    public void selectEntry(Entry entry) {
+        this.entryDetailsTable.selectEntry(entry);
+    }
+
+    /**
+     * Shows the given entries in the entry title list.
+     *
+     * @param entries entries to show
+     * @param searchCriteria the search criteria
+     * @param entryCount number of all entries
+     * @param selectTitle title to select, or {@code null} if nothing to select
+     */
+    private void showEntryTitleList(List<Entry> entries, String searchCriteria, int entryCount, String selectTitle) {
+        this.displayedSearchCriteria = searchCriteria;
+        this.entryDetailsTable.setEntries(entries, entry -> EntrySearch.matches(entry, searchCriteria));
+        if (selectTitle != null) {
+            this.entryDetailsTable.selectEntry(this.model.getEntryByTitle(selectTitle));
+        }
+        showEntryCount(entryCount);
+    }
+
+    /**
+     * Refreshes the number of displayed and all entries on the status panel.
+     */
+    private void refreshEntryCount() {
+        showEntryCount(this.model.getEntries().getEntry().size());
+    }
+
+    /**
+     * Shows the number of displayed and all entries on the status panel.
+     *
+     * @param entryCount number of all entries
+     */
+    private void showEntryCount(int entryCount) {
+        if (this.displayedSearchCriteria.isEmpty()) {
+            this.statusPanel.setText(String.format("%s: %d", localizedMessages.getString(BOTTOM_MENU_ENTRIES_COUNT), entryCount));
+        } else {
+            this.statusPanel.setText(String.format("%s: %d / %d", localizedMessages.getString(BOTTOM_MENU_ENTRIES_FOUND), this.entryDetailsTable.getRowCount(), entryCount));
+        }
+    }
+
+    /**
+     * Refresh frame title and entry list.
+     */
+    public void refreshAll() {
+        refreshFrameTitle();
+        refreshEntryTitleList(null);
+    }
+
+    /**
+     * Exits the application.
+     */
+    public void exitFrame() {
+        if (Configuration.getInstance().is("clear.clipboard.on.exit.enabled", false)) {
+            EntryHelper.copyEntryField(this, null);
+        }
+        if (this.processing) {
+            return;
+        }
+        exitFrame(new HashSet<>());
+    }
+
+    /**
+     * Asks to save each modified vault, then exits the application.
+     *
+     * @param discardedVaults vaults whose changes should not be saved
+     */
+    private void exitFrame(Set<DataModel> discardedVaults) {
+        Optional<DataModel> modifiedVault = this.vaults.stream()
+                .filter(vault -> vault.isModified() && !discardedVaults.contains(vault))
+                .findFirst();
+        if (modifiedVault.isPresent()) {
+            if (modifiedVault.get() != this.model) {
+                selectVault(modifiedVault.get());
+            }
+            int option = showQuestionMessage(this, localizedMessages.getString(PANEL_SAVE_MODIFIED_QUESTION_MESSAGE), YES_NO_CANCEL_OPTION);
+            if (option == YES_OPTION) {
+                FileHelper.saveFile(this, false, () -> exitFrame(discardedVaults));
+            } else if (option == NO_OPTION) {
+                discardedVaults.add(modifiedVault.get());
+                exitFrame(discardedVaults);
+            }
+            return;
+        }
+        System.exit(0);
+    }
+
+    public JPopupMenu getPopup() {
+        return this.popup;
+    }
+
+    /**
+     * Sets the processing state of this frame.
+     *
+     * @param processing processing state
+     */
+    public void setProcessing(boolean processing) {
+        this.processing = processing;
+        if (processing) {
+            cancelSearch();
+        }
+        for (MenuActionType actionType : MenuActionType.values()) {
+            actionType.getAction().setEnabled(!processing);
+        }
+        this.searchPanel.setEnabled(!processing);
+        this.vaultSelector.setEnabled(!processing);
+        this.entryDetailsTable.setEnabled(!processing);
+        this.statusPanel.setProcessing(processing);
+    }
+
+    /**
+     * Shows a batch of entries loaded while a file is being opened. The
+     * entries are inserted into the displayed entries one by one, so earlier
+     * batches are not sorted again. The entries can be browsed, searched and
+     * copied, but not modified until the whole file is loaded.
+     *
+     * @param batch the entries loaded since the previous batch
+     */
+    public void showLoadedEntries(List<Entry> batch) {
+        // actions available while a file is being opened
+        for (MenuActionType actionType : EnumSet.of(MenuActionType.COPY_URL, MenuActionType.COPY_USER,
+                MenuActionType.COPY_PASSWORD, MenuActionType.CLEAR_CLIPBOARD, MenuActionType.FIND_ENTRY)) {
+            actionType.getAction().setEnabled(true);
+        }
+        this.searchPanel.setEnabled(true);
+        this.entryDetailsTable.setEnabled(true);
+        batch.forEach(this.entryDetailsTable::insertEntry);
+        refreshEntryCount();
+        if (this.searchWorker != null) {
+            // the running search does not cover the new batch
+            searchEntryTitleList();
+        }
+    }
+
+    /**
+     * Gets the processing state of this frame.
+     *
+     * @return processing state
+     */
+    public boolean isProcessing() {
+        return this.processing;
+    }
+
+    /**
+     * Get search panel.
+     *
+     * @return the search panel
+     */
+    public SearchPanel getSearchPanel() {
+        return searchPanel;
+    }
+
+    /**
+     * Get status panel.
+     *
+     * @return the status panel
+     */
+    public StatusPanel getStatusPanel() {
+        return statusPanel;
+    }
+
+    /**
+     * Gets the resource bundle for localization
+     * @return resource bundle
+     */
+    public static ResourceBundle getLocalizedMessages() {
+        return localizedMessages;
+    }
+}
@@ -260,6 +260,22 @@ public final class MessageDialog extends JDialog implements ActionListener {
      * @return the password
      */
     public static char[] showPasswordDialog(final Component parent, final boolean confirm) {
+        return showPasswordDialog(parent, confirm, null);
+    }
+
+    /**
+     * Shows a password dialog for the given file.
+     *
+     * @param parent parent component
+     * @param confirm password confirmation
+     * @param fileName name of the file shown in the dialog title, can be null
+     * @return the password
+     */
+    public static char[] showPasswordDialog(final Component parent, final boolean confirm, final String fileName) {
+        String title = getLocalizedMessages().getString(PASSWORD_ENTER_PASSWORD_REQUEST);
+        if (fileName != null) {
+            title = String.format("%s - %s", title, fileName);
+        }
         JPanel panel = new JPanel();
         panel.add(new JLabel(String.format("%s:", getLocalizedMessages().getString(VIEW_WINDOW_PASSWORD))));
         final JPasswordField password = TextComponentFactory.newPasswordField();
@@ -275,7 +291,7 @@ public final class MessageDialog extends JDialog implements ActionListener {
 
         boolean incorrect = true;
         while (incorrect) {
-            int option = showMessageDialog(parent, panel, getLocalizedMessages().getString(PASSWORD_ENTER_PASSWORD_REQUEST), getIcon("dialog_lock"), OK_CANCEL_OPTION);
+            int option = showMessageDialog(parent, panel, title, getIcon("dialog_lock"), OK_CANCEL_OPTION);
             if (option == OK_OPTION) {
                 if (password.getPassword().length == 0) {
                     showWarningMessage(parent, getLocalizedMessages().getString(PASSWORD_ENTER_PASSWORD_REQUEST));
@@ -40,6 +40,7 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
@@ -60,13 +61,24 @@ public class SearchPanel extends JPanel implements ActionListener {
     private static final String CLOSE_BUTTON_ACTION_COMMAND = "close_search_panel_button";
     private static final String SEARCH_PANEL_CLOSE_ACTION = "jpass.search_panel.close";
 
+    /**
+     * Delay in milliseconds after the last keystroke before the search starts.
+     */
+    private static final int SEARCH_DELAY = 150;
+
     private final JLabel label;
     private final JTextField criteriaField;
     private final JButton closeButton;
+    private final Timer searchTimer;
 
     /**
      * Creates a new search panel with the given callback object.
      *
+     * <p>
+     * The callback is not called on every document update, but only when the
+     * search criteria has not been changed for a short time.
+     * </p>
+     *
      * @param searchCallback the callback used on document updates.
      */
     public SearchPanel(Consumer<Boolean> searchCallback) {
@@ -77,24 +89,29 @@ public class SearchPanel extends JPanel implements ActionListener {
 
         this.criteriaField = TextComponentFactory.newTextField();
 
-        if (searchCallback != null) {
-            this.criteriaField.getDocument().addDocumentListener(new DocumentListener() {
-                @Override
-                public void changedUpdate(DocumentEvent e) {
-                    searchCallback.accept(isEnabled());
-                }
-
-                @Override
-                public void insertUpdate(DocumentEvent e) {
-                    searchCallback.accept(isEnabled());
-                }
-
-                @Override
-                public void removeUpdate(DocumentEvent e) {
-                    searchCallback.accept(isEnabled());
-                }
-            });
-        }
+        this.searchTimer = new Timer(SEARCH_DELAY, e -> {
+            if (searchCallback != null) {
+                searchCallback.accept(isEnabled());
+            }
+        });
+        this.searchTimer.setRepeats(false);
+
+        this.criteriaField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+        });
 
         this.closeButton = new JButton(MessageDialog.getIcon("close"));
         this.closeButton.setBorder(new EmptyBorder(0, 2, 0, 2));
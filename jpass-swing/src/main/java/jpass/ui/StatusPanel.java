@@ -0,0 +1,175 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.ui;
+
+import java.awt.BorderLayout;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.JButton;
+import javax.swing.JProgressBar;
+import javax.swing.ToolTipManager;
+import javax.swing.border.EmptyBorder;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+
+import jpass.ui.action.Worker;
+import jpass.util.TaskExecutor;
+
+import static jpass.ui.JPassFrame.getLocalizedMessages;
+import static jpass.util.Constants.BUTTON_MESSAGE_CANCEL;
+import static jpass.util.Constants.PANEL_PENDING_TASKS;
+import static jpass.util.Constants.PANEL_PROCESSING;
+import static jpass.util.Constants.PANEL_REMAINING_TIME;
+import static jpass.util.Constants.PANEL_RUNNING_TASK;
+
+/**
+ * Class for representing a status bar. While processing, the running task
+ * can be cancelled, and the tool tip shows the running and pending tasks
+ * with their metrics.
+ *
+ * @author Gabor_Bata
+ *
+ */
+public class StatusPanel extends JPanel {
+
+    private final JLabel label;
+    private final JProgressBar progressBar;
+    private final JButton cancelButton;
+    private boolean processing;
+
+    public StatusPanel() {
+        super(new BorderLayout());
+        setBorder(new EmptyBorder(2, 2, 2, 2));
+        this.label = new JLabel() {
+            @Override
+            public String getToolTipText() {
+                return getTaskSummary();
+            }
+        };
+        ToolTipManager.sharedInstance().registerComponent(this.label);
+        this.progressBar = new JProgressBar();
+        this.cancelButton = new JButton(MessageDialog.getIcon("cancel"));
+        this.cancelButton.setToolTipText(getLocalizedMessages().getString(BUTTON_MESSAGE_CANCEL));
+        this.cancelButton.setBorder(new EmptyBorder(0, 4, 0, 2));
+        this.cancelButton.setContentAreaFilled(false);
+        this.cancelButton.addActionListener(e -> Worker.cancelRunningWorker());
+        JPanel progressPanel = new JPanel(new BorderLayout());
+        progressPanel.add(this.progressBar, BorderLayout.CENTER);
+        progressPanel.add(this.cancelButton, BorderLayout.EAST);
+        add(this.label, BorderLayout.CENTER);
+        add(progressPanel, BorderLayout.EAST);
+        setProcessing(false);
+    }
+
+    public void setText(final String text) {
+        this.label.setText(text);
+    }
+
+    public String getText() {
+        return this.label.getText();
+    }
+
+    public void setProcessing(boolean processing) {
+        this.processing = processing;
+        this.progressBar.setVisible(processing);
+        this.cancelButton.setVisible(processing);
+        this.progressBar.setIndeterminate(processing);
+        this.progressBar.setValue(0);
+        setText(processing ? getLocalizedMessages().getString(PANEL_PROCESSING) : " ");
+    }
+
+    /**
+     * Shows the number of bytes processed. If the total number of bytes is
+     * known, the progress bar shows the percentage, and the remaining time is
+     * shown if it could be estimated.
+     *
+     * @param processed number of bytes processed
+     * @param total total number of bytes, or a non-positive value if unknown
+     * @param remainingMillis estimated remaining time in milliseconds, or -1
+     * if unknown
+     */
+    public void setProgress(long processed, long total, long remainingMillis) {
+        StringBuilder text = new StringBuilder(getLocalizedMessages().getString(PANEL_PROCESSING));
+        if (total > 0) {
+            int percentage = (int) Math.min(100, processed * 100 / total);
+            this.progressBar.setIndeterminate(false);
+            this.progressBar.setValue(percentage);
+            text.append(' ').append(percentage).append("% (").append(formatMegabytes(Math.min(processed, total)))
+                    .append(" / ").append(formatMegabytes(total)).append(" MB)");
+        } else {
+            text.append(' ').append(formatMegabytes(processed)).append(" MB");
+        }
+        if (remainingMillis >= 0) {
+            long seconds = (remainingMillis + 999) / 1000;
+            text.append(", ").append(getLocalizedMessages().getString(PANEL_REMAINING_TIME))
+                    .append(String.format(": %d:%02d", seconds / 60, seconds % 60));
+        }
+        setText(text.toString());
+    }
+
+    /**
+     * Gets the running and pending tasks of the task executor, and the
+     * metrics of the tasks with the same names.
+     *
+     * @return the summary, or {@code null} if no task is running or pending
+     */
+    private String getTaskSummary() {
+        TaskExecutor executor = TaskExecutor.getInstance();
+        String runningTask = executor.getRunningTaskName();
+        List<String> pendingTasks = executor.getPendingTaskNames();
+        if (!this.processing || (runningTask == null && pendingTasks.isEmpty())) {
+            return null;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        StringBuilder text = new StringBuilder("<html>");
+        if (runningTask != null) {
+            names.add(runningTask);
+            text.append(getLocalizedMessages().getString(PANEL_RUNNING_TASK)).append(": ").append(runningTask);
+        }
+        if (!pendingTasks.isEmpty()) {
+            names.addAll(pendingTasks);
+            text.append(runningTask != null ? "<br>" : "")
+                    .append(getLocalizedMessages().getString(PANEL_PENDING_TASKS)).append(": ")
+                    .append(String.join(", ", pendingTasks));
+        }
+        for (String name : names) {
+            TaskExecutor.Metrics metrics = executor.getMetrics(name);
+            if (metrics != null) {
+                text.append("<br>").append(metrics);
+            }
+        }
+        return text.append("</html>").toString();
+    }
+
+    private static String formatMegabytes(long bytes) {
+        return String.format("%.1f", bytes / (1024.0 * 1024.0));
+    }
+}
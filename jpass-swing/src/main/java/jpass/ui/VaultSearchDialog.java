@@ -0,0 +1,277 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.ui;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.AbstractAction;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.WindowConstants;
+import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import jpass.data.DataModel;
+import jpass.data.VaultSearch;
+
+import static javax.swing.KeyStroke.getKeyStroke;
+import static jpass.ui.JPassFrame.getLocalizedMessages;
+import static jpass.util.Constants.BOTTOM_MENU_ENTRIES_FOUND;
+import static jpass.util.Constants.BUTTON_MESSAGE_CLOSE;
+import static jpass.util.Constants.EDIT_MENU_FIND_IN_VAULTS;
+import static jpass.util.Constants.PANEL_FIND;
+
+/**
+ * Dialog for searching entries in all open vaults. The results are shown
+ * together with the name of the vault, selecting a result shows the entry
+ * in its vault.
+ */
+public final class VaultSearchDialog extends JDialog {
+
+    private static final Logger LOG = Logger.getLogger(VaultSearchDialog.class.getName());
+    private static final String SELECT_MATCH_ACTION = "jpass.vault_search.select";
+
+    /**
+     * Delay in milliseconds after the last keystroke before the search starts.
+     */
+    private static final int SEARCH_DELAY = 150;
+
+    private final JPassFrame parent;
+    private final VaultSearch vaultSearch;
+    private final JTextField criteriaField;
+    private final DefaultListModel<VaultSearch.Match> resultModel;
+    private final JList<VaultSearch.Match> resultList;
+    private final JLabel statusLabel;
+    private SwingWorker<List<VaultSearch.Match>, Void> searchWorker;
+
+    /**
+     * Creates and shows the dialog.
+     *
+     * @param parent main application frame
+     */
+    public VaultSearchDialog(JPassFrame parent) {
+        super(parent);
+        this.parent = parent;
+        this.vaultSearch = new VaultSearch(parent.getVaults());
+        setModal(true);
+        setTitle(getLocalizedMessages().getString(EDIT_MENU_FIND_IN_VAULTS));
+        setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+
+        Timer searchTimer = new Timer(SEARCH_DELAY, e -> search());
+        searchTimer.setRepeats(false);
+        this.criteriaField = TextComponentFactory.newTextField();
+        this.criteriaField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+        });
+        JPanel criteriaPanel = new JPanel(new BorderLayout());
+        criteriaPanel.setBorder(new EmptyBorder(5, 5, 5, 5));
+        criteriaPanel.add(new JLabel(String.format("%s: ", getLocalizedMessages().getString(PANEL_FIND)),
+                MessageDialog.getIcon("find"), SwingConstants.LEADING), BorderLayout.WEST);
+        criteriaPanel.add(this.criteriaField, BorderLayout.CENTER);
+
+        this.resultModel = new DefaultListModel<>();
+        this.resultList = new JList<>(this.resultModel);
+        this.resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        this.resultList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                VaultSearch.Match match = (VaultSearch.Match) value;
+                String text = String.format("%s  [%s]", match.getEntry().getTitle(), getVaultName(match.getVault()));
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        this.resultList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    showSelectedMatch();
+                }
+            }
+        });
+        AbstractAction selectAction = new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showSelectedMatch();
+            }
+        };
+        this.resultList.getInputMap(JComponent.WHEN_FOCUSED).put(getKeyStroke(KeyEvent.VK_ENTER, 0), SELECT_MATCH_ACTION);
+        this.resultList.getActionMap().put(SELECT_MATCH_ACTION, selectAction);
+        this.criteriaField.addActionListener(e -> {
+            if (!this.resultModel.isEmpty()) {
+                this.resultList.setSelectedIndex(0);
+                showSelectedMatch();
+            }
+        });
+        JScrollPane scrollPane = new JScrollPane(this.resultList);
+        scrollPane.setPreferredSize(new Dimension(400, 250));
+
+        this.statusLabel = new JLabel();
+        JButton closeButton = new JButton(getLocalizedMessages().getString(BUTTON_MESSAGE_CLOSE), MessageDialog.getIcon("close"));
+        closeButton.setMnemonic(KeyEvent.VK_C);
+        closeButton.addActionListener(e -> dispose());
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(closeButton);
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.setBorder(new EmptyBorder(0, 5, 0, 0));
+        bottomPanel.add(this.statusLabel, BorderLayout.WEST);
+        bottomPanel.add(buttonPanel, BorderLayout.EAST);
+
+        getContentPane().add(criteriaPanel, BorderLayout.NORTH);
+        getContentPane().add(scrollPane, BorderLayout.CENTER);
+        getContentPane().add(bottomPanel, BorderLayout.SOUTH);
+
+        search();
+        pack();
+        setLocationRelativeTo(parent);
+        setVisible(true);
+    }
+
+    @Override
+    public void dispose() {
+        cancelSearch();
+        super.dispose();
+    }
+
+    /**
+     * Starts searching all vaults in the background, cancelling the previous
+     * search.
+     */
+    private void search() {
+        cancelSearch();
+        final String criteria = this.criteriaField.getText().trim();
+        this.searchWorker = new SwingWorker<List<VaultSearch.Match>, Void>() {
+            @Override
+            protected List<VaultSearch.Match> doInBackground() throws Exception {
+                return vaultSearch.search(criteria);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || searchWorker != this) {
+                    return;
+                }
+                try {
+                    showMatches(get());
+                } catch (InterruptedException | ExecutionException | CancellationException e) {
+                    LOG.log(Level.WARNING, "Could not search entries.", e);
+                }
+            }
+        };
+        this.searchWorker.execute();
+    }
+
+    /**
+     * Cancels the running background search.
+     */
+    private void cancelSearch() {
+        if (this.searchWorker != null) {
+            this.searchWorker.cancel(true);
+            this.searchWorker = null;
+        }
+    }
+
+    /**
+     * Shows the search result.
+     *
+     * @param matches the matches
+     */
+    private void showMatches(List<VaultSearch.Match> matches) {
+        this.resultModel.clear();
+        matches.forEach(this.resultModel::addElement);
+        this.statusLabel.setText(String.format("%s: %d / %d", getLocalizedMessages().getString(BOTTOM_MENU_ENTRIES_FOUND),
+                matches.size(), this.vaultSearch.getEntryCount()));
+    }
+
+    /**
+     * Shows the selected entry in its vault, and closes the dialog.
+     */
+    private void showSelectedMatch() {
+        VaultSearch.Match match = this.resultList.getSelectedValue();
+        if (match == null || !this.parent.getVaults().contains(match.getVault())) {
+            return;
+        }
+        this.parent.getSearchPanel().setVisible(false);
+        if (match.getVault() == this.parent.getModel()) {
+            this.parent.refreshEntryTitleList(null);
+        } else {
+            this.parent.selectVault(match.getVault());
+        }
+        this.parent.selectEntry(match.getEntry());
+        dispose();
+    }
+
+    /**
+     * Gets the name of the vault shown next to the matching entries.
+     *
+     * @param vault data model of the vault
+     * @return vault name
+     */
+    private static String getVaultName(DataModel vault) {
+        return vault.getFileName() == null ? "Untitled" : new File(vault.getFileName()).getName();
+    }
+}
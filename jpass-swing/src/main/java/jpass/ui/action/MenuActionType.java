@@ -40,6 +40,7 @@ import javax.swing.KeyStroke;
 import jpass.ui.GeneratePasswordDialog;
 import jpass.ui.JPassFrame;
 import jpass.ui.MessageDialog;
+import jpass.ui.VaultSearchDialog;
 import jpass.ui.helper.EntryHelper;
 import jpass.util.Constants;
 import jpass.xml.bind.Entry;
@@ -47,14 +48,17 @@ import jpass.xml.bind.Entry;
 import static javax.swing.KeyStroke.getKeyStroke;
 
 import static jpass.ui.JPassFrame.getLocalizedMessages;
+import static jpass.ui.helper.FileHelper.closeVault;
 import static jpass.ui.helper.FileHelper.exportFile;
 import static jpass.ui.helper.FileHelper.importFile;
 import static jpass.ui.helper.FileHelper.openFile;
+import static jpass.ui.helper.FileHelper.openVaults;
 import static jpass.ui.helper.FileHelper.saveFile;
 import static jpass.ui.helper.FileHelper.createNew;
 import static jpass.ui.MessageDialog.getIcon;
 import static java.awt.event.InputEvent.CTRL_DOWN_MASK;
 import static java.awt.event.InputEvent.ALT_DOWN_MASK;
+import static java.awt.event.InputEvent.SHIFT_DOWN_MASK;
 
 import static jpass.util.Constants.PASSWORD_PASSWORD_NOT_MODIFIED;
 import static jpass.util.Constants.PASSWORD_SUCCESSFULLY_MODIFIED;
@@ -67,11 +71,14 @@ import static jpass.util.Constants.EDIT_MENU_DELETE_ENTRY;
 import static jpass.util.Constants.EDIT_MENU_DUPLICATE_ENTRY;
 import static jpass.util.Constants.EDIT_MENU_EDIT_ENTRY;
 import static jpass.util.Constants.EDIT_MENU_FIND_ENTRY;
+import static jpass.util.Constants.EDIT_MENU_FIND_IN_VAULTS;
 import static jpass.util.Constants.FILE_MENU_CHANGE_PASSWORD;
+import static jpass.util.Constants.FILE_MENU_CLOSE_VAULT;
 import static jpass.util.Constants.FILE_MENU_EXIT;
 import static jpass.util.Constants.FILE_MENU_EXPORT_TO_XML;
 import static jpass.util.Constants.FILE_MENU_IMPORT_FROM_XML;
 import static jpass.util.Constants.FILE_MENU_NEW;
+import static jpass.util.Constants.FILE_MENU_OPEN_VAULTS;
 import static jpass.util.Constants.FILE_MENU_SAVE;
 import static jpass.util.Constants.FILE_MENU_SAVE_AS;
 import static jpass.util.Constants.HELP_MENU_ABOUT_JPASS;
@@ -109,6 +116,18 @@ public enum MenuActionType {
             saveFile(JPassFrame.getInstance(), true);
         }
     }),
+    OPEN_VAULTS(new AbstractMenuAction(getLocalizedMessages().getString(FILE_MENU_OPEN_VAULTS), getIcon("open"), null) {
+        @Override
+        public void actionPerformed(ActionEvent ev) {
+            openVaults(JPassFrame.getInstance());
+        }
+    }),
+    CLOSE_VAULT(new AbstractMenuAction(getLocalizedMessages().getString(FILE_MENU_CLOSE_VAULT), getIcon("close"), null) {
+        @Override
+        public void actionPerformed(ActionEvent ev) {
+            closeVault(JPassFrame.getInstance());
+        }
+    }),
     EXPORT_XML(new AbstractMenuAction(getLocalizedMessages().getString(FILE_MENU_EXPORT_TO_XML), getIcon("export"), null) {
         @Override
         public void actionPerformed(ActionEvent ev) {
@@ -217,7 +236,7 @@ public enum MenuActionType {
         public void actionPerformed(ActionEvent ev) {
             JPassFrame parent = JPassFrame.getInstance();
             Entry entry = EntryHelper.getSelectedEntry(parent);
-            if (entry != null) {
+            if (entry != null && EntryHelper.loadEntryDetails(parent, entry)) {
                 EntryHelper.copyEntryField(parent, entry.getPassword());
             }
         }
@@ -233,6 +252,12 @@ public enum MenuActionType {
         public void actionPerformed(ActionEvent ev) {
             JPassFrame.getInstance().getSearchPanel().setVisible(true);
         }
+    }),
+    FIND_IN_VAULTS(new AbstractMenuAction(getLocalizedMessages().getString(EDIT_MENU_FIND_IN_VAULTS), getIcon("find"), getKeyStroke(KeyEvent.VK_F, CTRL_DOWN_MASK | SHIFT_DOWN_MASK)) {
+        @Override
+        public void actionPerformed(ActionEvent ev) {
+            new VaultSearchDialog(JPassFrame.getInstance());
+        }
     });
 
     private final String name;
@@ -28,72 +28,66 @@
  */
 package jpass.ui.action;
 
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 import javax.swing.SwingWorker;
 
+import jpass.data.EntrySearch;
 import jpass.ui.JPassFrame;
-import jpass.ui.MessageDialog;
+import jpass.xml.bind.Entry;
 
 /**
- * Worker class for time consuming tasks. While the task is running, the main
- * application is disabled, and a progress indicator is shown.
- *
- * @author Gabor_Bata
- *
+ * Worker class for searching entries in the background. Unlike {@link Worker},
+ * it does not disable the main application while running, it can be cancelled
+ * at any time, and only the result of the latest search is shown.
  */
-public abstract class Worker extends SwingWorker<Void, Void> {
+public class SearchWorker extends SwingWorker<List<Entry>, Void> {
+
+    private static final Logger LOG = Logger.getLogger(SearchWorker.class.getName());
 
     /**
      * Main application frame.
      */
     private final JPassFrame parent;
 
+    private final EntrySearch search;
+    private final String criteria;
+
     /**
-     * Creates a new worker instance.
+     * Creates a new search worker instance.
      *
      * @param parent main application frame
+     * @param search the search to execute
+     * @param criteria search criteria
      */
-    public Worker(final JPassFrame parent) {
+    public SearchWorker(final JPassFrame parent, final EntrySearch search, final String criteria) {
         this.parent = parent;
-        this.parent.setProcessing(true);
+        this.search = search;
+        this.criteria = criteria;
+    }
+
+    @Override
+    protected List<Entry> doInBackground() throws Exception {
+        return this.search.search(this.criteria);
     }
 
     /**
-     * Sets back the processing state of the frame, and refreshes the frame
-     * content.
+     * Shows the search result, unless the search has been cancelled.
      *
      * @see javax.swing.SwingWorker#done()
      */
     @Override
     protected void done() {
-        super.done();
-        stopProcessing();
-        try {
-            get();
-        } catch (Exception e) {
-            showErrorMessage(e);
+        if (isCancelled()) {
+            return;
         }
-    }
-
-    /**
-     * Shows the message of the corresponding exception..
-     *
-     * @param e the exception
-     */
-    protected void showErrorMessage(final Exception e) {
-        String message;
-        if (e.getCause() != null) {
-            message = e.getCause().getMessage();
-        } else {
-            message = e.getMessage();
+        try {
+            this.parent.showSearchResult(this, get(), this.criteria, this.search.getEntryCount());
+        } catch (InterruptedException | ExecutionException e) {
+            LOG.log(Level.WARNING, "Could not search entries.", e);
         }
-        MessageDialog.showErrorMessage(this.parent, message);
-    }
-
-    /**
-     * Stops progress indicator and refreshes UI.
-     */
-    protected void stopProcessing() {
-        this.parent.setProcessing(false);
-        this.parent.refreshAll();
     }
 }
@@ -0,0 +1,211 @@
+/*
+ * JPass
+ *
+ * Copyright (c) 2009-2024 Gabor Bata
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jpass.ui.action;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
+import jpass.ui.JPassFrame;
+import jpass.ui.MessageDialog;
+import jpass.util.Configuration;
+import jpass.util.ProgressTracker;
+import jpass.util.TaskExecutor;
+
+/**
+ * Worker class for time consuming tasks. While the task is running, the main
+ * application is disabled, and a progress indicator is shown.
+ *
+ * <p>
+ * Workers are run by {@link TaskExecutor} one after the other, so a worker
+ * submitted while another one is running waits for it to finish. The main
+ * application stays disabled until every submitted worker is done.</p>
+ *
+ * @author Gabor_Bata
+ *
+ * @param <V> the type of intermediate results published by the worker
+ */
+public abstract class Worker<V> extends SwingWorker<Void, V> {
+
+    /**
+     * Minimum time between progress updates on the status panel.
+     */
+    private static final long PROGRESS_INTERVAL_MILLIS = 200;
+
+    /**
+     * Workers which have been submitted but are not done yet, in order of
+     * submission. Accessed on the event dispatch thread only.
+     */
+    private static final Deque<Worker<?>> ACTIVE_WORKERS = new ArrayDeque<>();
+
+    /**
+     * Main application frame.
+     */
+    private final JPassFrame parent;
+
+    /**
+     * Name of the task, used for metrics.
+     */
+    private final String name;
+
+    /**
+     * Maximum running time, or 0 for no timeout.
+     */
+    private final long timeoutMillis;
+
+    private TaskExecutor.Task task;
+
+    /**
+     * Creates a new worker instance, with the configured timeout.
+     *
+     * @param parent main application frame
+     * @param name name of the task
+     */
+    public Worker(final JPassFrame parent, final String name) {
+        this(parent, name, Configuration.getInstance().getInteger("task.timeout.seconds", 0) * 1000L);
+    }
+
+    /**
+     * Creates a new worker instance.
+     *
+     * @param parent main application frame
+     * @param name name of the task
+     * @param timeoutMillis maximum running time, or 0 for no timeout
+     */
+    public Worker(final JPassFrame parent, final String name, final long timeoutMillis) {
+        this.parent = parent;
+        this.name = name;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Submits the worker to the task executor, and sets the processing state
+     * of the frame. It runs when the previously submitted workers finished.
+     */
+    public void submit() {
+        ACTIVE_WORKERS.add(this);
+        this.parent.setProcessing(true);
+        this.task = TaskExecutor.getInstance().submit(this.name, this, this.timeoutMillis);
+    }
+
+    /**
+     * Cancels the worker, whether it is pending or running.
+     *
+     * @return {@code false} if the worker could not be cancelled, typically
+     * because it has already completed
+     */
+    public boolean cancelTask() {
+        return this.task == null ? cancel(true) : this.task.cancel();
+    }
+
+    /**
+     * Cancels the running worker. Workers waiting for it are not affected.
+     *
+     * @return {@code false} if no worker is running, or it could not be
+     * cancelled
+     */
+    public static boolean cancelRunningWorker() {
+        return ACTIVE_WORKERS.stream()
+                .filter(worker -> worker.getState() == StateValue.STARTED)
+                .findFirst()
+                .map(Worker::cancelTask)
+                .orElse(false);
+    }
+
+    /**
+     * Sets back the processing state of the frame, and refreshes the frame
+     * content.
+     *
+     * @see javax.swing.SwingWorker#done()
+     */
+    @Override
+    protected void done() {
+        super.done();
+        stopProcessing();
+        try {
+            get();
+        } catch (Exception e) {
+            showErrorMessage(e);
+        }
+    }
+
+    /**
+     * Shows the message of the corresponding exception. Cancellation is not
+     * reported, unless the task timed out.
+     *
+     * @param e the exception
+     */
+    protected void showErrorMessage(final Exception e) {
+        String message;
+        if (e instanceof CancellationException) {
+            if (this.task == null || !this.task.isTimedOut()) {
+                return;
+            }
+            message = String.format("Operation '%s' timed out after %d seconds.", this.name, this.timeoutMillis / 1000);
+        } else if (e.getCause() != null) {
+            message = e.getCause().getMessage();
+        } else {
+            message = e.getMessage();
+        }
+        MessageDialog.showErrorMessage(this.parent, message);
+    }
+
+    /**
+     * Creates a progress tracker, which shows the number of bytes processed
+     * by the task on the status panel, with percentage and remaining time if
+     * the total number of bytes is known.
+     *
+     * @param total total number of bytes, or a non-positive value if unknown
+     * @return the progress tracker
+     */
+    protected ProgressTracker createProgressTracker(final long total) {
+        return new ProgressTracker(total, PROGRESS_INTERVAL_MILLIS, (processed, all, remainingMillis) -> {
+            SwingUtilities.invokeLater(() -> {
+                if (!isDone()) {
+                    this.parent.getStatusPanel().setProgress(processed, all, remainingMillis);
+                }
+            });
+        });
+    }
+
+    /**
+     * Stops progress indicator, if no other worker is pending, and refreshes
+     * UI.
+     */
+    protected void stopProcessing() {
+        ACTIVE_WORKERS.remove(this);
+        if (ACTIVE_WORKERS.isEmpty()) {
+            this.parent.setProcessing(false);
+        }
+        this.parent.refreshAll();
+    }
+}
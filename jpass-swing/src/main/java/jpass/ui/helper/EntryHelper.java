@@ -28,6 +28,8 @@
  */
 package jpass.ui.helper;
 
+import java.io.UncheckedIOException;
+
 import jpass.ui.EntryDialog;
 import jpass.ui.JPassFrame;
 import jpass.util.ClipboardUtils;
@@ -69,11 +71,9 @@ public final class EntryHelper {
         }
         int option = showQuestionMessage(parent, getLocalizedMessages().getString(ENTRY_DIALOG_WANT_DELETE_ENTRY), YES_NO_OPTION);
         if (option == YES_OPTION) {
-            String title = (String) parent.getEntryTitleTable().getValueAt(parent.getEntryTitleTable().getSelectedRow(), 0);
-            parent.getModel().getEntries().getEntry().remove(parent.getModel().getEntryByTitle(title));
+            parent.getModel().removeEntry(parent.getEntryTitleTable().getSelectedEntry());
             parent.getModel().setModified(true);
             parent.refreshFrameTitle();
-            parent.refreshEntryTitleList(null);
         }
     }
 
@@ -87,14 +87,16 @@ public final class EntryHelper {
             showWarningMessage(parent, getLocalizedMessages().getString(ENTRY_DIALOG_PLEASE_SELECT_ENTRY));
             return;
         }
-        String title = (String) parent.getEntryTitleTable().getValueAt(parent.getEntryTitleTable().getSelectedRow(), 0);
-        Entry originalEntry = parent.getModel().getEntryByTitle(title);
+        Entry originalEntry = parent.getEntryTitleTable().getSelectedEntry();
+        if (!loadEntryDetails(parent, originalEntry)) {
+            return;
+        }
         EntryDialog dialog = new EntryDialog(parent, getLocalizedMessages().getString(ENTRY_DIALOG_DUPLICATE_ENTRY), originalEntry, true);
         dialog.getModifiedEntry().ifPresent(entry -> {
-            parent.getModel().getEntries().getEntry().add(entry);
+            parent.getModel().addEntry(entry);
             parent.getModel().setModified(true);
             parent.refreshFrameTitle();
-            parent.refreshEntryTitleList(entry.getTitle());
+            parent.selectEntry(entry);
         });
     }
 
@@ -108,16 +110,17 @@ public final class EntryHelper {
             showWarningMessage(parent, getLocalizedMessages().getString(ENTRY_DIALOG_PLEASE_SELECT_ENTRY));
             return;
         }
-        String title = (String) parent.getEntryTitleTable().getValueAt(parent.getEntryTitleTable().getSelectedRow(), 0);
-        Entry originalEntry = parent.getModel().getEntryByTitle(title);
+        Entry originalEntry = parent.getEntryTitleTable().getSelectedEntry();
+        if (!loadEntryDetails(parent, originalEntry)) {
+            return;
+        }
         EntryDialog dialog = new EntryDialog(parent, getLocalizedMessages().getString(ENTRY_DIALOG_EDIT_ENTRY), originalEntry, false);
         dialog.getModifiedEntry().ifPresent(entry -> {
             entry.setCreationDate(originalEntry.getCreationDate());
-            parent.getModel().getEntries().getEntry().remove(originalEntry);
-            parent.getModel().getEntries().getEntry().add(entry);
+            parent.getModel().updateEntry(originalEntry, entry);
             parent.getModel().setModified(true);
             parent.refreshFrameTitle();
-            parent.refreshEntryTitleList(entry.getTitle());
+            parent.selectEntry(entry);
         });
     }
 
@@ -129,10 +132,10 @@ public final class EntryHelper {
     public static void addEntry(JPassFrame parent) {
         EntryDialog dialog = new EntryDialog(parent, getLocalizedMessages().getString(ENTRY_DIALOG_ADD_NEW_ENTRY), null, true);
         dialog.getModifiedEntry().ifPresent(entry -> {
-            parent.getModel().getEntries().getEntry().add(entry);
+            parent.getModel().addEntry(entry);
             parent.getModel().setModified(true);
             parent.refreshFrameTitle();
-            parent.refreshEntryTitleList(entry.getTitle());
+            parent.selectEntry(entry);
         });
     }
 
@@ -147,8 +150,25 @@ public final class EntryHelper {
             showWarningMessage(parent, getLocalizedMessages().getString(ENTRY_DIALOG_PLEASE_SELECT_ENTRY));
             return null;
         }
-        String title = (String) parent.getEntryTitleTable().getValueAt(parent.getEntryTitleTable().getSelectedRow(), 0);
-        return parent.getModel().getEntryByTitle(title);
+        return parent.getEntryTitleTable().getSelectedEntry();
+    }
+
+    /**
+     * Loads the password and notes of the entry, if they are stored
+     * separately in the file.
+     *
+     * @param parent the parent frame
+     * @param entry the entry
+     * @return {@code true} if the details are available
+     */
+    public static boolean loadEntryDetails(JPassFrame parent, Entry entry) {
+        try {
+            entry.loadDetails();
+            return true;
+        } catch (UncheckedIOException e) {
+            showErrorMessage(parent, e.getCause().getMessage());
+            return false;
+        }
     }
 
     /**
@@ -31,14 +31,27 @@ package jpass.ui.helper;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.FutureTask;
 
 import javax.swing.JFileChooser;
 import javax.swing.filechooser.FileFilter;
 
+import jpass.data.DataModel;
 import jpass.data.EntriesRepository;
+import jpass.data.TrigramIndex;
+import jpass.data.VaultFile;
+import jpass.data.VaultLoader;
 import jpass.ui.JPassFrame;
 import jpass.ui.action.Worker;
 import jpass.util.Configuration;
+import jpass.util.TaskExecutor;
+import jpass.xml.bind.Entries;
+import jpass.xml.bind.Entry;
 
 import static jpass.ui.JPassFrame.getLocalizedMessages;
 import static jpass.ui.MessageDialog.showPasswordDialog;
@@ -74,6 +87,13 @@ public final class FileHelper {
             = "An error occured during the %s operation:\n%s";
     private static final String FILE_OVERWRITE_QUESTION_MESSAGE
             = "File is already exists:\n%s\n\nDo you want to overwrite?";
+    private static final String UNLOCK_ERROR_MESSAGE
+            = "Could not open %s.\nThe password might be incorrect.\n(Error: %s)";
+
+    /**
+     * Number of entries shown together while a file is being opened.
+     */
+    private static final int OPEN_BATCH_SIZE = 500;
 
     private static final String JPASS_DATA_FILES = "JPass Data Files (*.jpass)";
     private static final String XML_FILES = "XML Files (*.xml)";
@@ -121,18 +141,18 @@ public final class FileHelper {
         if (!checkFileOverwrite(fileName, parent)) {
             return;
         }
-        Worker worker = new Worker(parent) {
+        Worker<Void> worker = new Worker<Void>(parent, "export") {
             @Override
             protected Void doInBackground() throws Exception {
                 try {
-                    EntriesRepository.newInstance(fileName).writeDocument(parent.getModel().getEntries());
+                    EntriesRepository.newInstance(fileName).exportDocument(parent.getModel().getEntries(), createProgressTracker(0));
                 } catch (Throwable e) {
                     throw new Exception(format(OPERATION_ERROR_MESSAGE, "export", e.getMessage()));
                 }
                 return null;
             }
         };
-        worker.execute();
+        worker.submit();
     }
 
     /**
@@ -165,22 +185,36 @@ public final class FileHelper {
      * @param parent parent component
      */
     static void importFileInBackground(final String fileName, final JPassFrame parent) {
-        Worker worker = new Worker(parent) {
+        Worker<Void> worker = new Worker<Void>(parent, "import") {
+            private Entries entries;
+
             @Override
             protected Void doInBackground() throws Exception {
                 try {
-                    parent.getModel().setEntries(EntriesRepository.newInstance(fileName).readDocument());
+                    Entries imported = new Entries();
+                    EntriesRepository.newInstance(fileName).readEntries(Integer.MAX_VALUE, imported.getEntry()::addAll,
+                            createProgressTracker(new File(fileName).length()));
+                    this.entries = imported;
+                } catch (Throwable e) {
+                    throw new Exception(format(OPERATION_ERROR_MESSAGE, "import", e.getMessage()));
+                }
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                // the model notifies the user interface, so it is updated on the event dispatch thread
+                if (this.entries != null && !isCancelled()) {
+                    parent.getModel().setEntries(this.entries);
                     parent.getModel().setModified(true);
                     parent.getModel().setFileName(null);
                     parent.getModel().setPassword(null);
                     parent.getSearchPanel().setVisible(false);
-                } catch (Throwable e) {
-                    throw new Exception(format(OPERATION_ERROR_MESSAGE, "import", e.getMessage()));
                 }
-                return null;
+                super.done();
             }
         };
-        worker.execute();
+        worker.submit();
     }
 
     /**
@@ -227,14 +261,16 @@ public final class FileHelper {
         } else {
             password = parent.getModel().getPassword();
         }
-        Worker worker = new Worker(parent) {
+        final DataModel model = parent.getModel();
+        final VaultFile vaultFile = new VaultFile(fileName, password);
+        Worker<Void> worker = new Worker<Void>(parent, "save") {
+            private DataModel.Snapshot snapshot;
+
             @Override
             protected Void doInBackground() throws Exception {
                 try {
-                    EntriesRepository.newInstance(fileName, password).writeDocument(parent.getModel().getEntries());
-                    parent.getModel().setFileName(fileName);
-                    parent.getModel().setPassword(password);
-                    parent.getModel().setModified(false);
+                    // the size of the previous version is the best estimate of the new size
+                    this.snapshot = vaultFile.write(model, createProgressTracker(new File(fileName).length()));
                 } catch (Throwable e) {
                     throw new Exception(format(OPERATION_ERROR_MESSAGE, "save", e.getMessage()));
                 }
@@ -252,21 +288,23 @@ public final class FileHelper {
                     showErrorMessage(e);
                 }
                 if (result) {
+                    saveSearchIndexInBackground(vaultFile, model, this.snapshot);
                     successCallback.run();
                 }
             }
         };
-        worker.execute();
+        worker.submit();
     }
 
     /**
-     * Shows a file chooser dialog and opens a file.
+     * Shows a file chooser dialog and opens a file. If the file is already
+     * open in another vault, that vault is selected instead.
      *
      * @param parent parent component
      */
     public static void openFile(final JPassFrame parent) {
         final File file = showFileChooser(parent, getLocalizedMessages().getString(PANEL_OPEN), "jpass", JPASS_DATA_FILES);
-        if (file == null) {
+        if (file == null || selectOtherOpenVault(parent, file.getPath())) {
             return;
         }
         if (parent.getModel().isModified()) {
@@ -282,12 +320,134 @@ public final class FileHelper {
     }
 
     /**
-     * Loads a file and fills the data model.
+     * Shows a file chooser dialog and opens the selected files as additional
+     * vaults. The files are unlocked in parallel.
+     *
+     * @param parent parent component
+     */
+    public static void openVaults(final JPassFrame parent) {
+        File[] files = showFileChooser(parent, getLocalizedMessages().getString(PANEL_OPEN), "jpass", JPASS_DATA_FILES, true);
+        List<String> fileNames = new ArrayList<>(files.length);
+        for (File file : files) {
+            fileNames.add(file.getPath());
+        }
+        openVaults(parent, fileNames);
+    }
+
+    /**
+     * Opens the given files as additional vaults, asking the password of
+     * each file. Vaults which are already open are selected instead.
+     *
+     * @param parent parent component
+     * @param fileNames file names of the vaults
+     */
+    public static void openVaults(final JPassFrame parent, final List<String> fileNames) {
+        final Map<String, char[]> vaults = new LinkedHashMap<>();
+        for (String fileName : fileNames) {
+            File file = new File(fileName);
+            Optional<DataModel> openVault = findOpenVault(parent, fileName);
+            if (openVault.isPresent()) {
+                parent.selectVault(openVault.get());
+                continue;
+            }
+            char[] password = showPasswordDialog(parent, false, file.getName());
+            if (password == null) {
+                return;
+            }
+            vaults.put(fileName, password);
+        }
+        if (vaults.isEmpty()) {
+            return;
+        }
+        Worker<Void> worker = new Worker<Void>(parent, "unlock") {
+            private final List<String> errors = new ArrayList<>();
+            private List<DataModel> unlockedVaults;
+
+            @Override
+            protected Void doInBackground() throws Exception {
+                this.unlockedVaults = VaultLoader.unlock(vaults, (fileName, e) ->
+                        this.errors.add(format(UNLOCK_ERROR_MESSAGE, stripString(fileName), stripString(e.getMessage()))));
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                stopProcessing();
+                try {
+                    get();
+                } catch (Exception e) {
+                    showErrorMessage(e);
+                    return;
+                }
+                this.unlockedVaults.forEach(parent::addVault);
+                if (!this.errors.isEmpty()) {
+                    showErrorMessage(new Exception(String.join("\n\n", this.errors)));
+                }
+            }
+        };
+        worker.submit();
+    }
+
+    /**
+     * Closes the selected vault, asking to save it if it has been modified.
+     *
+     * @param parent parent component
+     */
+    public static void closeVault(final JPassFrame parent) {
+        if (parent.getModel().isModified()) {
+            int option = showQuestionMessage(parent, getLocalizedMessages().getString(PANEL_SAVE_MODIFIED_QUESTION_MESSAGE), YES_NO_CANCEL_OPTION);
+            if (option == YES_OPTION) {
+                saveFile(parent, false, parent::closeVault);
+                return;
+            } else if (option != NO_OPTION) {
+                return;
+            }
+        }
+        parent.closeVault();
+    }
+
+    /**
+     * Finds the open vault of the given file.
+     *
+     * @param parent parent component
+     * @param fileName file name
+     * @return the vault, or empty if the file is not open
+     */
+    private static Optional<DataModel> findOpenVault(final JPassFrame parent, final String fileName) {
+        File file = new File(fileName).getAbsoluteFile();
+        return parent.getVaults().stream()
+                .filter(vault -> vault.getFileName() != null && file.equals(new File(vault.getFileName()).getAbsoluteFile()))
+                .findFirst();
+    }
+
+    /**
+     * Selects the vault of the given file, if the file is open in a vault
+     * other than the selected one.
+     *
+     * @param parent parent component
+     * @param fileName file name
+     * @return {@code true} if another vault has been selected
+     */
+    private static boolean selectOtherOpenVault(final JPassFrame parent, final String fileName) {
+        Optional<DataModel> openVault = findOpenVault(parent, fileName);
+        if (!openVault.isPresent() || openVault.get() == parent.getModel()) {
+            return false;
+        }
+        parent.selectVault(openVault.get());
+        return true;
+    }
+
+    /**
+     * Loads a file and fills the data model. If the file is already open in
+     * another vault, that vault is selected instead.
      *
      * @param fileName file name
      * @param parent parent component
      */
     public static void openFileInBackground(final String fileName, final JPassFrame parent) {
+        if (fileName != null && selectOtherOpenVault(parent, fileName)) {
+            return;
+        }
         parent.clearModel();
         if (fileName == null) {
             return;
@@ -296,14 +456,18 @@ public final class FileHelper {
         if (password == null) {
             return;
         }
-        Worker worker = new Worker(parent) {
+        parent.getSearchPanel().setVisible(false);
+        final VaultFile vaultFile = new VaultFile(fileName, password);
+        Worker<List<Entry>> worker = new Worker<List<Entry>>(parent, "open") {
+            private Entries entries;
+            private TrigramIndex searchIndex;
+
             @Override
+            @SuppressWarnings("unchecked")
             protected Void doInBackground() throws Exception {
                 try {
-                    parent.getModel().setEntries(EntriesRepository.newInstance(fileName, password).readDocument());
-                    parent.getModel().setFileName(fileName);
-                    parent.getModel().setPassword(password);
-                    parent.getSearchPanel().setVisible(false);
+                    this.entries = vaultFile.read(OPEN_BATCH_SIZE, this::publish, createProgressTracker(new File(fileName).length()));
+                    this.searchIndex = vaultFile.loadSearchIndex(this.entries).orElse(null);
                 } catch (FileNotFoundException e) {
                     throw e;
                 } catch (IOException e) {
@@ -314,21 +478,64 @@ public final class FileHelper {
                 return null;
             }
 
+            @Override
+            protected void process(List<List<Entry>> batches) {
+                // batches published right before completion may arrive after done
+                if (isDone()) {
+                    return;
+                }
+                for (List<Entry> batch : batches) {
+                    parent.getModel().addEntries(batch);
+                    parent.showLoadedEntries(batch);
+                }
+            }
+
             @Override
             protected void done() {
-                stopProcessing();
+                Entry selectedEntry = parent.getEntryTitleTable().getSelectedEntry();
+                Exception error = null;
                 try {
                     get();
+                    parent.getModel().setEntries(this.entries, this.searchIndex);
+                    parent.getModel().setFileName(fileName);
+                    parent.getModel().setPassword(password);
                 } catch (Exception e) {
-                    if (e.getCause() instanceof FileNotFoundException) {
-                        handleFileNotFound(parent, fileName, password);
-                    } else {
-                        showErrorMessage(e);
+                    parent.clearModel();
+                    error = e;
+                }
+                stopProcessing();
+                if (error == null) {
+                    if (this.searchIndex == null) {
+                        saveSearchIndexInBackground(vaultFile, parent.getModel(), parent.getModel().getSnapshot());
                     }
+                    parent.selectEntry(selectedEntry);
+                } else if (error.getCause() instanceof FileNotFoundException) {
+                    handleFileNotFound(parent, fileName, password);
+                } else {
+                    showErrorMessage(error);
                 }
             }
         };
-        worker.execute();
+        worker.submit();
+    }
+
+    /**
+     * Saves the search index of the vault next to the vault file, on the task
+     * executor, if search index files are enabled. The index is built first
+     * if the snapshot does not have one.
+     *
+     * @param vaultFile the vault file, which has been read or written
+     * @param model data model of the vault
+     * @param snapshot snapshot of the model, which has been read or written
+     */
+    private static void saveSearchIndexInBackground(final VaultFile vaultFile, final DataModel model, final DataModel.Snapshot snapshot) {
+        if (!vaultFile.hasSearchIndexFile()) {
+            return;
+        }
+        TaskExecutor.getInstance().submit("index", new FutureTask<Void>(() -> {
+            vaultFile.saveSearchIndex(model, snapshot);
+            return null;
+        }), 0);
     }
 
     /**
@@ -341,20 +548,18 @@ public final class FileHelper {
     static void handleFileNotFound(final JPassFrame parent, final String fileName, final char[] password) {
         int option = showQuestionMessage(parent, format(CREATE_FILE_QUESTION_MESSAGE, stripString(fileName)), YES_NO_OPTION);
         if (option == YES_OPTION) {
-            Worker fileNotFoundWorker = new Worker(parent) {
+            Worker<Void> fileNotFoundWorker = new Worker<Void>(parent, "create") {
                 @Override
                 protected Void doInBackground() throws Exception {
                     try {
-                        EntriesRepository.newInstance(fileName, password).writeDocument(parent.getModel().getEntries());
-                        parent.getModel().setFileName(fileName);
-                        parent.getModel().setPassword(password);
+                        new VaultFile(fileName, password).write(parent.getModel(), null);
                     } catch (Exception ex) {
                         throw new Exception(format(OPERATION_ERROR_MESSAGE, "open", ex.getMessage()));
                     }
                     return null;
                 }
             };
-            fileNotFoundWorker.execute();
+            fileNotFoundWorker.submit();
         }
     }
 
@@ -368,7 +573,23 @@ public final class FileHelper {
      * @return a file object
      */
     private static File showFileChooser(JPassFrame parent, String taskName, String extension, String description) {
-        File ret = null;
+        File[] files = showFileChooser(parent, taskName, extension, description, false);
+        return files.length == 0 ? null : files[0];
+    }
+
+    /**
+     * Shows a file chooser dialog.
+     *
+     * @param parent parent component
+     * @param taskName name of the task
+     * @param extension accepted file extension
+     * @param description file extension description
+     * @param multiSelection whether multiple files can be selected
+     * @return the selected files, or an empty array if cancelled
+     */
+    private static File[] showFileChooser(JPassFrame parent, String taskName, String extension, String description,
+            boolean multiSelection) {
+        File[] ret = new File[0];
         String fileChooserDir = Configuration.getInstance().get("file.chooser.directory", "./");
         JFileChooser fc = new JFileChooser(fileChooserDir.isEmpty() ? null : fileChooserDir);
         fc.setFileFilter(new FileFilter() {
@@ -382,9 +603,10 @@ public final class FileHelper {
                 return description;
             }
         });
+        fc.setMultiSelectionEnabled(multiSelection);
         int returnVal = fc.showDialog(parent, taskName);
         if (returnVal == JFileChooser.APPROVE_OPTION) {
-            ret = fc.getSelectedFile();
+            ret = multiSelection ? fc.getSelectedFiles() : new File[] {fc.getSelectedFile()};
         }
         return ret;
     }
@@ -17,6 +17,8 @@ public final class Constants {
     public static final String FILE_MENU_EXPORT_TO_XML = "fileMenu.exportToXML";
     public static final String FILE_MENU_IMPORT_FROM_XML = "fileMenu.importFromXML";
     public static final String FILE_MENU_CHANGE_PASSWORD = "fileMenu.changePassword";
+    public static final String FILE_MENU_OPEN_VAULTS = "fileMenu.openVaults";
+    public static final String FILE_MENU_CLOSE_VAULT = "fileMenu.closeVault";
     public static final String FILE_MENU_EXIT = "fileMenu.exitMenu";
 
     public static final String PASSWORD_ENTER_PASSWORD_REQUEST = "password.enterPasswordRequest";
@@ -38,6 +40,7 @@ public final class Constants {
     public static final String EDIT_MENU_COPY_PASSWORD = "editMenu.copyPassword";
     public static final String EDIT_MENU_CLEAR_CLIPBOARD = "editMenu.clearClipboard";
     public static final String EDIT_MENU_FIND_ENTRY = "editMenu.findEntry";
+    public static final String EDIT_MENU_FIND_IN_VAULTS = "editMenu.findInVaults";
 
     public static final String TOOLS_MENU_GENERATE_PASSWORD = "toolsMenu.generatePassword";
 
@@ -86,6 +89,10 @@ public final class Constants {
     public static final String BOTTOM_MENU_ENTRIES_FOUND = "bottomMenu.entriesFound";
 
     public static final String PANEL_PROCESSING = "panel.processing";
+    public static final String PANEL_REMAINING_TIME = "panel.remainingTime";
+    public static final String PANEL_RUNNING_TASK = "panel.runningTask";
+    public static final String PANEL_PENDING_TASKS = "panel.pendingTasks";
+    public static final String PANEL_VAULT = "panel.vault";
     public static final String PANEL_FIND = "panel.find";
     public static final String PANEL_EXPORT = "panel.export";
     public static final String PANEL_IMPORT = "panel.import";